@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import ch.bl.blconsumptionanalysis.shard.ShardCoordinator;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to run the queries on the EnergyRepository of version 2.
+ * Every query is executed with the given filter, so that it is either cached or scans the storage on every call.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+final class CurrentEngine implements Engine {
+	private final EnergyRepository repository;
+	private final QueryFilter filter;
+
+	/**
+	 * This constructor is used to load the entries.
+	 *
+	 * @param entries The entries.
+	 * @param filter  The filter of every query.
+	 */
+	CurrentEngine(List<Entry> entries, QueryFilter filter) {
+		this.repository = new EnergyRepository(clazz -> entries, StorageBackend.HEAP, ShardCoordinator.local());
+		this.filter = filter;
+	}
+
+	@Override
+	public Supplier<Object> prepare(Query query) {
+		Query prepared = new Query(query.getFunction(), query.getOptions(), filter, query.getCommune1(),
+				query.getCommune2(), query.getLimit());
+		return () -> repository.execute(prepared);
+	}
+
+	@Override
+	public Object normalize(Object result) {
+		QueryResult queryResult = (QueryResult) result;
+		return queryResult.getComparison() != null ? queryResult.getComparison() : queryResult.getEntries();
+	}
+
+	@Override
+	public void close() {
+		repository.close();
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.dao.AbstractJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import ch.bl.blconsumptionanalysis.shard.ShardCoordinator;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class is used to create the datasets of the benchmarks.
+ * <p>
+ * A size of {@value #BUNDLED} rows means the bundled JSON file, all other sizes are generated with the years of the
+ * bundled file and as many communes as needed. The generated data is the same for every run.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+final class Datasets {
+	static final int BUNDLED = 1032;
+	/**
+	 * A filter that includes every entry but is not cached, so every query with it scans the storage.
+	 */
+	static final QueryFilter SCAN = new QueryFilter(Integer.MIN_VALUE, Integer.MAX_VALUE - 1, Set.of());
+	private static final int[] YEARS = {1990, 1995, 2000, 2002, 2004, 2006, 2010, 2012, 2014, 2016, 2018, 2020};
+
+	private Datasets() {
+	}
+
+	/**
+	 * This method is used to return the entries of a dataset.
+	 *
+	 * @param rows The number of rows.
+	 * @return The entries.
+	 */
+	static List<Entry> entries(int rows) {
+		if (rows == BUNDLED) {
+			return new EnergyJSONReaderDAO().getList(Entry.class);
+		}
+		Random random = new Random(rows);
+		List<Entry> entries = new ArrayList<>(rows);
+		for (int row = 0; row < rows; ++row) {
+			String commune = String.format("Commune %05d", row / YEARS.length);
+			entries.add(new Entry(YEARS[row % YEARS.length], commune, 1000 + random.nextDouble() * 500_000));
+		}
+		return entries;
+	}
+
+	/**
+	 * This method is used to return a dataset as JSON, as it is read by the DAO.
+	 *
+	 * @param rows The number of rows.
+	 * @return The JSON array of the entries.
+	 */
+	static String json(int rows) {
+		return new Gson().toJson(entries(rows));
+	}
+
+	/**
+	 * This method is used to create a repository holding a dataset.
+	 *
+	 * @param rows    The number of rows.
+	 * @param backend The storage backend.
+	 * @return The repository.
+	 */
+	static EnergyRepository repository(int rows, StorageBackend backend) {
+		List<Entry> entries = entries(rows);
+		return new EnergyRepository(clazz -> entries, backend, ShardCoordinator.local());
+	}
+
+	/**
+	 * This method is used to return the queries that are run on every implementation of a comparison: each average
+	 * with every sorting, the highest consumers and the comparison of the first and the last commune. The first query
+	 * of each function sorts by the consumption.
+	 *
+	 * @param entries The entries of the dataset.
+	 * @return The queries.
+	 */
+	static List<Query> queries(List<Entry> entries) {
+		List<Query> queries = new ArrayList<>();
+		for (Functions function : List.of(Functions.AVERAGE_CONSUMPTION_PER_YEAR,
+				Functions.AVERAGE_CONSUMPTION_PER_COMMUNE)) {
+			for (int sort = 2; sort >= 1; --sort) {
+				for (int order = 1; order <= 2; ++order) {
+					queries.add(Query.of(function, new Options(sort, order)));
+				}
+			}
+		}
+		queries.add(Query.of(Functions.HIGHEST_CONSUMERS, new Options(2, 1)));
+		TreeSet<String> communes = new TreeSet<>();
+		for (Entry entry : entries) {
+			communes.add(entry.getCommune());
+		}
+		queries.add(Query.comparison(communes.first(), communes.last()));
+		return queries;
+	}
+
+	/**
+	 * This class is used to read the JSON of a dataset from memory instead of the class path.
+	 */
+	static final class InMemoryJSONReaderDAO extends AbstractJSONReaderDAO<Entry> {
+		private final String json;
+
+		InMemoryJSONReaderDAO(String json) {
+			super("in-memory.json");
+			this.json = json;
+		}
+
+		@Override
+		public Optional<String> loadJSON() {
+			return Optional.of(json);
+		}
+	}
+}
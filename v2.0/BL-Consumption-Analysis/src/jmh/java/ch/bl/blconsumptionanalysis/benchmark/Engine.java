@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Query;
+
+import java.util.function.Supplier;
+
+/**
+ * This interface is used to run the same queries on the repository of version 1 and of version 2.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+interface Engine extends AutoCloseable {
+	/**
+	 * This method is used to prepare a query, so that only its execution is measured.
+	 *
+	 * @param query The query.
+	 * @return The prepared query, returning the result as the implementation does.
+	 */
+	Supplier<Object> prepare(Query query);
+
+	/**
+	 * This method is used to convert a result to the entries or the comparison of version 2, so that the results of
+	 * both versions can be compared.
+	 *
+	 * @param result The result of a prepared query.
+	 * @return The list of entries or the map of pairs.
+	 */
+	Object normalize(Object result);
+
+	/**
+	 * This method is used to release the data of the implementation.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+
+import java.util.List;
+
+/**
+ * This enum is used to choose the implementation the queries of a comparison run on.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public enum Implementation {
+	V1("imperative loops over the entries (version 1)"),
+	V2_SCAN("columnar storage, every query scans (version 2)"),
+	V2_CACHED("columnar storage with cached results (version 2)");
+
+	private final String description;
+
+	Implementation(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * This method is used to load the entries into the implementation.
+	 *
+	 * @param entries The entries.
+	 * @return The engine running the queries.
+	 */
+	Engine create(List<Entry> entries) {
+		switch (this) {
+			case V1:
+				return new LegacyEngine(LegacyEngine.classes(), entries);
+			case V2_SCAN:
+				return new CurrentEngine(entries, Datasets.SCAN);
+			default:
+				return new CurrentEngine(entries, QueryFilter.all());
+		}
+	}
+}
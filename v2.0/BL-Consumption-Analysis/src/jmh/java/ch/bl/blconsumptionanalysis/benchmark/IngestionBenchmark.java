@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import ch.bl.blconsumptionanalysis.shard.ShardCoordinator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure reading the JSON file and loading the entries into a storage backend.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+	@Param({"1032", "100000", "1000000"})
+	private int rows;
+
+	@Param({"HEAP", "OFF_HEAP", "MAPPED"})
+	private StorageBackend backend;
+
+	private Datasets.InMemoryJSONReaderDAO dao;
+	private List<Entry> entries;
+
+	@Setup
+	public void setUp() {
+		dao = new Datasets.InMemoryJSONReaderDAO(Datasets.json(rows));
+		entries = Datasets.entries(rows);
+	}
+
+	/**
+	 * This method is used to measure parsing the JSON into entries with {@code AbstractJSONReaderDAO.getList}.
+	 * The result does not depend on the backend, only the runs with the heap backend are needed.
+	 */
+	@Benchmark
+	public List<Entry> getList() {
+		return dao.getList(Entry.class);
+	}
+
+	/**
+	 * This method is used to measure loading parsed entries into the storage backend.
+	 */
+	@Benchmark
+	public EnergyRepository load() {
+		EnergyRepository repository = new EnergyRepository(clazz -> entries, backend, ShardCoordinator.local());
+		repository.close();
+		return repository;
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.Query;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to run the queries on the EnergyRepository of version 1.
+ * <p>
+ * Both versions use the same class names, so the compiled classes of version 1 are loaded by their own class loader,
+ * which loads the classes of the application itself before asking its parent for the libraries. The classes are
+ * compiled with {@code mvn -f ../../v1.0/BL-Consumption-Analysis compile}, their directory can be changed with the
+ * system property {@value #CLASSES_PROPERTY}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+final class LegacyEngine implements Engine {
+	static final String CLASSES_PROPERTY = "v1.classes";
+	private static final String DEFAULT_CLASSES = "../../v1.0/BL-Consumption-Analysis/target/classes";
+	private static final String PACKAGE = "ch.bl.blconsumptionanalysis.";
+	private static final MethodType RESULT = MethodType.methodType(Object.class);
+	private final URLClassLoader loader;
+	private final Object repository;
+	private final MethodHandle newOptions;
+	private final MethodHandle averagePerYear;
+	private final MethodHandle averagePerCommune;
+	private final MethodHandle highestConsumers;
+	private final MethodHandle comparison;
+	private final MethodHandle getYear;
+	private final MethodHandle getCommune;
+	private final MethodHandle getMwh;
+	private final MethodHandle getFirst;
+	private final MethodHandle getSecond;
+
+	/**
+	 * This constructor is used to load version 1 and to hand it the entries.
+	 *
+	 * @param classes The directory of the compiled classes of version 1.
+	 * @param entries The entries.
+	 */
+	LegacyEngine(Path classes, List<Entry> entries) {
+		if (!Files.isDirectory(classes.resolve(PACKAGE.replace('.', '/') + "repository"))) {
+			throw new IllegalStateException("The classes of version 1 are missing in " + classes.toAbsolutePath()
+					+ ", compile them with: mvn -f ../../v1.0/BL-Consumption-Analysis compile");
+		}
+		try {
+			loader = new ChildFirstClassLoader(new URL[]{classes.toUri().toURL()}, LegacyEngine.class.getClassLoader());
+			Class<?> entryClass = loader.loadClass(PACKAGE + "model.Entry");
+			Class<?> optionsClass = loader.loadClass(PACKAGE + "model.Options");
+			Class<?> pairClass = loader.loadClass(PACKAGE + "model.Pair");
+			Class<?> daoClass = loader.loadClass(PACKAGE + "dao.JSONReaderDAO");
+			Class<?> repositoryClass = loader.loadClass(PACKAGE + "repository.EnergyRepository");
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+			MethodHandle newEntry = lookup.findConstructor(entryClass,
+					MethodType.methodType(void.class, int.class, String.class, double.class));
+			List<Object> legacyEntries = new ArrayList<>(entries.size());
+			for (Entry entry : entries) {
+				legacyEntries.add(newEntry.invoke(entry.getYear(), entry.getCommune(), entry.getMwh()));
+			}
+			Object service = Proxy.newProxyInstance(loader, new Class<?>[]{daoClass}, (proxy, method, arguments) -> {
+				if (!"getList".equals(method.getName())) {
+					throw new UnsupportedOperationException(method.getName());
+				}
+				return legacyEntries;
+			});
+			repository = lookup.findConstructor(repositoryClass, MethodType.methodType(void.class, daoClass))
+					.invoke(service);
+
+			newOptions = lookup.findConstructor(optionsClass, MethodType.methodType(void.class, int.class, int.class));
+			averagePerYear = lookup.findVirtual(repositoryClass, "getAverageConsumptionPerYear",
+					MethodType.methodType(List.class, optionsClass)).bindTo(repository);
+			averagePerCommune = lookup.findVirtual(repositoryClass, "getAverageConsumptionPerCommune",
+					MethodType.methodType(List.class, optionsClass)).bindTo(repository);
+			highestConsumers = lookup.findVirtual(repositoryClass, "getHighestConsumers",
+					MethodType.methodType(List.class)).bindTo(repository);
+			comparison = lookup.findVirtual(repositoryClass, "getComparisonOfTwoCommunes",
+					MethodType.methodType(Map.class, String.class, String.class)).bindTo(repository);
+			getYear = lookup.findVirtual(entryClass, "getYear", MethodType.methodType(int.class));
+			getCommune = lookup.findVirtual(entryClass, "getCommune", MethodType.methodType(String.class));
+			getMwh = lookup.findVirtual(entryClass, "getMwh", MethodType.methodType(double.class));
+			getFirst = lookup.findVirtual(pairClass, "getFirst", MethodType.methodType(double.class));
+			getSecond = lookup.findVirtual(pairClass, "getSecond", MethodType.methodType(double.class));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Could not load version 1 from " + classes, e);
+		}
+	}
+
+	/**
+	 * This method is used to return the directory of the compiled classes of version 1.
+	 *
+	 * @return The directory set by the system property or the directory of the Maven build.
+	 */
+	static Path classes() {
+		return Path.of(System.getProperty(CLASSES_PROPERTY, DEFAULT_CLASSES));
+	}
+
+	@Override
+	public Supplier<Object> prepare(Query query) {
+		MethodHandle call;
+		switch (query.getFunction()) {
+			case AVERAGE_CONSUMPTION_PER_YEAR:
+				call = averagePerYear.bindTo(options(query.getOptions()));
+				break;
+			case AVERAGE_CONSUMPTION_PER_COMMUNE:
+				call = averagePerCommune.bindTo(options(query.getOptions()));
+				break;
+			case HIGHEST_CONSUMERS:
+				// Version 1 always returns the ten highest consumers.
+				call = highestConsumers;
+				break;
+			case COMPARISON_OF_TWO_COMMUNES:
+				call = MethodHandles.insertArguments(comparison, 0, query.getCommune1(), query.getCommune2());
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown function " + query.getFunction());
+		}
+		MethodHandle result = call.asType(RESULT);
+		return () -> {
+			try {
+				return (Object) result.invokeExact();
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	@Override
+	public Object normalize(Object result) {
+		try {
+			if (result instanceof Map) {
+				Map<Integer, Pair> comparison = new LinkedHashMap<>();
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+					comparison.put((Integer) entry.getKey(), new Pair((double) getFirst.invoke(entry.getValue()),
+							(double) getSecond.invoke(entry.getValue())));
+				}
+				return comparison;
+			}
+			List<Entry> entries = new ArrayList<>();
+			for (Object entry : (List<?>) result) {
+				entries.add(new Entry((int) getYear.invoke(entry), (String) getCommune.invoke(entry),
+						(double) getMwh.invoke(entry)));
+			}
+			return entries;
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			loader.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Object options(Options options) {
+		try {
+			return newOptions.invoke(options.getSort(), options.getOrder());
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * This class is used to load the classes of version 1 instead of the classes with the same name of version 2.
+	 */
+	private static final class ChildFirstClassLoader extends URLClassLoader {
+		private ChildFirstClassLoader(URL[] urls, ClassLoader parent) {
+			super(urls, parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.startsWith(PACKAGE)) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> clazz = findLoadedClass(name);
+				if (clazz == null) {
+					clazz = findClass(name);
+				}
+				if (resolve) {
+					resolveClass(clazz);
+				}
+				return clazz;
+			}
+		}
+	}
+}
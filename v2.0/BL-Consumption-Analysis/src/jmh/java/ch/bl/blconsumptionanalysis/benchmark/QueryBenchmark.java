@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.repository.CachedResult;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure each query of the EnergyRepository.
+ * <p>
+ * The cached variants run without a filter and return the result kept by the snapshot after the first call. The
+ * scan variants use a filter that includes every entry but is not cached, so every call scans the storage.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+	@Param({"1032", "100000", "1000000"})
+	private int rows;
+
+	@Param({"HEAP", "OFF_HEAP"})
+	private StorageBackend backend;
+
+	private EnergyRepository repository;
+	private String commune1;
+	private String commune2;
+	private CachedResult averages;
+	private List<Query> batch;
+
+	@Setup
+	public void setUp() {
+		repository = Datasets.repository(rows, backend);
+		List<Entry> communes = repository.getAverageConsumptionPerCommune(new Options(1, 1));
+		commune1 = communes.get(0).getCommune();
+		commune2 = communes.get(communes.size() - 1).getCommune();
+		averages = new CachedResult(communes, Comparator.comparing(Entry::getCommune));
+		batch = List.of(
+				new Query(Functions.AVERAGE_CONSUMPTION_PER_YEAR, new Options(1, 1), Datasets.SCAN, null, null, 0),
+				new Query(Functions.AVERAGE_CONSUMPTION_PER_COMMUNE, new Options(2, 1), Datasets.SCAN, null, null, 0),
+				new Query(Functions.HIGHEST_CONSUMERS, new Options(2, 1), Datasets.SCAN, null, null, 10),
+				new Query(Functions.COMPARISON_OF_TWO_COMMUNES, new Options(1, 1), Datasets.SCAN, commune1, commune2, 0));
+	}
+
+	@TearDown
+	public void tearDown() {
+		repository.close();
+	}
+
+	@Benchmark
+	public List<Entry> averagePerYearCached() {
+		return repository.getAverageConsumptionPerYear(new Options(2, 1));
+	}
+
+	@Benchmark
+	public List<Entry> averagePerYearScan() {
+		return repository.getAverageConsumptionPerYear(new Options(2, 1), Datasets.SCAN);
+	}
+
+	@Benchmark
+	public List<Entry> averagePerCommuneCached() {
+		return repository.getAverageConsumptionPerCommune(new Options(2, 1));
+	}
+
+	@Benchmark
+	public List<Entry> averagePerCommuneScan() {
+		return repository.getAverageConsumptionPerCommune(new Options(2, 1), Datasets.SCAN);
+	}
+
+	@Benchmark
+	public List<Entry> highestConsumersCached() {
+		return repository.getHighestConsumers();
+	}
+
+	@Benchmark
+	public List<Entry> highestConsumersScan() {
+		return repository.getHighestConsumers(10, Datasets.SCAN);
+	}
+
+	@Benchmark
+	public Map<Integer, Pair> comparisonOfTwoCommunes() {
+		return repository.getComparisonOfTwoCommunes(commune1, commune2);
+	}
+
+	/**
+	 * This method is used to measure all four functions executed together with one shared scan.
+	 */
+	@Benchmark
+	public List<QueryResult> batchScan() {
+		return repository.executeBatch(batch);
+	}
+
+	/**
+	 * This method is used to measure sorting a result by the options, which was {@code applyOptions} in version 1.
+	 * The views are iterated, as they are only sorted when they are first accessed.
+	 */
+	@Benchmark
+	public void applyOptions(Blackhole blackhole) {
+		for (int sort = 1; sort <= 2; ++sort) {
+			for (int order = 1; order <= 2; ++order) {
+				for (Entry entry : averages.view(new Options(sort, order))) {
+					blackhole.consume(entry);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.format.ResultFormat;
+import ch.bl.blconsumptionanalysis.format.ResultRenderer;
+import ch.bl.blconsumptionanalysis.format.RowStream;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure a query from its execution to the rendered output, and the streaming of all entries.
+ * The output is discarded, so only the formatting is measured.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+	@Param({"1032", "100000", "1000000"})
+	private int rows;
+
+	@Param({"TABLE", "CSV", "NDJSON", "JSON", "BINARY"})
+	private ResultFormat format;
+
+	private EnergyRepository repository;
+	private Query query;
+
+	@Setup
+	public void setUp() {
+		repository = Datasets.repository(rows, StorageBackend.HEAP);
+		query = Query.of(Functions.AVERAGE_CONSUMPTION_PER_COMMUNE, new Options(2, 1));
+	}
+
+	@TearDown
+	public void tearDown() {
+		repository.close();
+	}
+
+	/**
+	 * This method is used to measure executing a query and rendering its result.
+	 */
+	@Benchmark
+	public long endToEnd() throws IOException {
+		QueryResult result = repository.execute(query);
+		return ResultRenderer.render(result, format, OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * This method is used to measure streaming all entries of the storage.
+	 */
+	@Benchmark
+	public long entries() throws IOException {
+		RowStream entries = RowStream.ofEntries(repository.entries(QueryFilter.all()));
+		return ResultRenderer.render(entries, format, OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.benchmark;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.Query;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to run the same queries on the same datasets with version 1 and version 2 of the
+ * EnergyRepository, to check that both versions return the same results and to report the throughput, the latency
+ * and the allocated memory of each query.
+ * <p>
+ * Usage: {@code VersionComparison [--rows=1032,100000] [--warmup=10] [--iterations=20] [--v1-classes=...]
+ * [--output=report.csv]}
+ * <p>
+ * The results of version 1 are the reference. Averages may differ by rounding in the last digits, so they are
+ * compared with a relative tolerance, and entries with the same consumption may be listed in any order. The exit code
+ * is 1 if any result differs.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class VersionComparison {
+	private static final double TOLERANCE = 1e-9;
+	private static final String[] HEADER = {"rows", "implementation", "query", "ops/s", "p50 us", "p99 us", "max us",
+			"bytes/op", "result"};
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private VersionComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> arguments = new HashMap<>();
+		for (String arg : args) {
+			String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+			arguments.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+		}
+		if (arguments.containsKey("v1-classes")) {
+			System.setProperty(LegacyEngine.CLASSES_PROPERTY, arguments.get("v1-classes"));
+		}
+		int warmup = Integer.parseInt(arguments.getOrDefault("warmup", "10"));
+		int iterations = Integer.parseInt(arguments.getOrDefault("iterations", "20"));
+		if (warmup < 0 || iterations < 1) {
+			throw new IllegalArgumentException("Expected at least one iteration");
+		}
+
+		boolean identical = true;
+		List<String[]> report = new ArrayList<>();
+		for (String rows : arguments.getOrDefault("rows", "1032,100000,1000000").split(",")) {
+			identical &= compare(Integer.parseInt(rows.trim()), warmup, iterations, report);
+		}
+
+		StringBuilder table = new StringBuilder();
+		appendTable(table, HEADER);
+		report.forEach(line -> appendTable(table, line));
+		System.out.print(table);
+		if (arguments.containsKey("output")) {
+			StringBuilder csv = new StringBuilder(String.join(",", HEADER)).append(System.lineSeparator());
+			report.forEach(line -> csv.append(String.join(",", line)).append(System.lineSeparator()));
+			Files.writeString(Path.of(arguments.get("output")), csv, StandardCharsets.UTF_8);
+		}
+		System.out.println(identical ? "All results are identical." : "Some results differ, see above.");
+		System.exit(identical ? 0 : 1);
+	}
+
+	private static boolean compare(int rows, int warmup, int iterations, List<String[]> report) {
+		List<Entry> entries = Datasets.entries(rows);
+		List<Query> queries = Datasets.queries(entries);
+		Map<Implementation, Engine> engines = new EnumMap<>(Implementation.class);
+		for (Implementation implementation : Implementation.values()) {
+			engines.put(implementation, implementation.create(entries));
+		}
+		boolean identical = true;
+		try {
+			for (Query query : queries) {
+				Object reference = null;
+				for (Map.Entry<Implementation, Engine> engine : engines.entrySet()) {
+					Supplier<Object> prepared = engine.getValue().prepare(query);
+					long[] latencies = new long[iterations];
+					Object result = null;
+					for (int i = 0; i < warmup; ++i) {
+						result = prepared.get();
+					}
+					long allocated = THREADS.getCurrentThreadAllocatedBytes();
+					long start = System.nanoTime();
+					for (int i = 0; i < iterations; ++i) {
+						long begin = System.nanoTime();
+						result = prepared.get();
+						latencies[i] = System.nanoTime() - begin;
+					}
+					long elapsed = System.nanoTime() - start;
+					allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+
+					Object normalized = engine.getValue().normalize(result);
+					String outcome;
+					if (reference == null) {
+						reference = normalized;
+						outcome = "reference";
+					} else {
+						String difference = difference(query.getFunction(), reference, normalized);
+						identical &= difference == null;
+						outcome = difference == null ? "identical" : "differs: " + difference;
+					}
+					Arrays.sort(latencies);
+					report.add(new String[]{
+							String.valueOf(rows),
+							engine.getKey().name(),
+							describe(query),
+							String.format(Locale.ROOT, "%.1f", iterations * 1e9 / elapsed),
+							micros(latencies[(latencies.length - 1) / 2]),
+							micros(latencies[(int) Math.ceil(latencies.length * 0.99) - 1]),
+							micros(latencies[latencies.length - 1]),
+							String.valueOf(allocated / iterations),
+							outcome});
+				}
+			}
+		} finally {
+			engines.values().forEach(Engine::close);
+		}
+		return identical;
+	}
+
+	/**
+	 * This method is used to compare the normalized results of a query.
+	 *
+	 * @param function The function of the query.
+	 * @param expected The result of the reference.
+	 * @param actual   The result to check.
+	 * @return The first difference or null if the results are the same.
+	 */
+	@SuppressWarnings("unchecked")
+	static String difference(Functions function, Object expected, Object actual) {
+		if (function == Functions.COMPARISON_OF_TWO_COMMUNES) {
+			Map<Integer, Pair> expectedPairs = (Map<Integer, Pair>) expected;
+			Map<Integer, Pair> actualPairs = (Map<Integer, Pair>) actual;
+			if (!expectedPairs.keySet().equals(actualPairs.keySet())) {
+				return expectedPairs.size() + " years instead of " + actualPairs.size();
+			}
+			for (Map.Entry<Integer, Pair> pair : expectedPairs.entrySet()) {
+				Pair other = actualPairs.get(pair.getKey());
+				if (!close(pair.getValue().getFirst(), other.getFirst())
+						|| !close(pair.getValue().getSecond(), other.getSecond())) {
+					return "year " + pair.getKey();
+				}
+			}
+			return null;
+		}
+		boolean perYear = function == Functions.AVERAGE_CONSUMPTION_PER_YEAR;
+		List<Entry> expectedEntries = inTieOrder((List<Entry>) expected, perYear);
+		List<Entry> actualEntries = inTieOrder((List<Entry>) actual, perYear);
+		if (expectedEntries.size() != actualEntries.size()) {
+			return expectedEntries.size() + " entries instead of " + actualEntries.size();
+		}
+		for (int i = 0; i < expectedEntries.size(); ++i) {
+			Object expectedLabel = label(expectedEntries.get(i), perYear);
+			if (!Objects.equals(expectedLabel, label(actualEntries.get(i), perYear))
+					|| !close(expectedEntries.get(i).getMwh(), actualEntries.get(i).getMwh())) {
+				return "entry " + (i + 1) + " (" + expectedLabel + ")";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This method is used to order entries with the same consumption by their label, as both versions may list them
+	 * in a different order.
+	 */
+	private static List<Entry> inTieOrder(List<Entry> entries, boolean perYear) {
+		List<Entry> ordered = new ArrayList<>(entries);
+		Comparator<Entry> byLabel = perYear ? Comparator.comparingInt(Entry::getYear)
+				: Comparator.comparing(Entry::getCommune);
+		int start = 0;
+		for (int end = 1; end <= ordered.size(); ++end) {
+			if (end == ordered.size() || !close(ordered.get(start).getMwh(), ordered.get(end).getMwh())) {
+				ordered.subList(start, end).sort(byLabel);
+				start = end;
+			}
+		}
+		return ordered;
+	}
+
+	private static Object label(Entry entry, boolean perYear) {
+		return perYear ? (Object) entry.getYear() : entry.getCommune();
+	}
+
+	private static boolean close(double expected, double actual) {
+		return Math.abs(expected - actual) <= TOLERANCE * Math.max(1, Math.max(Math.abs(expected), Math.abs(actual)));
+	}
+
+	private static String describe(Query query) {
+		switch (query.getFunction()) {
+			case AVERAGE_CONSUMPTION_PER_YEAR:
+			case AVERAGE_CONSUMPTION_PER_COMMUNE:
+				return query.getFunction().name().toLowerCase(Locale.ROOT) + " sort=" + query.getOptions().getSort()
+						+ " order=" + query.getOptions().getOrder();
+			default:
+				return query.getFunction().name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static String micros(long nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+	}
+
+	private static void appendTable(StringBuilder table, String[] line) {
+		table.append(String.format(Locale.ROOT, "%-9s %-10s %-45s %12s %10s %10s %10s %12s  %s%n", (Object[]) line));
+	}
+}
@@ -25,9 +25,14 @@
 
 package ch.bl.blconsumptionanalysis;
 
+import ch.bl.blconsumptionanalysis.view.BatchJob;
+import ch.bl.blconsumptionanalysis.view.FastQuery;
+import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 /**
  * This is the main class of the application.
  *
@@ -37,8 +42,31 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class BlConsumptionAnalysisApplication {
 
+	/**
+	 * This method is used to start the application. If queries are given on the command line, they are executed
+	 * without the menu and the application exits with the exit code of the {@link BatchJob}. With {@code --fast}
+	 * they are executed by {@link FastQuery} without starting Spring.
+	 *
+	 * @param args The command line arguments.
+	 */
 	public static void main(String[] args) {
-		SpringApplication.run(BlConsumptionAnalysisApplication.class, args);
+		if (FastQuery.isRequested(args)) {
+			FastQuery.main(args);
+			return;
+		}
+		if (!BatchJob.isRequested(args)) {
+			SpringApplication.run(BlConsumptionAnalysisApplication.class, args);
+			return;
+		}
+		String[] batchArgs = Arrays.copyOf(args, args.length + 4);
+		batchArgs[args.length] = "--batch.enabled=true";
+		batchArgs[args.length + 1] = "--console.enabled=false";
+		batchArgs[args.length + 2] = "--api.enabled=false";
+		batchArgs[args.length + 3] = "--logging.level.root=ERROR";
+		SpringApplication application = new SpringApplication(BlConsumptionAnalysisApplication.class);
+		application.setBannerMode(Banner.Mode.OFF);
+		application.setLogStartupInfo(false);
+		System.exit(SpringApplication.exit(application.run(batchArgs)));
 	}
 
 }
@@ -0,0 +1,190 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.analysis;
+
+import ch.bl.blconsumptionanalysis.model.AnomalyModel;
+import ch.bl.blconsumptionanalysis.model.AnomalyRow;
+import ch.bl.blconsumptionanalysis.repository.YearSeries;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is used to find the years in which the consumption of a commune deviates strongly from its previous
+ * years, for example after a data error or a sudden jump.
+ * <p>
+ * The series of a commune is read once in the order of the years. Only the values of the last years of the window are
+ * kept in a ring buffer, so the state per commune is bounded by the window. Each year is compared to the window before
+ * it is added, by the median and the median absolute deviation (robust against the anomalies themselves) or by the
+ * mean and the standard deviation. The communes are independent of each other and are checked in parallel.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class AnomalyDetector {
+	/**
+	 * The factor that scales the median absolute deviation to the standard deviation of a normal distribution.
+	 */
+	private static final double MAD_SCALE = 1.4826;
+	/**
+	 * The factor that scales the mean absolute deviation to the standard deviation of a normal distribution. It is
+	 * used if more than half of the window has the same value, so the median absolute deviation is zero.
+	 */
+	private static final double MEAN_DEVIATION_SCALE = 1.2533;
+	/**
+	 * The smallest deviation relative to the expected value. Without it a window of equal values would give any
+	 * small change an unbounded score and rank it above real jumps.
+	 */
+	private static final double MIN_RELATIVE_DEVIATION = 0.01;
+
+	private AnomalyDetector() {
+	}
+
+	/**
+	 * This method is used to find the anomalous years of all communes of the series. A year is reported if the score
+	 * of its deviation reaches the threshold of the model, it is not before the first reported year of the model and
+	 * at least {@link AnomalyModel#MIN_WINDOW} years of the commune precede it.
+	 *
+	 * @param series     The consumption per commune and year.
+	 * @param dictionary The dictionary of the commune ids.
+	 * @param model      The method, the window and the threshold.
+	 * @param limit      The maximum number of anomalies.
+	 * @return The anomalies, ranked by descending score.
+	 */
+	public static List<AnomalyRow> detect(YearSeries series, CommuneDictionary dictionary, AnomalyModel model,
+										  int limit) {
+		return IntStream.range(0, series.communes())
+				.parallel()
+				.mapToObj(id -> detect(series, id, dictionary.name(id), model))
+				.flatMap(List::stream)
+				.sorted(Comparator.comparingDouble(AnomalyRow::getScore).reversed()
+						.thenComparing(AnomalyRow::getCommune)
+						.thenComparingInt(AnomalyRow::getYear))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	private static List<AnomalyRow> detect(YearSeries series, int id, String commune, AnomalyModel model) {
+		List<AnomalyRow> anomalies = new ArrayList<>(0);
+		Window window = new Window(model.getWindow());
+		for (int index = 0; index < series.years(); ++index) {
+			if (!series.has(id, index)) {
+				continue;
+			}
+			double mwh = series.sum(id, index);
+			int year = series.firstYear() + index;
+			if (window.size() >= AnomalyModel.MIN_WINDOW && year >= model.getSince()) {
+				boolean robust = model.getMethod() == AnomalyModel.Method.MAD;
+				double expected = robust ? window.median() : window.mean();
+				double deviation = robust ? MAD_SCALE * window.medianDeviation(expected)
+						: window.standardDeviation(expected);
+				if (robust && deviation == 0) {
+					deviation = MEAN_DEVIATION_SCALE * window.meanDeviation(expected);
+				}
+				deviation = Math.max(deviation, MIN_RELATIVE_DEVIATION * Math.max(Math.abs(expected), 1));
+				double score = Math.abs(mwh - expected) / deviation;
+				if (score >= model.getThreshold()) {
+					double change = expected == 0 ? 0 : (mwh - expected) / Math.abs(expected) * 100;
+					anomalies.add(new AnomalyRow(commune, year, mwh, expected, change, score));
+				}
+			}
+			window.add(mwh);
+		}
+		return anomalies;
+	}
+
+	/**
+	 * This class is used to keep the last values of a series in a ring buffer.
+	 */
+	private static final class Window {
+		private final double[] values;
+		private final double[] scratch;
+		private int next;
+		private int size;
+
+		Window(int length) {
+			this.values = new double[length];
+			this.scratch = new double[length];
+		}
+
+		void add(double value) {
+			values[next] = value;
+			next = (next + 1) % values.length;
+			size = Math.min(size + 1, values.length);
+		}
+
+		int size() {
+			return size;
+		}
+
+		double mean() {
+			double sum = 0;
+			for (int i = 0; i < size; ++i) {
+				sum += values[i];
+			}
+			return sum / size;
+		}
+
+		double standardDeviation(double mean) {
+			double sum = 0;
+			for (int i = 0; i < size; ++i) {
+				sum += (values[i] - mean) * (values[i] - mean);
+			}
+			return Math.sqrt(sum / (size - 1));
+		}
+
+		double meanDeviation(double center) {
+			double sum = 0;
+			for (int i = 0; i < size; ++i) {
+				sum += Math.abs(values[i] - center);
+			}
+			return sum / size;
+		}
+
+		double median() {
+			System.arraycopy(values, 0, scratch, 0, size);
+			return sortedMedian();
+		}
+
+		double medianDeviation(double median) {
+			for (int i = 0; i < size; ++i) {
+				scratch[i] = Math.abs(values[i] - median);
+			}
+			return sortedMedian();
+		}
+
+		private double sortedMedian() {
+			Arrays.sort(scratch, 0, size);
+			int middle = size / 2;
+			return size % 2 == 1 ? scratch[middle] : (scratch[middle - 1] + scratch[middle]) / 2;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.analysis;
+
+import ch.bl.blconsumptionanalysis.model.ForecastModel;
+import ch.bl.blconsumptionanalysis.model.ForecastRow;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.repository.YearSeries;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is used to project the consumption of every commune from the series of its past years.
+ * <p>
+ * The communes are independent of each other and are fitted in parallel. A linear trend only needs six sums per
+ * commune, so it is computed in closed form while the series is read once. Exponential smoothing (Holt) reads the
+ * series in the order of the years and only keeps the level and the trend. The gaps between the years of the data
+ * are taken into account by both methods.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class TrendForecaster {
+	/**
+	 * The 97.5% quantiles of the t-distribution for 1 to 30 degrees of freedom, used for the 95% prediction intervals.
+	 */
+	private static final double[] T_QUANTILES = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+			2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+			2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+	private static final double Z_QUANTILE = 1.960;
+
+	private TrendForecaster() {
+	}
+
+	/**
+	 * This method is used to project the consumption of all communes of the series for the years after its last
+	 * year. Communes with less than three years of data are left out, because no error can be estimated for them.
+	 * The projections and their bounds are not negative.
+	 * <p>
+	 * The communes are sorted like the other results by the options: by name (1) or by the consumption of the last
+	 * projected year (2), in descending (1) or ascending (2) order of the consumption and in ascending (1) or
+	 * descending (2) order of the names. The years of a commune follow each other.
+	 *
+	 * @param series     The consumption per commune and year.
+	 * @param dictionary The dictionary of the commune ids.
+	 * @param model      The method and the number of years ahead.
+	 * @param options    The options object.
+	 * @return The projected rows.
+	 */
+	public static List<ForecastRow> forecast(YearSeries series, CommuneDictionary dictionary, ForecastModel model,
+											 Options options) {
+		return IntStream.range(0, series.communes())
+				.parallel()
+				.mapToObj(id -> project(series, id, dictionary.name(id), model))
+				.filter(Objects::nonNull)
+				.sorted(comparator(options))
+				.flatMap(Arrays::stream)
+				.collect(Collectors.toList());
+	}
+
+	private static ForecastRow[] project(YearSeries series, int id, String commune, ForecastModel model) {
+		return model.getMethod() == ForecastModel.Method.HOLT
+				? holt(series, id, commune, model)
+				: linear(series, id, commune, model.getHorizon());
+	}
+
+	/**
+	 * This method is used to fit a line by least squares. The years are counted from the first year of the series.
+	 */
+	private static ForecastRow[] linear(YearSeries series, int id, String commune, int horizon) {
+		int n = 0;
+		double sumX = 0;
+		double sumY = 0;
+		double sumXY = 0;
+		double sumXX = 0;
+		double sumYY = 0;
+		for (int x = 0; x < series.years(); ++x) {
+			if (series.has(id, x)) {
+				double y = series.sum(id, x);
+				++n;
+				sumX += x;
+				sumY += y;
+				sumXY += x * y;
+				sumXX += (double) x * x;
+				sumYY += y * y;
+			}
+		}
+		if (n < 3) {
+			return null;
+		}
+		double meanX = sumX / n;
+		double sxx = sumXX - sumX * meanX;
+		double sxy = sumXY - sumX * sumY / n;
+		double syy = sumYY - sumY * sumY / n;
+		double slope = sxy / sxx;
+		double intercept = (sumY - slope * sumX) / n;
+		double sigma = Math.sqrt(Math.max(syy - slope * sxy, 0) / (n - 2));
+		double t = quantile(n - 2);
+
+		ForecastRow[] rows = new ForecastRow[horizon];
+		for (int h = 1; h <= horizon; ++h) {
+			double x = series.years() - 1 + h;
+			double half = t * sigma * Math.sqrt(1 + 1.0 / n + (x - meanX) * (x - meanX) / sxx);
+			rows[h - 1] = row(commune, series.firstYear() + (int) x, intercept + slope * x, half);
+		}
+		return rows;
+	}
+
+	/**
+	 * This method is used to smooth the level and the trend per year, starting with the first two years of data.
+	 * The error is estimated from the one-step errors of the following years. The interval widens with the variance
+	 * of the state space form of the method, whose trend gain is {@code alpha * beta}.
+	 */
+	private static ForecastRow[] holt(YearSeries series, int id, String commune, ForecastModel model) {
+		double alpha = model.getAlpha();
+		double beta = model.getBeta();
+		int n = 0;
+		int lastX = 0;
+		double level = 0;
+		double trend = 0;
+		double squaredErrors = 0;
+		for (int x = 0; x < series.years(); ++x) {
+			if (!series.has(id, x)) {
+				continue;
+			}
+			double y = series.sum(id, x);
+			if (n == 0) {
+				level = y;
+			} else if (n == 1) {
+				trend = (y - level) / (x - lastX);
+				level = y;
+			} else {
+				int gap = x - lastX;
+				double expected = level + gap * trend;
+				squaredErrors += (y - expected) * (y - expected);
+				double smoothed = alpha * y + (1 - alpha) * expected;
+				trend = beta * (smoothed - level) / gap + (1 - beta) * trend;
+				level = smoothed;
+			}
+			lastX = x;
+			++n;
+		}
+		if (n < 3) {
+			return null;
+		}
+		double sigma = Math.sqrt(squaredErrors / (n - 2));
+		double t = quantile(n - 2);
+
+		double gain = alpha * beta;
+
+		ForecastRow[] rows = new ForecastRow[model.getHorizon()];
+		for (int h = 1; h <= model.getHorizon(); ++h) {
+			int x = series.years() - 1 + h;
+			int steps = x - lastX;
+			double factor = 1 + (steps - 1) * (alpha * alpha + alpha * gain * steps
+					+ gain * gain * steps * (2.0 * steps - 1) / 6);
+			rows[h - 1] = row(commune, series.firstYear() + x, level + steps * trend, t * sigma * Math.sqrt(factor));
+		}
+		return rows;
+	}
+
+	private static ForecastRow row(String commune, int year, double mwh, double half) {
+		return new ForecastRow(commune, year, Math.max(mwh, 0), Math.max(mwh - half, 0), Math.max(mwh + half, 0));
+	}
+
+	private static double quantile(int degreesOfFreedom) {
+		return degreesOfFreedom <= T_QUANTILES.length ? T_QUANTILES[degreesOfFreedom - 1] : Z_QUANTILE;
+	}
+
+	private static Comparator<ForecastRow[]> comparator(Options options) {
+		if (options.getSort() == 1) {
+			Comparator<ForecastRow[]> byName = Comparator.comparing(rows -> rows[0].getCommune());
+			return options.getOrder() == 2 ? byName.reversed() : byName;
+		}
+		Comparator<ForecastRow[]> byValue = Comparator.comparingDouble(rows -> rows[rows.length - 1].getMwh());
+		return options.getOrder() != 2 ? byValue.reversed() : byValue;
+	}
+}
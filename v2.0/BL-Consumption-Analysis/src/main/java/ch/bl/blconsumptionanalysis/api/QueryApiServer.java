@@ -0,0 +1,453 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.api;
+
+import ch.bl.blconsumptionanalysis.format.ResultFormat;
+import ch.bl.blconsumptionanalysis.format.ResultRenderer;
+import ch.bl.blconsumptionanalysis.format.RowStream;
+import ch.bl.blconsumptionanalysis.model.CommuneMatch;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryPlan;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryFootprint;
+import ch.bl.blconsumptionanalysis.monitoring.MetricsRegistry;
+import ch.bl.blconsumptionanalysis.service.AsyncQueryService;
+import ch.bl.blconsumptionanalysis.service.ICommuneService;
+import ch.bl.blconsumptionanalysis.service.IQueryService;
+import ch.bl.blconsumptionanalysis.service.QueryLane;
+import ch.bl.blconsumptionanalysis.service.QueryParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class is used to serve the functions as an HTTP API with JSON responses.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /api/functions}: the available functions.</li>
+ *     <li>{@code GET /api/query?function=...}: the result of a query, see {@link QueryParser} for the parameters.
+ *     With {@code format=ndjson}, {@code csv}, {@code table} or {@code binary} the rows are streamed instead of
+ *     returned as one object, see {@link ResultRenderer}. With {@code explain=true} the JSON contains the execution
+ *     plan of the query and its stages are returned in the {@code Server-Timing} header for every format.</li>
+ *     <li>{@code GET /api/communes?prefix=...} or {@code ?q=...&distance=2}: the communes starting with a prefix or
+ *     within an edit distance of a name, ignoring case and diacritics, see {@link ICommuneService}. The communes of
+ *     queries and batches are resolved the same way, so {@code boeckten} finds Böckten.</li>
+ *     <li>{@code GET /api/entries?from=...&to=...&communes=...}: the raw entries included by the filter, streamed as
+ *     NDJSON (default) or in another format without loading them all.</li>
+ *     <li>{@code POST /api/batch}: the results of several queries, with a body like
+ *     {@code {"queries": [{"function": "1"}, {"function": "4", "commune1": "Aesch", "commune2": "Allschwil"}]}}.
+ *     The queries are executed together on the same version of the data.</li>
+ *     <li>{@code GET /api/metrics}: the latency, calls, cache hits and rows scanned of each function and the durations
+ *     of loading the data, see {@link MetricsRegistry}.</li>
+ *     <li>{@code GET /api/footprint?rows=...}: the memory of the loaded data by structure, projected to the given
+ *     numbers of rows (comma separated), see {@link MemoryFootprint}.</li>
+ * </ul>
+ * Queries and batches are scheduled by the {@link AsyncQueryService} on the interactive or the batch lane by their
+ * estimated cost: with {@code timeout=500} (milliseconds, otherwise {@code query.timeout}) a query that takes longer is
+ * cancelled and answered with 504, and if all workers of its lane are busy and the queue is full the request is
+ * answered with 503. The metrics contain the state and latency of each lane.
+ * <p>
+ * The server is started when {@code api.enabled} is set, next to the interactive console.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Component
+public class QueryApiServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(QueryApiServer.class);
+	private static final int MAX_BATCH_QUERIES = 256;
+	private static final int MAX_COMMUNES = 100;
+	private final IQueryService queryService;
+	private final ICommuneService communeService;
+	private final AsyncQueryService asyncQueryService;
+	private final boolean enabled;
+	private final int port;
+	private final int platformThreads;
+	private final int queueCapacity;
+	private final Gson gson = new Gson();
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * This constructor is used to inject the services and the configuration of the server.
+	 *
+	 * @param queryService      The QueryService.
+	 * @param communeService    The CommuneService resolving the communes of the queries.
+	 * @param asyncQueryService The AsyncQueryService executing the queries.
+	 * @param enabled           Whether the server is started.
+	 * @param port              The port of the server.
+	 * @param platformThreads   The number of platform threads if virtual threads are not available.
+	 * @param queueCapacity     The number of queued requests of the platform thread pool.
+	 */
+	public QueryApiServer(IQueryService queryService, ICommuneService communeService,
+						  AsyncQueryService asyncQueryService,
+						  @Value("${api.enabled:false}") boolean enabled,
+						  @Value("${api.port:8080}") int port,
+						  @Value("${api.platform-threads:64}") int platformThreads,
+						  @Value("${api.queue-capacity:10000}") int queueCapacity) {
+		this.queryService = queryService;
+		this.communeService = communeService;
+		this.asyncQueryService = asyncQueryService;
+		this.enabled = enabled;
+		this.port = port;
+		this.platformThreads = platformThreads;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * This method is used to start the server if it is enabled.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			server = HttpServer.create(new InetSocketAddress(port), 1024);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not start the API on port " + port, e);
+		}
+		executor = RequestExecutors.create(platformThreads, queueCapacity);
+		server.setExecutor(executor);
+		server.createContext("/api/functions", exchange -> handle(exchange, "GET", this::functions));
+		server.createContext("/api/query", exchange -> handle(exchange, "GET", this::query));
+		server.createContext("/api/batch", exchange -> handle(exchange, "POST", this::batch));
+		server.createContext("/api/communes", exchange -> handle(exchange, "GET", this::communes));
+		server.createContext("/api/entries", exchange -> handle(exchange, "GET", this::entries));
+		server.createContext("/api/metrics", exchange -> handle(exchange, "GET", this::metrics));
+		server.createContext("/api/footprint", exchange -> handle(exchange, "GET", this::footprint));
+		server.start();
+		LOGGER.info("API listening on port {} using {} threads", server.getAddress().getPort(),
+				RequestExecutors.isVirtual(executor) ? "virtual" : "platform");
+	}
+
+	/**
+	 * This method is used to stop the server.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (server != null) {
+			server.stop(1);
+			executor.shutdown();
+			try {
+				executor.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private Response functions(Map<String, String> parameters, String body) {
+		JsonArray functions = new JsonArray();
+		for (int i = 0; i < Functions.values().length; ++i) {
+			JsonObject function = new JsonObject();
+			function.addProperty("number", i + 1);
+			function.addProperty("name", Functions.values()[i].name());
+			function.addProperty("description", Functions.values()[i].getDescription());
+			functions.add(function);
+		}
+		JsonObject response = new JsonObject();
+		response.add("functions", functions);
+		return Response.json(response);
+	}
+
+	private Response query(Map<String, String> parameters, String body) {
+		ResultFormat format = ResultFormat.parse(parameters.get("format"), ResultFormat.JSON);
+		QueryResult result = await(asyncQueryService.execute(communeService.resolve(QueryParser.parse(parameters)),
+				timeout(parameters)));
+		Response response = format == ResultFormat.JSON ? Response.json(ResultRenderer.toJson(result))
+				: Response.stream(format, out -> ResultRenderer.render(result, format, out, StandardCharsets.UTF_8));
+		if (result.getPlan() != null) {
+			response.timing = serverTiming(result.getPlan());
+		}
+		return response;
+	}
+
+	private String serverTiming(QueryPlan plan) {
+		List<String> metrics = new ArrayList<>();
+		for (Map.Entry<String, Long> stage : plan.getStages().entrySet()) {
+			metrics.add(stage.getKey() + ";dur=" + MetricsRegistry.millis(stage.getValue()));
+		}
+		metrics.add("total;dur=" + MetricsRegistry.millis(plan.getTotal()) + ";desc=" + plan.getAccess().name());
+		return String.join(", ", metrics);
+	}
+
+	private Response communes(Map<String, String> parameters, String body) {
+		int limit = Math.min(QueryParser.parseInt(parameters, "limit", 10), MAX_COMMUNES);
+		JsonArray communes = new JsonArray();
+		String name = parameters.get("q");
+		if (name != null && !name.isBlank()) {
+			int distance = Math.min(QueryParser.parseInt(parameters, "distance", 2), 3);
+			for (CommuneMatch match : communeService.search(name, distance, limit)) {
+				JsonObject commune = new JsonObject();
+				commune.addProperty("name", match.getName());
+				commune.addProperty("distance", match.getDistance());
+				communes.add(commune);
+			}
+		} else {
+			for (String commune : communeService.complete(parameters.getOrDefault("prefix", ""), limit)) {
+				JsonObject json = new JsonObject();
+				json.addProperty("name", commune);
+				communes.add(json);
+			}
+		}
+		JsonObject response = new JsonObject();
+		response.add("communes", communes);
+		return Response.json(response);
+	}
+
+	private Response entries(Map<String, String> parameters, String body) {
+		ResultFormat format = ResultFormat.parse(parameters.get("format"), ResultFormat.NDJSON);
+		RowStream rows = RowStream.ofEntries(queryService.entries(QueryParser.parseFilter(parameters)));
+		return Response.stream(format, out -> ResultRenderer.render(rows, format, out, StandardCharsets.UTF_8));
+	}
+
+	private Response batch(Map<String, String> parameters, String body) {
+		JsonElement request = JsonParser.parseString(body);
+		if (!request.isJsonObject() || !request.getAsJsonObject().has("queries")
+				|| !request.getAsJsonObject().get("queries").isJsonArray()) {
+			throw new IllegalArgumentException("Expected an object with a queries array");
+		}
+		JsonArray queries = request.getAsJsonObject().getAsJsonArray("queries");
+		if (queries.size() > MAX_BATCH_QUERIES) {
+			throw new IllegalArgumentException("At most " + MAX_BATCH_QUERIES + " queries per batch");
+		}
+		List<Query> parsed = new ArrayList<>();
+		for (JsonElement query : queries) {
+			if (!query.isJsonObject()) {
+				throw new IllegalArgumentException("Expected a query object");
+			}
+			Map<String, String> queryParameters = new HashMap<>();
+			for (Map.Entry<String, JsonElement> property : query.getAsJsonObject().entrySet()) {
+				queryParameters.put(property.getKey(), parameter(property.getValue()));
+			}
+			parsed.add(communeService.resolve(QueryParser.parse(queryParameters)));
+		}
+		JsonArray results = new JsonArray();
+		for (QueryResult result : await(asyncQueryService.executeAll(parsed, timeout(parameters)))) {
+			results.add(ResultRenderer.toJson(result));
+		}
+		JsonObject response = new JsonObject();
+		response.add("results", results);
+		return Response.json(response);
+	}
+
+	private Response metrics(Map<String, String> parameters, String body) {
+		JsonObject lanes = new JsonObject();
+		for (QueryLane lane : asyncQueryService.getLanes()) {
+			JsonObject json = new JsonObject();
+			json.addProperty("workers", lane.getWorkers());
+			json.addProperty("active", lane.getActive());
+			json.addProperty("queueDepth", lane.getQueueDepth());
+			json.addProperty("queueCapacity", lane.getQueueCapacity());
+			json.addProperty("submitted", lane.getSubmitted());
+			json.addProperty("rejected", lane.getRejected());
+			json.addProperty("timedOut", lane.getTimedOut());
+			json.addProperty("cancelled", lane.getCancelled());
+			json.addProperty("p50Millis", MetricsRegistry.millis(lane.getLatency().getPercentile(50)));
+			json.addProperty("p99Millis", MetricsRegistry.millis(lane.getLatency().getPercentile(99)));
+			lanes.add(lane.getName(), json);
+		}
+		JsonObject response = MetricsRegistry.global().toJson();
+		response.add("lanes", lanes);
+		return Response.json(response);
+	}
+
+	private Duration timeout(Map<String, String> parameters) {
+		String value = parameters.get("timeout");
+		if (value == null || value.isBlank()) {
+			return asyncQueryService.getDefaultTimeout();
+		}
+		try {
+			return Duration.ofMillis(Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter timeout is not a number: " + value, e);
+		}
+	}
+
+	private <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof TimeoutException) {
+				throw new CancellationException("The query did not finish in time");
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private Response footprint(Map<String, String> parameters, String body) {
+		return Response.json(queryService.footprint().toJson(MemoryFootprint.parseRows(parameters.get("rows"))));
+	}
+
+	private String parameter(JsonElement value) {
+		if (value.isJsonArray()) {
+			List<String> values = new ArrayList<>();
+			for (JsonElement element : value.getAsJsonArray()) {
+				values.add(parameter(element));
+			}
+			return String.join(",", values);
+		}
+		if (!value.isJsonPrimitive()) {
+			throw new IllegalArgumentException("Unexpected parameter value " + value);
+		}
+		return value.getAsString();
+	}
+
+	private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+		try (exchange) {
+			int status = 200;
+			Response response;
+			if (!method.equals(exchange.getRequestMethod())) {
+				status = 405;
+				response = error("Method not allowed");
+			} else {
+				try {
+					String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+					response = handler.handle(QueryParser.parseParameters(exchange.getRequestURI().getRawQuery()), body);
+				} catch (JsonParseException e) {
+					status = 400;
+					response = error("Invalid JSON");
+				} catch (IllegalArgumentException e) {
+					status = 400;
+					response = error(e.getMessage());
+				} catch (UnsupportedOperationException e) {
+					status = 501;
+					response = error(e.getMessage());
+				} catch (RejectedExecutionException e) {
+					status = 503;
+					response = error(e.getMessage());
+				} catch (CancellationException e) {
+					status = 504;
+					response = error(e.getMessage());
+				} catch (RuntimeException e) {
+					LOGGER.error("Query failed", e);
+					status = 500;
+					response = error("Internal error");
+				}
+			}
+			exchange.getResponseHeaders().set("Content-Type", response.format.getContentType());
+			if (response.timing != null) {
+				exchange.getResponseHeaders().set("Server-Timing", response.timing);
+			}
+			if (response.body != null) {
+				exchange.sendResponseHeaders(status, 0);
+				try (OutputStream out = exchange.getResponseBody()) {
+					response.body.write(out);
+				} catch (RuntimeException e) {
+					LOGGER.error("Streaming failed", e);
+				}
+				return;
+			}
+			byte[] body = gson.toJson(response.json).getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+
+	private Response error(String message) {
+		JsonObject error = new JsonObject();
+		error.addProperty("error", message);
+		return Response.json(error);
+	}
+
+	/**
+	 * This interface is used to create the response of an endpoint from the request parameters and body.
+	 */
+	@FunctionalInterface
+	private interface Handler {
+		Response handle(Map<String, String> parameters, String body);
+	}
+
+	/**
+	 * This interface is used to write a streamed response body.
+	 */
+	@FunctionalInterface
+	private interface Body {
+		void write(OutputStream out) throws IOException;
+	}
+
+	/**
+	 * This class is used to hold either a JSON object or a body that is streamed, and the timing of the query if it was
+	 * explained.
+	 */
+	private static final class Response {
+		private final ResultFormat format;
+		private final JsonObject json;
+		private final Body body;
+		private String timing;
+
+		private Response(ResultFormat format, JsonObject json, Body body) {
+			this.format = format;
+			this.json = json;
+			this.body = body;
+		}
+
+		static Response json(JsonObject json) {
+			return new Response(ResultFormat.JSON, json, null);
+		}
+
+		static Response stream(ResultFormat format, Body body) {
+			return new Response(format, null, body);
+		}
+	}
+}
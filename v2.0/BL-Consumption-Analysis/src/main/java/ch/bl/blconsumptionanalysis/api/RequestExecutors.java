@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.api;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is used to create the executor of the HTTP requests.
+ * <p>
+ * On a runtime with virtual threads every request gets its own virtual thread. Otherwise a bounded pool of platform
+ * threads is used; when its queue is full the accepting thread runs the request itself, which slows down accepting.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class RequestExecutors {
+
+	private RequestExecutors() {
+	}
+
+	/**
+	 * This method is used to create the executor.
+	 *
+	 * @param platformThreads The number of platform threads if virtual threads are not available.
+	 * @param queueCapacity   The number of queued requests of the platform thread pool.
+	 * @return The executor.
+	 */
+	public static ExecutorService create(int platformThreads, int queueCapacity) {
+		ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+		if (virtual != null) {
+			return virtual;
+		}
+		AtomicInteger counter = new AtomicInteger();
+		return new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+			Thread thread = new Thread(runnable, "api-request-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * This method is used to check whether the executor uses virtual threads.
+	 *
+	 * @param executor The executor.
+	 * @return True if it is not the platform thread pool.
+	 */
+	public static boolean isVirtual(ExecutorService executor) {
+		return !(executor instanceof ThreadPoolExecutor);
+	}
+
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			// Looked up reflectively, so the application still runs on Java 17.
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
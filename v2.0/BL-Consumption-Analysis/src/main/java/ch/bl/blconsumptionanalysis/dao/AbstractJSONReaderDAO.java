@@ -25,6 +25,8 @@
 
 package ch.bl.blconsumptionanalysis.dao;
 
+import ch.bl.blconsumptionanalysis.monitoring.FlightEvents;
+import ch.bl.blconsumptionanalysis.monitoring.IngestionEvent;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
@@ -60,6 +62,7 @@ public abstract class AbstractJSONReaderDAO<T> implements JSONReaderDAO<T> {
 	@Override
 	public List<T> getList(Class<T> clazz) {
 		Optional<String> json = loadJSON();
+		IngestionEvent event = FlightEvents.beginIngestion();
 		List<T> list;
 		if (json.isEmpty()) {
 			list = new ArrayList<>();
@@ -69,6 +72,7 @@ public abstract class AbstractJSONReaderDAO<T> implements JSONReaderDAO<T> {
 				list = new ArrayList<>();
 			}
 		}
+		FlightEvents.recordIngestion(event, "parse", fileName.getName(), 0, list.size());
 		return list;
 	}
 
@@ -78,9 +82,12 @@ public abstract class AbstractJSONReaderDAO<T> implements JSONReaderDAO<T> {
 	 * @return The JSON file as a string.
 	 */
 	public Optional<String> loadJSON() {
+		IngestionEvent event = FlightEvents.beginIngestion();
 		try (InputStream is = getClass().getClassLoader().getResourceAsStream(fileName.getName())) {
 			if (is != null) {
-				return Optional.of(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+				byte[] bytes = is.readAllBytes();
+				FlightEvents.recordIngestion(event, "read", fileName.getName(), bytes.length, 0);
+				return Optional.of(new String(bytes, StandardCharsets.UTF_8));
 			} else {
 				return Optional.empty();
 			}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is used to open data files by their name: files ending with {@code .csv} or {@code .csv.gz} hold CSV,
+ * all others JSON, and files ending with {@code .gz} are compressed with gzip.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class DataFiles {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private DataFiles() {
+	}
+
+	/**
+	 * This method is used to check whether a file holds CSV.
+	 *
+	 * @param path The path of the file.
+	 * @return True for CSV, false for JSON.
+	 */
+	public static boolean isCsv(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		return name.endsWith(".csv") || name.endsWith(".csv.gz");
+	}
+
+	/**
+	 * This method is used to check whether a file is compressed with gzip.
+	 *
+	 * @param path The path of the file.
+	 * @return True if the file name ends with {@code .gz}.
+	 */
+	public static boolean isCompressed(Path path) {
+		return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+	}
+
+	/**
+	 * This method is used to open a file for reading, decompressing it if needed.
+	 *
+	 * @param path The path of the file.
+	 * @return The buffered stream of the content.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public static InputStream open(Path path) throws IOException {
+		InputStream in = Files.newInputStream(path);
+		return isCompressed(path) ? new GZIPInputStream(in, BUFFER_SIZE) : new BufferedInputStream(in, BUFFER_SIZE);
+	}
+
+	/**
+	 * This method is used to create or replace a file for writing, compressing it if needed.
+	 *
+	 * @param path The path of the file.
+	 * @return The buffered stream of the content.
+	 * @throws IOException If the file cannot be created.
+	 */
+	public static OutputStream create(Path path) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+		return isCompressed(path) ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.dao;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.monitoring.FlightEvents;
+import ch.bl.blconsumptionanalysis.monitoring.IngestionEvent;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * This class is used to read the entries from a JSON or CSV file in the file system, see {@link DataFiles}.
+ * <p>
+ * The file is read as a stream, so unlike the JSON file of the class path it is never held in memory as a whole.
+ * Reading and parsing happen together, so they are recorded as one {@code parse} phase with the size of the file.
+ * Only the fields {@code jahr}, {@code bfs_nummer}, {@code gemeinde} and {@code wert} are read, all other fields are
+ * skipped, and the name of each commune is kept only once. The column {@code bfs_nummer} is optional.
+ * <p>
+ * The entries can be restricted to some communes, the entries of all other communes are then dropped while the file is
+ * parsed.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class EnergyFileReaderDAO implements JSONReaderDAO<Entry> {
+	private final Path path;
+	private final Predicate<String> communes;
+
+	/**
+	 * This constructor is used to set the path of the file.
+	 *
+	 * @param path The path of the file.
+	 */
+	public EnergyFileReaderDAO(Path path) {
+		this(path, commune -> true);
+	}
+
+	private EnergyFileReaderDAO(Path path, Predicate<String> communes) {
+		this.path = path;
+		this.communes = communes;
+	}
+
+	/**
+	 * This method is used to return a reader of the same file that only reads some communes.
+	 *
+	 * @param communes The test for the names of the communes to read.
+	 * @return The reader.
+	 */
+	public EnergyFileReaderDAO partition(Predicate<String> communes) {
+		return new EnergyFileReaderDAO(path, communes);
+	}
+
+	/**
+	 * This method is used to return all entries of the file that belong to the communes to read.
+	 *
+	 * @return The list of entries.
+	 */
+	@Override
+	public List<Entry> getList(Class<Entry> clazz) {
+		IngestionEvent event = FlightEvents.beginIngestion();
+		try (InputStream in = DataFiles.open(path);
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			List<Entry> entries = DataFiles.isCsv(path) ? readCsv(reader, communes) : readJson(reader, communes);
+			FlightEvents.recordIngestion(event, "parse", path.toString(), Files.size(path), entries.size());
+			return entries;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + path, e);
+		}
+	}
+
+	/**
+	 * This method is used to read the entries of some communes from a JSON array.
+	 */
+	static List<Entry> readJson(BufferedReader reader, Predicate<String> accepted) throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		Map<String, String> communes = new HashMap<>();
+		JsonReader json = new JsonReader(reader);
+		json.beginArray();
+		while (json.hasNext()) {
+			int year = 0;
+			int bfsNumber = 0;
+			String commune = null;
+			double mwh = 0;
+			json.beginObject();
+			while (json.hasNext()) {
+				String field = json.nextName();
+				if (json.peek() == JsonToken.NULL) {
+					json.nextNull();
+					continue;
+				}
+				switch (field) {
+					case "jahr":
+						year = json.nextInt();
+						break;
+					case "bfs_nummer":
+						bfsNumber = json.nextInt();
+						break;
+					case "gemeinde":
+						commune = json.nextString();
+						break;
+					case "wert":
+						mwh = json.nextDouble();
+						break;
+					default:
+						json.skipValue();
+						break;
+				}
+			}
+			json.endObject();
+			if (commune != null) {
+				if (!accepted.test(commune)) {
+					continue;
+				}
+				commune = communes.computeIfAbsent(commune, name -> name);
+			}
+			entries.add(new Entry(year, bfsNumber, commune, mwh));
+		}
+		json.endArray();
+		return entries;
+	}
+
+	private static List<Entry> readCsv(BufferedReader reader, Predicate<String> accepted) throws IOException {
+		String header = reader.readLine();
+		if (header == null) {
+			return new ArrayList<>();
+		}
+		List<String> columns = fields(header);
+		int year = column(columns, "jahr");
+		int bfsNumber = columns.indexOf("bfs_nummer");
+		int commune = column(columns, "gemeinde");
+		int mwh = column(columns, "wert");
+
+		List<Entry> entries = new ArrayList<>();
+		Map<String, String> communes = new HashMap<>();
+		String line;
+		int number = 1;
+		while ((line = reader.readLine()) != null) {
+			++number;
+			if (line.isEmpty()) {
+				continue;
+			}
+			List<String> fields = fields(line);
+			if (fields.size() < columns.size()) {
+				throw new IOException("Expected " + columns.size() + " fields in line " + number);
+			}
+			if (!accepted.test(fields.get(commune))) {
+				continue;
+			}
+			try {
+				entries.add(new Entry(Integer.parseInt(fields.get(year)),
+						bfsNumber < 0 || fields.get(bfsNumber).isEmpty() ? 0 : Integer.parseInt(fields.get(bfsNumber)),
+						communes.computeIfAbsent(fields.get(commune), name -> name),
+						Double.parseDouble(fields.get(mwh))));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid number in line " + number, e);
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * This method is used to return the index of a column of a CSV header.
+	 */
+	static int column(List<String> columns, String name) throws IOException {
+		int index = columns.indexOf(name);
+		if (index < 0) {
+			throw new IOException("Missing column " + name);
+		}
+		return index;
+	}
+
+	/**
+	 * This method is used to split a line of CSV into its fields, which may be quoted.
+	 */
+	static List<String> fields(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); ++i) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					++i;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
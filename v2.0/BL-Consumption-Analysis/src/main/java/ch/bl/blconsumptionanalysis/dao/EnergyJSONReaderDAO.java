@@ -26,21 +26,87 @@
 package ch.bl.blconsumptionanalysis.dao;
 
 import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.monitoring.FlightEvents;
+import ch.bl.blconsumptionanalysis.monitoring.IngestionEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
 /**
  * This class is used to read the JSON file and return the list of objects.
+ * If {@code data.file} is set, the entries are read from that file instead, see {@link EnergyFileReaderDAO}.
  *
  * @author Joel Schaltenbrand, Leon Hochwimmer
  * @version 2.0
  */
 @Service
 public class EnergyJSONReaderDAO extends AbstractJSONReaderDAO<Entry> {
+	private static final String RESOURCE = "Electricity-Consumption.json";
+	private final EnergyFileReaderDAO file;
 
 	/**
 	 * This constructor is used to set the path of the JSON file.
 	 */
 	public EnergyJSONReaderDAO() {
-		super("Electricity-Consumption.json");
+		this("");
+	}
+
+	/**
+	 * This constructor is used to set the path of the JSON file and of the data file that replaces it.
+	 *
+	 * @param dataFile The path of the data file, or an empty string to read the JSON file of the class path.
+	 */
+	@Autowired
+	public EnergyJSONReaderDAO(@Value("${data.file:}") String dataFile) {
+		super(RESOURCE);
+		this.file = dataFile.isBlank() ? null : new EnergyFileReaderDAO(Path.of(dataFile.trim()));
+	}
+
+	/**
+	 * This method is used to return all entries of the data file or of the JSON file.
+	 *
+	 * @return The list of entries.
+	 */
+	@Override
+	public List<Entry> getList(Class<Entry> clazz) {
+		return file != null ? file.getList(clazz) : super.getList(clazz);
+	}
+
+	/**
+	 * This method is used to return a reader of the entries of some communes only.
+	 * The entries of all other communes are dropped while the data file or the JSON file is parsed, so they are never
+	 * held in memory.
+	 *
+	 * @param communes The test for the names of the communes to read.
+	 * @return The reader.
+	 */
+	public JSONReaderDAO<Entry> partition(Predicate<String> communes) {
+		return file != null ? file.partition(communes) : clazz -> readResource(communes);
+	}
+
+	private List<Entry> readResource(Predicate<String> communes) {
+		IngestionEvent event = FlightEvents.beginIngestion();
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(RESOURCE)) {
+			if (in == null) {
+				return new ArrayList<>();
+			}
+			List<Entry> entries = EnergyFileReaderDAO.readJson(
+					new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), communes);
+			FlightEvents.recordIngestion(event, "parse", RESOURCE, 0, entries.size());
+			return entries;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + RESOURCE, e);
+		}
 	}
 }
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.dao;
+
+import ch.bl.blconsumptionanalysis.model.CommuneHierarchy;
+import ch.bl.blconsumptionanalysis.monitoring.FlightEvents;
+import ch.bl.blconsumptionanalysis.monitoring.IngestionEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to read the {@link CommuneHierarchy} from a CSV file with the columns {@code bfs_nummer},
+ * {@code gemeinde}, {@code bezirk} and {@code kanton}. The bundled file contains the communes of the canton
+ * Basel-Landschaft, if {@code hierarchy.file} is set the hierarchy is read from that file instead, optionally gzip
+ * compressed.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Service
+public class HierarchyReaderDAO {
+	private static final String BUNDLED_FILE = "Commune-Hierarchy.csv";
+	private final Path file;
+
+	/**
+	 * This constructor is used to read the bundled file.
+	 */
+	public HierarchyReaderDAO() {
+		this("");
+	}
+
+	/**
+	 * This constructor is used to set the path of the file that replaces the bundled file.
+	 *
+	 * @param hierarchyFile The path of the file, or an empty string to read the bundled file of the class path.
+	 */
+	@Autowired
+	public HierarchyReaderDAO(@Value("${hierarchy.file:}") String hierarchyFile) {
+		this.file = hierarchyFile.isBlank() ? null : Path.of(hierarchyFile.trim());
+	}
+
+	/**
+	 * This method is used to read the hierarchy.
+	 *
+	 * @return The hierarchy.
+	 * @throws UncheckedIOException If the file cannot be read or is invalid.
+	 */
+	public CommuneHierarchy read() {
+		String name = file == null ? BUNDLED_FILE : file.toString();
+		IngestionEvent event = FlightEvents.beginIngestion();
+		try (InputStream in = file == null ? getClass().getClassLoader().getResourceAsStream(BUNDLED_FILE)
+				: DataFiles.open(file)) {
+			if (in == null) {
+				throw new FileNotFoundException(BUNDLED_FILE);
+			}
+			List<CommuneHierarchy.Member> members = read(new BufferedReader(
+					new InputStreamReader(in, StandardCharsets.UTF_8)));
+			FlightEvents.recordIngestion(event, "parse", name, 0, members.size());
+			return new CommuneHierarchy(members);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the hierarchy " + name, e);
+		}
+	}
+
+	private List<CommuneHierarchy.Member> read(BufferedReader reader) throws IOException {
+		List<CommuneHierarchy.Member> members = new ArrayList<>();
+		String header = reader.readLine();
+		if (header == null) {
+			return members;
+		}
+		List<String> columns = EnergyFileReaderDAO.fields(header);
+		int bfsNumber = EnergyFileReaderDAO.column(columns, "bfs_nummer");
+		int commune = EnergyFileReaderDAO.column(columns, "gemeinde");
+		int district = EnergyFileReaderDAO.column(columns, "bezirk");
+		int canton = EnergyFileReaderDAO.column(columns, "kanton");
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			List<String> fields = EnergyFileReaderDAO.fields(line);
+			if (fields.size() < columns.size()) {
+				throw new IOException("Expected " + columns.size() + " fields in line " + (members.size() + 2));
+			}
+			try {
+				members.add(new CommuneHierarchy.Member(
+						fields.get(bfsNumber).isEmpty() ? 0 : Integer.parseInt(fields.get(bfsNumber)),
+						fields.get(commune), fields.get(district), fields.get(canton)));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid number in line " + (members.size() + 2), e);
+			}
+		}
+		return members;
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.format;
+
+import java.util.Locale;
+
+/**
+ * This enum is used to define the formats of the API responses.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public enum ResultFormat {
+	JSON("application/json; charset=utf-8"),
+	NDJSON("application/x-ndjson; charset=utf-8"),
+	CSV("text/csv; charset=utf-8"),
+	TABLE("text/plain; charset=utf-8"),
+	BINARY("application/octet-stream");
+
+	private final String contentType;
+
+	/**
+	 * This constructor is used to set the content type of the format.
+	 *
+	 * @param contentType The content type.
+	 */
+	ResultFormat(String contentType) {
+		this.contentType = contentType;
+	}
+
+	/**
+	 * This method is used to return the content type of the format.
+	 *
+	 * @return The content type.
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * This method is used to parse a format by its name.
+	 *
+	 * @param value        The name, or null.
+	 * @param defaultValue The format if no name is given.
+	 * @return The format.
+	 * @throws IllegalArgumentException If no format matches.
+	 */
+	public static ResultFormat parse(String value, ResultFormat defaultValue) {
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown format " + value, e);
+		}
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.format;
+
+import ch.bl.blconsumptionanalysis.model.QueryPlan;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.monitoring.MetricsRegistry;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * This class is used to render query results and rows in one of the {@link ResultFormat}s.
+ * <p>
+ * Everything is written through one large buffer and the rows are taken from their iterator one at a time, so the
+ * cost is linear in the number of rows and nothing but the current row is held in memory. As each row is only taken
+ * once the previous rows fit into the buffer, a slow receiver blocks the producer instead of letting rows pile up.
+ * <p>
+ * The binary format is a big-endian stream of the int {@code 0x424C4341}, a version byte, the number of columns as a
+ * short, the name (modified UTF-8) and type ({@code 'I'}, {@code 'D'} or {@code 'S'}) of each column, then each row
+ * as the byte 1 followed by its values, and finally the byte 0. A string value is the byte 1 followed by the string
+ * (modified UTF-8), or the byte 0 if it is null. Null strings are empty fields in CSV and {@code null} in JSON.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class ResultRenderer {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int BINARY_MAGIC = 0x424C4341;
+	private static final int BINARY_VERSION = 2;
+
+	private ResultRenderer() {
+	}
+
+	/**
+	 * This method is used to render a query result. Tables are laid out like the console menu and JSON has the same
+	 * structure as {@link #toJson(QueryResult)}.
+	 *
+	 * @param result  The query result.
+	 * @param format  The format.
+	 * @param out     The output stream, which is flushed but not closed.
+	 * @param charset The charset of the text formats.
+	 * @return The number of written rows.
+	 * @throws IOException If the result could not be written.
+	 */
+	public static long render(QueryResult result, ResultFormat format, OutputStream out, Charset charset)
+			throws IOException {
+		RowStream rows = RowStream.of(result);
+		if (format == ResultFormat.TABLE) {
+			return writeTable(TableLayout.of(result), rows, out, charset);
+		} else if (format != ResultFormat.JSON) {
+			return render(rows, format, out, charset);
+		}
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+		JsonWriter json = new JsonWriter(writer);
+		json.beginObject();
+		json.name("function").value(result.getQuery().getFunction().name());
+		json.name("version").value(result.getVersion());
+		if (result.getComparison() != null) {
+			json.name("commune1").value(result.getQuery().getCommune1());
+			json.name("commune2").value(result.getQuery().getCommune2());
+		}
+		if (result.getPlan() != null) {
+			json.name("plan");
+			new Gson().toJson(toJson(result.getPlan()), json);
+		}
+		long count = writeJsonRows(rows, json);
+		json.endObject();
+		json.flush();
+		return count;
+	}
+
+	/**
+	 * This method is used to render rows. With JSON the rows are written as an object with a rows array.
+	 *
+	 * @param rows    The rows.
+	 * @param format  The format.
+	 * @param out     The output stream, which is flushed but not closed.
+	 * @param charset The charset of the text formats.
+	 * @return The number of written rows.
+	 * @throws IOException If the rows could not be written.
+	 */
+	public static long render(RowStream rows, ResultFormat format, OutputStream out, Charset charset)
+			throws IOException {
+		switch (format) {
+			case TABLE:
+				return writeTable(TableLayout.of(rows), rows, out, charset);
+			case BINARY:
+				return writeBinary(rows, out);
+			case JSON:
+				JsonWriter json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE));
+				json.beginObject();
+				long count = writeJsonRows(rows, json);
+				json.endObject();
+				json.flush();
+				return count;
+			default:
+				return writeText(format, rows, out, charset);
+		}
+	}
+
+	/**
+	 * This method is used to create the JSON object of a query result.
+	 *
+	 * @param result The query result.
+	 * @return The JSON object with the function, the version, the plan if the query was explained and the rows.
+	 */
+	public static JsonObject toJson(QueryResult result) {
+		JsonObject response = new JsonObject();
+		response.addProperty("function", result.getQuery().getFunction().name());
+		response.addProperty("version", result.getVersion());
+		if (result.getComparison() != null) {
+			response.addProperty("commune1", result.getQuery().getCommune1());
+			response.addProperty("commune2", result.getQuery().getCommune2());
+		}
+		if (result.getPlan() != null) {
+			response.add("plan", toJson(result.getPlan()));
+		}
+		RowStream stream = RowStream.of(result);
+		JsonArray rows = new JsonArray();
+		Iterator<Object[]> iterator = stream.getRows();
+		while (iterator.hasNext()) {
+			Object[] values = iterator.next();
+			JsonObject row = new JsonObject();
+			for (int i = 0; i < values.length; ++i) {
+				if (values[i] instanceof Number) {
+					row.addProperty(stream.getColumns()[i], (Number) values[i]);
+				} else {
+					row.addProperty(stream.getColumns()[i], (String) values[i]);
+				}
+			}
+			rows.add(row);
+		}
+		response.add("rows", rows);
+		return response;
+	}
+
+	/**
+	 * This method is used to create the JSON object of an execution plan, with all durations in milliseconds.
+	 *
+	 * @param plan The execution plan.
+	 * @return The JSON object.
+	 */
+	public static JsonObject toJson(QueryPlan plan) {
+		JsonObject json = new JsonObject();
+		json.addProperty("access", plan.getAccess().name());
+		json.addProperty("description", plan.getDescription());
+		json.addProperty("rowsScanned", plan.getRowsScanned());
+		json.addProperty("chunks", plan.getChunks());
+		json.addProperty("aggregates", plan.getAggregates());
+		json.addProperty("batchSize", plan.getBatchSize());
+		JsonObject stages = new JsonObject();
+		for (Map.Entry<String, Long> stage : plan.getStages().entrySet()) {
+			stages.addProperty(stage.getKey(), MetricsRegistry.millis(stage.getValue()));
+		}
+		json.add("stagesMillis", stages);
+		json.addProperty("totalMillis", MetricsRegistry.millis(plan.getTotal()));
+		return json;
+	}
+
+	/**
+	 * This method is used to describe an execution plan as text, for the formats that cannot contain it.
+	 *
+	 * @param result The query result with its plan.
+	 * @return The lines of the plan.
+	 */
+	public static String toText(QueryResult result) {
+		QueryPlan plan = result.getPlan();
+		StringBuilder text = new StringBuilder();
+		text.append("Plan of ").append(result.getQuery().getFunction().name()).append(": ").append(plan.getAccess())
+				.append(System.lineSeparator());
+		text.append("  ").append(plan.getDescription()).append(System.lineSeparator());
+		text.append("  rows scanned ").append(plan.getRowsScanned()).append(", chunks ").append(plan.getChunks())
+				.append(", aggregates ").append(plan.getAggregates()).append(", batch of ").append(plan.getBatchSize())
+				.append(System.lineSeparator());
+		text.append(" ");
+		for (Map.Entry<String, Long> stage : plan.getStages().entrySet()) {
+			text.append(' ').append(stage.getKey()).append(' ').append(MetricsRegistry.millis(stage.getValue()))
+					.append(" ms,");
+		}
+		text.append(" total ").append(MetricsRegistry.millis(plan.getTotal())).append(" ms")
+				.append(System.lineSeparator());
+		return text.toString();
+	}
+
+	private static long writeTable(TableLayout layout, RowStream rows, OutputStream out, Charset charset)
+			throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+		layout.writeHeader(writer);
+		long count = 0;
+		Iterator<Object[]> iterator = rows.getRows();
+		while (iterator.hasNext()) {
+			layout.writeRow(iterator.next(), writer);
+			++count;
+		}
+		writer.flush();
+		return count;
+	}
+
+	private static long writeJsonRows(RowStream rows, JsonWriter json) throws IOException {
+		String[] columns = rows.getColumns();
+		json.name("rows").beginArray();
+		long count = 0;
+		Iterator<Object[]> iterator = rows.getRows();
+		while (iterator.hasNext()) {
+			Object[] values = iterator.next();
+			json.beginObject();
+			for (int i = 0; i < values.length; ++i) {
+				json.name(columns[i]);
+				if (values[i] instanceof Number) {
+					json.value((Number) values[i]);
+				} else {
+					json.value((String) values[i]);
+				}
+			}
+			json.endObject();
+			++count;
+		}
+		json.endArray();
+		return count;
+	}
+
+	private static long writeBinary(RowStream rows, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+		String[] columns = rows.getColumns();
+		Class<?>[] types = rows.getTypes();
+		data.writeInt(BINARY_MAGIC);
+		data.writeByte(BINARY_VERSION);
+		data.writeShort(columns.length);
+		for (int i = 0; i < columns.length; ++i) {
+			data.writeUTF(columns[i]);
+			data.writeByte(types[i] == Integer.class ? 'I' : types[i] == Double.class ? 'D' : 'S');
+		}
+		long count = 0;
+		Iterator<Object[]> iterator = rows.getRows();
+		while (iterator.hasNext()) {
+			Object[] values = iterator.next();
+			data.writeByte(1);
+			for (int i = 0; i < values.length; ++i) {
+				if (types[i] == Integer.class) {
+					data.writeInt((Integer) values[i]);
+				} else if (types[i] == Double.class) {
+					data.writeDouble((Double) values[i]);
+				} else if (values[i] == null) {
+					data.writeByte(0);
+				} else {
+					data.writeByte(1);
+					data.writeUTF((String) values[i]);
+				}
+			}
+			++count;
+		}
+		data.writeByte(0);
+		data.flush();
+		return count;
+	}
+
+	private static long writeText(ResultFormat format, RowStream rows, OutputStream out, Charset charset)
+			throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+		String[] columns = rows.getColumns();
+		if (format == ResultFormat.CSV) {
+			for (int i = 0; i < columns.length; ++i) {
+				writer.write(i == 0 ? "" : ",");
+				writer.write(csv(columns[i]));
+			}
+			writer.write('\n');
+		}
+		long count = 0;
+		Iterator<Object[]> iterator = rows.getRows();
+		while (iterator.hasNext()) {
+			Object[] values = iterator.next();
+			if (format == ResultFormat.CSV) {
+				for (int i = 0; i < values.length; ++i) {
+					writer.write(i == 0 ? "" : ",");
+					writer.write(values[i] == null ? "" : values[i] instanceof String ? csv((String) values[i])
+							: String.valueOf(values[i]));
+				}
+			} else {
+				writer.write('{');
+				for (int i = 0; i < values.length; ++i) {
+					writer.write(i == 0 ? "" : ",");
+					writer.write(json(columns[i]));
+					writer.write(':');
+					writer.write(values[i] instanceof String ? json((String) values[i]) : String.valueOf(values[i]));
+				}
+				writer.write('}');
+			}
+			writer.write('\n');
+			++count;
+		}
+		writer.flush();
+		return count;
+	}
+
+	private static String json(String value) {
+		StringBuilder text = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				text.append('\\').append(c);
+			} else if (c < 0x20) {
+				text.append(String.format("\\u%04x", (int) c));
+			} else {
+				text.append(c);
+			}
+		}
+		return text.append('"').toString();
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.format;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This class is used to describe the rows of a response as named and typed columns and a lazy iterator of values.
+ * The values are {@link Integer}s, {@link Double}s or {@link String}s, as given by the types of the columns.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class RowStream {
+	private static final String[] COMPARISON = {"year", "first", "second"};
+	private static final String[] PER_YEAR = {"year", "mwh"};
+	private static final String[] PER_COMMUNE = {"commune", "mwh"};
+	private static final String[] RANKED = {"rank", "commune", "mwh"};
+	private static final String[] ENTRIES = {"year", "bfs_nummer", "commune", "mwh"};
+	private static final String[] ROLLUP = {"level", "canton", "district", "commune", "mwh"};
+	private static final String[] FORECAST = {"commune", "year", "mwh", "lower", "upper"};
+	private static final String[] ANOMALIES = {"rank", "commune", "year", "mwh", "expected", "change", "score"};
+	private final String[] columns;
+	private final Class<?>[] types;
+	private final Iterator<Object[]> rows;
+
+	private RowStream(String[] columns, Class<?>[] types, Iterator<Object[]> rows) {
+		this.columns = columns;
+		this.types = types;
+		this.rows = rows;
+	}
+
+	/**
+	 * This method is used to create the rows of a query result. The names of the levels above a rollup row are
+	 * empty.
+	 *
+	 * @param result The query result.
+	 * @return The rows.
+	 */
+	public static RowStream of(QueryResult result) {
+		if (result.getComparison() != null) {
+			Iterator<Map.Entry<Integer, Pair>> years = result.getComparison().entrySet().iterator();
+			return new RowStream(COMPARISON, new Class<?>[]{Integer.class, Double.class, Double.class},
+					map(years, entry -> new Object[]{
+							entry.getKey(), entry.getValue().getFirst(), entry.getValue().getSecond()}));
+		}
+		if (result.getRollup() != null) {
+			return new RowStream(ROLLUP, new Class<?>[]{String.class, String.class, String.class, String.class,
+					Double.class}, map(result.getRollup().iterator(), row -> new Object[]{row.getLevel().name(),
+					row.getCanton(), orEmpty(row.getDistrict()), orEmpty(row.getCommune()), row.getMwh()}));
+		}
+		if (result.getForecast() != null) {
+			return new RowStream(FORECAST, new Class<?>[]{String.class, Integer.class, Double.class, Double.class,
+					Double.class}, map(result.getForecast().iterator(), row -> new Object[]{row.getCommune(),
+					row.getYear(), row.getMwh(), row.getLower(), row.getUpper()}));
+		}
+		if (result.getAnomalies() != null) {
+			int[] rank = {0};
+			return new RowStream(ANOMALIES, new Class<?>[]{Integer.class, String.class, Integer.class, Double.class,
+					Double.class, Double.class, Double.class}, map(result.getAnomalies().iterator(),
+					row -> new Object[]{++rank[0], row.getCommune(), row.getYear(), row.getMwh(), row.getExpected(),
+							row.getChange(), row.getScore()}));
+		}
+		List<Entry> entries = result.getEntries();
+		switch (result.getQuery().getFunction()) {
+			case AVERAGE_CONSUMPTION_PER_YEAR:
+				return new RowStream(PER_YEAR, new Class<?>[]{Integer.class, Double.class},
+						map(entries.iterator(), entry -> new Object[]{entry.getYear(), entry.getMwh()}));
+			case HIGHEST_CONSUMERS:
+				int[] rank = {0};
+				return new RowStream(RANKED, new Class<?>[]{Integer.class, String.class, Double.class},
+						map(entries.iterator(), entry -> new Object[]{++rank[0], entry.getCommune(), entry.getMwh()}));
+			default:
+				return new RowStream(PER_COMMUNE, new Class<?>[]{String.class, Double.class},
+						map(entries.iterator(), entry -> new Object[]{entry.getCommune(), entry.getMwh()}));
+		}
+	}
+
+	/**
+	 * This method is used to create the rows of raw entries.
+	 *
+	 * @param entries The entries.
+	 * @return The rows.
+	 */
+	public static RowStream ofEntries(Iterator<Entry> entries) {
+		return new RowStream(ENTRIES, new Class<?>[]{Integer.class, Integer.class, String.class, Double.class},
+				map(entries, entry -> new Object[]{entry.getYear(), entry.getBfsNumber(), entry.getCommune(),
+						entry.getMwh()}));
+	}
+
+	/**
+	 * This method is used to return the names of the columns.
+	 *
+	 * @return The names of the columns.
+	 */
+	public String[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * This method is used to return the types of the columns.
+	 *
+	 * @return The types of the columns.
+	 */
+	public Class<?>[] getTypes() {
+		return types;
+	}
+
+	/**
+	 * This method is used to return the rows, each with one value per column.
+	 *
+	 * @return The iterator of the rows.
+	 */
+	public Iterator<Object[]> getRows() {
+		return rows;
+	}
+
+	private static String orEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+	private static <T> Iterator<Object[]> map(Iterator<T> source, Function<T, Object[]> mapper) {
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return source.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				return mapper.apply(source.next());
+			}
+		};
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.format;
+
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * This class is used to write rows as a text table with fixed column widths, as shown in the console.
+ * <p>
+ * The layout is prepared once per table, so writing a row only appends the values and the padding to a reused buffer
+ * instead of parsing a format string for every row. Numbers are written with two decimals like {@code %.2f}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+final class TableLayout {
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+	private final String[] titles;
+	private final int[] widths;
+	private final boolean[] leftAligned;
+	private final String[] suffixes;
+	private final int ruleLength;
+	private final StringBuilder line = new StringBuilder(128);
+
+	private TableLayout(String[] titles, int[] widths, boolean[] leftAligned, String[] suffixes, int ruleLength) {
+		this.titles = titles;
+		this.widths = widths;
+		this.leftAligned = leftAligned;
+		this.suffixes = suffixes;
+		this.ruleLength = ruleLength;
+	}
+
+	/**
+	 * This method is used to create the layout of a query result.
+	 *
+	 * @param result The query result.
+	 * @return The layout.
+	 */
+	static TableLayout of(QueryResult result) {
+		Functions function = result.getQuery().getFunction();
+		switch (function) {
+			case COMPARISON_OF_TWO_COMMUNES:
+				return new TableLayout(new String[]{"Year", result.getQuery().getCommune1() + " (total MWh)",
+						result.getQuery().getCommune2() + " (total MWh)"}, new int[]{10, 30, 30},
+						new boolean[]{true, true, true}, new String[]{"", "", ""}, 62);
+			case ROLLUP_BY_DISTRICT:
+				return new TableLayout(new String[]{"Level", "Canton", "District", "Commune", "Total consumption"},
+						new int[]{10, 18, 12, 20, 12}, new boolean[]{true, true, true, true, false},
+						new String[]{"", "", "", "", " MWh"}, 80);
+			case FORECAST_PER_COMMUNE:
+				return new TableLayout(new String[]{"Commune", "Year", "Forecast", "Lower bound", "Upper bound"},
+						new int[]{20, 6, 12, 12, 12}, new boolean[]{true, true, false, false, false},
+						new String[]{"", "", " MWh", " MWh", " MWh"}, 78);
+			case ANOMALIES_PER_COMMUNE:
+				return new TableLayout(new String[]{"Nr", "Commune", "Year", "Consumption", "Expected", "Change",
+						"Score"}, new int[]{5, 20, 6, 12, 12, 8, 8},
+						new boolean[]{true, true, true, false, false, false, false},
+						new String[]{"", "", "", " MWh", " MWh", " %", ""}, 87);
+			case HIGHEST_CONSUMERS:
+				return new TableLayout(new String[]{"Nr", "Commune", "Total consumption"}, new int[]{5, 20, 12},
+						new boolean[]{true, true, false}, new String[]{"", "", " MWh"}, 44);
+			default:
+				String label = function == Functions.AVERAGE_CONSUMPTION_PER_YEAR ? "Year" : "Commune";
+				return new TableLayout(new String[]{label, "Average consumption"}, new int[]{30, 12},
+						new boolean[]{true, false}, new String[]{"", " MWh"}, 59);
+		}
+	}
+
+	/**
+	 * This method is used to create a layout for any rows, with one column per column of the rows.
+	 *
+	 * @param rows The rows.
+	 * @return The layout.
+	 */
+	static TableLayout of(RowStream rows) {
+		String[] columns = rows.getColumns();
+		String[] titles = new String[columns.length];
+		int[] widths = new int[columns.length];
+		boolean[] leftAligned = new boolean[columns.length];
+		String[] suffixes = new String[columns.length];
+		int ruleLength = 0;
+		for (int i = 0; i < columns.length; ++i) {
+			titles[i] = "mwh".equals(columns[i]) ? "Consumption"
+					: Character.toUpperCase(columns[i].charAt(0)) + columns[i].substring(1);
+			boolean text = rows.getTypes()[i] == String.class;
+			boolean number = rows.getTypes()[i] == Double.class;
+			widths[i] = text ? 30 : number ? 12 : 10;
+			leftAligned[i] = !number;
+			suffixes[i] = number ? " MWh" : "";
+			ruleLength += widths[i] + suffixes[i].length() + 1;
+		}
+		return new TableLayout(titles, widths, leftAligned, suffixes, ruleLength - 1);
+	}
+
+	/**
+	 * This method is used to write the titles and the rule below them.
+	 *
+	 * @param out The writer.
+	 * @throws IOException If the header could not be written.
+	 */
+	void writeHeader(Writer out) throws IOException {
+		line.setLength(0);
+		for (int i = 0; i < titles.length; ++i) {
+			cell(i, titles[i], "");
+		}
+		line.append(LINE_SEPARATOR);
+		line.append("-".repeat(ruleLength)).append(LINE_SEPARATOR);
+		out.append(line);
+	}
+
+	/**
+	 * This method is used to write a row.
+	 *
+	 * @param values The values of the row.
+	 * @param out    The writer.
+	 * @throws IOException If the row could not be written.
+	 */
+	void writeRow(Object[] values, Writer out) throws IOException {
+		line.setLength(0);
+		for (int i = 0; i < values.length; ++i) {
+			Object value = values[i];
+			String text;
+			if (value instanceof Double) {
+				text = fixed((Double) value);
+			} else {
+				text = String.valueOf(value);
+			}
+			cell(i, text, suffixes[i]);
+		}
+		line.append(LINE_SEPARATOR);
+		out.append(line);
+	}
+
+	private void cell(int column, String text, String suffix) {
+		if (column > 0) {
+			line.append(' ');
+		}
+		int padding = Math.max(0, widths[column] - text.length());
+		if (leftAligned[column]) {
+			line.append(text);
+			line.append(" ".repeat(padding));
+		} else {
+			line.append(" ".repeat(padding));
+			line.append(text);
+		}
+		line.append(suffix);
+	}
+
+	/**
+	 * This method is used to format a number with two decimals, rounded half up like {@code %.2f}.
+	 * Numbers that are not close to a rounding boundary are rounded with a multiplication, all others take the
+	 * exact decimal representation.
+	 *
+	 * @param value The number.
+	 * @return The formatted number.
+	 */
+	static String fixed(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return String.format("%.2f", value);
+		}
+		double scaled = Math.abs(value) * 100;
+		double fraction = scaled - Math.floor(scaled);
+		long cents;
+		if (scaled < 1e12 && Math.abs(fraction - 0.5) > 1e-3) {
+			cents = (long) Math.floor(scaled + 0.5);
+		} else {
+			BigDecimal exact = new BigDecimal(Double.toString(Math.abs(value))).setScale(2, RoundingMode.HALF_UP);
+			if (exact.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 100)) > 0) {
+				return (Double.compare(value, 0.0) < 0 ? "-" : "") + exact.toPlainString();
+			}
+			cents = exact.movePointRight(2).longValueExact();
+		}
+		StringBuilder text = new StringBuilder(24);
+		if (Double.compare(value, 0.0) < 0) {
+			text.append('-');
+		}
+		text.append(cents / 100).append('.');
+		long remainder = cents % 100;
+		if (remainder < 10) {
+			text.append('0');
+		}
+		return text.append(remainder).toString();
+	}
+}
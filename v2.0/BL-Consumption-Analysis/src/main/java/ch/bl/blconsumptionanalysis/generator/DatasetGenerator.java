@@ -0,0 +1,313 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.generator;
+
+import ch.bl.blconsumptionanalysis.dao.DataFiles;
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.Entry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class is used to generate datasets of any size in the schema of the bundled JSON file
+ * ({@code jahr}, {@code bfs_nummer}, {@code gemeinde}, {@code indikator}, {@code wert}), to test the ingestion and
+ * the queries at scale.
+ * <p>
+ * The rows are written year by year as a stream, so the size of a dataset is only limited by the disk. The communes
+ * are named after the communes of the bundled file with their BFS numbers, and numbered once they are all used, with
+ * new BFS numbers after the highest one of the bundled file. The consumption of a commune
+ * follows a Pareto distribution, where a higher skew makes a few communes consume much more than the others, and
+ * changes by a trend of the commune and some noise per year. Every value only depends on the seed and on its
+ * commune, year and indicator, so a dataset is the same in every run and format.
+ * <p>
+ * Usage: {@code DatasetGenerator --output=data.csv.gz [--rows=1000000 | --communes=86] [--from=1990] [--to=2020]
+ * [--step=1] [--indicators=Endverbrauch_Elektrizitaet_MWh,...] [--skew=0.7] [--seed=1] [--format=json|csv]}
+ * <p>
+ * The format and the compression follow the file name (see {@link DataFiles}), {@code --output=-} writes to the
+ * standard output. The files can be loaded with {@code data.file}. The application does not distinguish the
+ * indicators, so with several indicators their values are added up.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class DatasetGenerator {
+	static final String DEFAULT_INDICATOR = "Endverbrauch_Elektrizitaet_MWh";
+	private static final double MIN_MWH = 1000;
+	private static final double MAX_FACTOR = 300;
+	private static final double NOISE = 0.04;
+	private final String[] names;
+	private final int[] bfsNumbers;
+	private final long communes;
+	private final int[] years;
+	private final List<String> indicators;
+	private final double skew;
+	private final long seed;
+	private final long rows;
+
+	/**
+	 * This constructor is used to configure the dataset.
+	 *
+	 * @param names      The names of the communes to use first, with their BFS numbers.
+	 * @param communes   The number of communes.
+	 * @param years      The years, in the order they are written.
+	 * @param indicators The indicators of each commune and year.
+	 * @param skew       How unevenly the consumption is distributed, 0 for similar communes.
+	 * @param seed       The seed of the values.
+	 * @param rows       The number of rows to write, at most all rows of the communes, years and indicators.
+	 */
+	public DatasetGenerator(Map<String, Integer> names, long communes, int[] years, List<String> indicators, double skew,
+							long seed, long rows) {
+		if (names.isEmpty() || communes < 1 || years.length == 0 || indicators.isEmpty() || skew < 0 || rows < 0) {
+			throw new IllegalArgumentException("Expected at least one commune, year and indicator");
+		}
+		this.names = names.keySet().toArray(new String[0]);
+		this.bfsNumbers = names.values().stream().mapToInt(Integer::intValue).toArray();
+		this.communes = communes;
+		this.years = years.clone();
+		this.indicators = List.copyOf(indicators);
+		this.skew = skew;
+		this.seed = seed;
+		this.rows = Math.min(rows, communes * years.length * indicators.size());
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> arguments = new HashMap<>();
+		for (String arg : args) {
+			String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+			arguments.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+		}
+		String output = arguments.get("output");
+		DatasetGenerator generator;
+		boolean csv;
+		try {
+			if (output == null || output.isBlank()) {
+				throw new IllegalArgumentException("Missing --output=<file> or --output=-");
+			}
+			int from = Integer.parseInt(arguments.getOrDefault("from", "1990"));
+			int to = Integer.parseInt(arguments.getOrDefault("to", "2020"));
+			int step = Integer.parseInt(arguments.getOrDefault("step", "1"));
+			if (to < from || step < 1) {
+				throw new IllegalArgumentException("Expected --from <= --to and --step >= 1");
+			}
+			int[] years = new int[(to - from) / step + 1];
+			for (int i = 0; i < years.length; ++i) {
+				years[i] = from + i * step;
+			}
+			List<String> indicators = Arrays.asList(arguments.getOrDefault("indicators", DEFAULT_INDICATOR)
+					.split(","));
+			long communes;
+			long rows;
+			if (arguments.containsKey("rows")) {
+				rows = Long.parseLong(arguments.get("rows"));
+				long perCommune = (long) years.length * indicators.size();
+				communes = Math.max(1, (rows + perCommune - 1) / perCommune);
+			} else {
+				communes = Long.parseLong(arguments.getOrDefault("communes", "86"));
+				rows = Long.MAX_VALUE;
+			}
+			generator = new DatasetGenerator(bundledCommunes(), communes, years, indicators,
+					Double.parseDouble(arguments.getOrDefault("skew", "0.7")),
+					Long.parseLong(arguments.getOrDefault("seed", "1")), rows);
+			String format = arguments.get("format");
+			csv = format != null ? "csv".equalsIgnoreCase(format) : DataFiles.isCsv(Path.of(output));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean standardOutput = "-".equals(output);
+		OutputStream out = standardOutput ? System.out : DataFiles.create(Path.of(output));
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16)) {
+			if (csv) {
+				generator.writeCsv(writer);
+			} else {
+				generator.writeJson(writer);
+			}
+		}
+		System.err.printf(Locale.ROOT, "Wrote %d rows of %d communes to %s in %.1f s%n", generator.rows,
+				generator.communes, standardOutput ? "the standard output" : output,
+				(System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * This method is used to return the names of the communes of the bundled JSON file.
+	 *
+	 * @return The names with their BFS numbers in the order of the file.
+	 */
+	static Map<String, Integer> bundledCommunes() {
+		Map<String, Integer> names = new LinkedHashMap<>();
+		for (Entry entry : new EnergyJSONReaderDAO().getList(Entry.class)) {
+			names.putIfAbsent(entry.getCommune(), entry.getBfsNumber());
+		}
+		return names;
+	}
+
+	/**
+	 * This method is used to return the number of rows that are written.
+	 *
+	 * @return The number of rows.
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * This method is used to write the dataset as a JSON array with one object per line.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If the dataset cannot be written.
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		writer.write('[');
+		write(writer, (row, year, number, commune, indicator, mwh) -> {
+			writer.write(row == 0 ? "\n{\"jahr\":" : ",\n{\"jahr\":");
+			writer.write(Integer.toString(year));
+			writer.write(",\"bfs_nummer\":");
+			writer.write(Long.toString(number));
+			writer.write(",\"gemeinde\":");
+			writeJsonString(writer, commune);
+			writer.write(",\"indikator\":");
+			writeJsonString(writer, indicator);
+			writer.write(",\"wert\":");
+			writer.write(Long.toString(mwh));
+			writer.write(".0}");
+		});
+		writer.write("\n]\n");
+	}
+
+	/**
+	 * This method is used to write the dataset as CSV with a header.
+	 *
+	 * @param writer The writer.
+	 * @throws IOException If the dataset cannot be written.
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		writer.write("jahr,bfs_nummer,gemeinde,indikator,wert\n");
+		write(writer, (row, year, number, commune, indicator, mwh) -> {
+			writer.write(Integer.toString(year));
+			writer.write(',');
+			writer.write(Long.toString(number));
+			writer.write(',');
+			writeCsvField(writer, commune);
+			writer.write(',');
+			writeCsvField(writer, indicator);
+			writer.write(',');
+			writer.write(Long.toString(mwh));
+			writer.write(".0\n");
+		});
+	}
+
+	private void write(Writer writer, RowWriter rowWriter) throws IOException {
+		long row = 0;
+		long nextNumber = Arrays.stream(bfsNumbers).max().orElse(0) + 1;
+		for (int year = 0; year < years.length && row < rows; ++year) {
+			for (long commune = 0; commune < communes && row < rows; ++commune) {
+				String name = commune < names.length ? names[(int) commune]
+						: names[(int) (commune % names.length)] + " " + (commune / names.length + 1);
+				long number = commune < names.length ? bfsNumbers[(int) commune] : nextNumber + commune - names.length;
+				for (int indicator = 0; indicator < indicators.size() && row < rows; ++indicator) {
+					rowWriter.write(row++, years[year], number, name, indicators.get(indicator),
+							consumption(commune, year, indicator));
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method is used to compute the consumption of a commune in a year, in whole MWh as in the bundled file.
+	 */
+	private long consumption(long commune, int year, int indicator) {
+		double size = MIN_MWH * Math.min(MAX_FACTOR, Math.pow(1 - uniform(commune, 1), -skew));
+		if (skew == 0) {
+			size *= 50 + 100 * uniform(commune, 2);
+		}
+		double trend = Math.pow(1 + 0.03 * uniform(commune, 3) - 0.01, years[year] - years[0]);
+		double share = indicator == 0 ? 1 : 0.2 + 0.8 * uniform(indicator, 4);
+		double noise = 1 + NOISE * (2 * uniform(commune * 31 + year, indicator + 5) - 1);
+		return Math.round(size * trend * share * noise);
+	}
+
+	/**
+	 * This method is used to return a uniform random number in [0, 1) that only depends on the seed and the arguments.
+	 */
+	private double uniform(long value, long salt) {
+		return (mix(seed ^ mix(value * 0x9E3779B97F4A7C15L + salt)) >>> 11) * 0x1.0p-53;
+	}
+
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	private static void writeJsonString(Writer writer, String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	private static void writeCsvField(Writer writer, String value) throws IOException {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	/**
+	 * This interface is used to write one row of the dataset in a format.
+	 */
+	@FunctionalInterface
+	private interface RowWriter {
+		void write(long row, int year, long number, String commune, String indicator, long mwh) throws IOException;
+	}
+}
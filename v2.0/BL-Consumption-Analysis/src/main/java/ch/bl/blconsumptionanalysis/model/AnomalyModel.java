@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class is used to represent how anomalous years of the communes are detected: the method, the number of
+ * previous years that are compared, the score from which a year is reported and the first year that is reported.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@AllArgsConstructor
+public class AnomalyModel {
+	/**
+	 * The smallest number of previous years.
+	 */
+	public static final int MIN_WINDOW = 3;
+	/**
+	 * The largest number of previous years.
+	 */
+	public static final int MAX_WINDOW = 50;
+	/**
+	 * The default number of previous years.
+	 */
+	public static final int DEFAULT_WINDOW = 5;
+	private final Method method;
+	private final int window;
+	private final double threshold;
+	private final int since;
+
+	/**
+	 * This constructor is used to create a model with the default threshold of the method that reports all years.
+	 *
+	 * @param method The method.
+	 * @param window The number of previous years.
+	 */
+	public AnomalyModel(Method method, int window) {
+		this(method, window, method.getDefaultThreshold(), Integer.MIN_VALUE);
+	}
+
+	/**
+	 * This enum is used to define the methods of the detection.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public enum Method {
+		/**
+		 * The distance to the median of the window in units of the median absolute deviation (robust z-score).
+		 */
+		MAD(3.5),
+		/**
+		 * The distance to the mean of the window in units of the standard deviation (z-score).
+		 */
+		ZSCORE(3.0);
+
+		private final double defaultThreshold;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class is used to assign the communes to their district and canton, by their BFS number or, if the number is
+ * not known, by their name. Communes that are not part of the hierarchy are assigned to the district and canton
+ * {@value #UNKNOWN}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class CommuneHierarchy {
+	/**
+	 * The name of the district and canton of communes that are not part of the hierarchy.
+	 */
+	public static final String UNKNOWN = "Unknown";
+	private final Map<Integer, Member> byNumber = new HashMap<>();
+	private final Map<String, Member> byName = new HashMap<>();
+
+	/**
+	 * This constructor is used to create the hierarchy of the given communes.
+	 *
+	 * @param members The communes with their district and canton.
+	 */
+	public CommuneHierarchy(List<Member> members) {
+		for (Member member : members) {
+			if (member.getBfsNumber() != 0) {
+				byNumber.putIfAbsent(member.getBfsNumber(), member);
+			}
+			byName.putIfAbsent(member.getCommune(), member);
+		}
+	}
+
+	/**
+	 * This method is used to return the number of communes of the hierarchy.
+	 *
+	 * @return The number of communes.
+	 */
+	public int size() {
+		return byName.size();
+	}
+
+	/**
+	 * This method is used to find a commune in the hierarchy.
+	 *
+	 * @param bfsNumber The BFS number, or 0 if it is not known.
+	 * @param commune   The name of the commune.
+	 * @return The commune with its district and canton, or null if it is not part of the hierarchy.
+	 */
+	public Member find(int bfsNumber, String commune) {
+		Member member = bfsNumber == 0 ? null : byNumber.get(bfsNumber);
+		return member != null ? member : byName.get(commune);
+	}
+
+	/**
+	 * This method is used to roll the totals of the communes up to their districts and cantons, in the style of
+	 * {@code GROUP BY ROLLUP(canton, district, commune)}. Only the totals of the communes are needed, the higher
+	 * levels are summed from them without reading the rows again.
+	 * <p>
+	 * Each canton is followed by its districts and each district by its communes. The groups of a level are sorted
+	 * like the other results by the options: by name (1) or by consumption (2), in descending (1) or ascending (2)
+	 * order of the consumption and in ascending (1) or descending (2) order of the names.
+	 *
+	 * @param totals  The total consumption of each commune.
+	 * @param options The options object.
+	 * @return The rows of all levels.
+	 */
+	public List<RollupRow> rollup(List<Entry> totals, Options options) {
+		Map<String, Map<String, List<RollupRow>>> cantons = new TreeMap<>();
+		for (Entry total : totals) {
+			Member member = find(total.getBfsNumber(), total.getCommune());
+			String canton = member == null ? UNKNOWN : member.getCanton();
+			String district = member == null ? UNKNOWN : member.getDistrict();
+			cantons.computeIfAbsent(canton, name -> new TreeMap<>())
+					.computeIfAbsent(district, name -> new ArrayList<>())
+					.add(new RollupRow(RollupRow.Level.COMMUNE, canton, district, total.getCommune(), total.getMwh()));
+		}
+
+		Comparator<RollupRow> comparator = comparator(options);
+		List<List<RollupRow>> cantonGroups = new ArrayList<>();
+		for (Map.Entry<String, Map<String, List<RollupRow>>> canton : cantons.entrySet()) {
+			List<List<RollupRow>> districtGroups = new ArrayList<>();
+			for (Map.Entry<String, List<RollupRow>> district : canton.getValue().entrySet()) {
+				List<RollupRow> communes = district.getValue();
+				communes.sort(comparator);
+				double sum = communes.stream().mapToDouble(RollupRow::getMwh).sum();
+				List<RollupRow> group = new ArrayList<>(communes.size() + 1);
+				group.add(new RollupRow(RollupRow.Level.DISTRICT, canton.getKey(), district.getKey(), null, sum));
+				group.addAll(communes);
+				districtGroups.add(group);
+			}
+			districtGroups.sort((a, b) -> comparator.compare(a.get(0), b.get(0)));
+			double sum = districtGroups.stream().mapToDouble(group -> group.get(0).getMwh()).sum();
+			List<RollupRow> group = new ArrayList<>();
+			group.add(new RollupRow(RollupRow.Level.CANTON, canton.getKey(), null, null, sum));
+			districtGroups.forEach(group::addAll);
+			cantonGroups.add(group);
+		}
+		cantonGroups.sort((a, b) -> comparator.compare(a.get(0), b.get(0)));
+
+		List<RollupRow> rows = new ArrayList<>();
+		cantonGroups.forEach(rows::addAll);
+		return rows;
+	}
+
+	private static Comparator<RollupRow> comparator(Options options) {
+		if (options.getSort() == 1) {
+			Comparator<RollupRow> byName = Comparator.comparing(RollupRow::getName);
+			return options.getOrder() == 2 ? byName.reversed() : byName;
+		}
+		Comparator<RollupRow> byValue = Comparator.comparingDouble(RollupRow::getMwh);
+		return options.getOrder() != 2 ? byValue.reversed() : byValue;
+	}
+
+	/**
+	 * This class is used to represent a commune of the hierarchy.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static final class Member {
+		private final int bfsNumber;
+		private final String commune;
+		private final String district;
+		private final String canton;
+	}
+}
@@ -26,29 +26,43 @@
 package ch.bl.blconsumptionanalysis.model;
 
 import com.google.gson.annotations.SerializedName;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 
 /**
- * This class is used to represent an entry of the JSON file.
+ * This class is used to represent an entry of the JSON file. Entries are read-only once created.
+ * The BFS number identifies the commune independently of its name, it is 0 if it is not known.
  *
  * @author Joel Schaltenbrand, Leon Hochwimmer
  * @version 2.0
  */
 @Getter
-@Setter
-@NoArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
 @AllArgsConstructor
 public class Entry {
 
 	@SerializedName("jahr")
 	private int year;
 
+	@SerializedName("bfs_nummer")
+	private int bfsNumber;
+
 	@SerializedName("gemeinde")
 	private String commune;
 
 	@SerializedName("wert")
 	private double mwh;
+
+	/**
+	 * This constructor is used to create an entry without BFS number.
+	 *
+	 * @param year    The year.
+	 * @param commune The commune.
+	 * @param mwh     The consumption in MWh.
+	 */
+	public Entry(int year, String commune, double mwh) {
+		this(year, 0, commune, mwh);
+	}
 }
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class is used to represent how the consumption of the communes is projected: the method, the number of years
+ * ahead and, for exponential smoothing, the smoothing factors of the level and of the trend.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@AllArgsConstructor
+public class ForecastModel {
+	/**
+	 * The maximum number of years ahead.
+	 */
+	public static final int MAX_HORIZON = 50;
+	/**
+	 * The default smoothing factor of the level.
+	 */
+	public static final double DEFAULT_ALPHA = 0.5;
+	/**
+	 * The default smoothing factor of the trend.
+	 */
+	public static final double DEFAULT_BETA = 0.3;
+
+	private final Method method;
+	private final int horizon;
+	private final double alpha;
+	private final double beta;
+
+	/**
+	 * This constructor is used to create a model with the default smoothing factors.
+	 *
+	 * @param method  The method.
+	 * @param horizon The number of years ahead.
+	 */
+	public ForecastModel(Method method, int horizon) {
+		this(method, horizon, DEFAULT_ALPHA, DEFAULT_BETA);
+	}
+
+	/**
+	 * This enum is used to define the methods of the forecast.
+	 */
+	public enum Method {
+		/**
+		 * A linear trend fitted by least squares.
+		 */
+		LINEAR,
+		/**
+		 * Exponential smoothing of the level and the trend (Holt).
+		 */
+		HOLT
+	}
+}
@@ -10,7 +10,10 @@ public enum Functions {
 	AVERAGE_CONSUMPTION_PER_YEAR("Display average consumption of the whole canton BL for each year individually."),
 	AVERAGE_CONSUMPTION_PER_COMMUNE("Display average consumption of all years summed up per commune issued."),
 	HIGHEST_CONSUMERS("Display 10 highest consumers (commune) Total (All years summed up)."),
-	COMPARISON_OF_TWO_COMMUNES("Display comparison of 2 communes (All years individually).");
+	COMPARISON_OF_TWO_COMMUNES("Display comparison of 2 communes (All years individually)."),
+	ROLLUP_BY_DISTRICT("Display total consumption per canton, district and commune (All years summed up)."),
+	FORECAST_PER_COMMUNE("Display forecast of the consumption per commune (Trend of all years)."),
+	ANOMALIES_PER_COMMUNE("Display anomalous years of the communes (Largest deviations first).");
 
 	private final String description;
 
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class is used to represent a query of one of the functions with all its parameters.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@AllArgsConstructor
+public class Query {
+	private final Functions function;
+	private final Options options;
+	private final QueryFilter filter;
+	private final String commune1;
+	private final String commune2;
+	private final int limit;
+	private final boolean explain;
+	private final ForecastModel forecast;
+	private final AnomalyModel anomalies;
+
+	/**
+	 * This constructor is used to create a query that is not a forecast.
+	 *
+	 * @param function The function.
+	 * @param options  The options of the sorting.
+	 * @param filter   The filter of the years and communes.
+	 * @param commune1 The first commune of a comparison.
+	 * @param commune2 The second commune of a comparison.
+	 * @param limit    The number of communes of the highest consumers.
+	 * @param explain  Whether the result contains the execution plan.
+	 */
+	public Query(Functions function, Options options, QueryFilter filter, String commune1, String commune2, int limit,
+				 boolean explain) {
+		this(function, options, filter, commune1, commune2, limit, explain, null);
+	}
+
+	/**
+	 * This constructor is used to create a query that is not an anomaly detection.
+	 *
+	 * @param function The function.
+	 * @param options  The options of the sorting.
+	 * @param filter   The filter of the years and communes.
+	 * @param commune1 The first commune of a comparison.
+	 * @param commune2 The second commune of a comparison.
+	 * @param limit    The number of communes of the highest consumers.
+	 * @param explain  Whether the result contains the execution plan.
+	 * @param forecast The model of a forecast, or null.
+	 */
+	public Query(Functions function, Options options, QueryFilter filter, String commune1, String commune2, int limit,
+				 boolean explain, ForecastModel forecast) {
+		this(function, options, filter, commune1, commune2, limit, explain, forecast, null);
+	}
+
+	/**
+	 * This constructor is used to create a query without execution plan.
+	 *
+	 * @param function The function.
+	 * @param options  The options of the sorting.
+	 * @param filter   The filter of the years and communes.
+	 * @param commune1 The first commune of a comparison.
+	 * @param commune2 The second commune of a comparison.
+	 * @param limit    The number of communes of the highest consumers.
+	 */
+	public Query(Functions function, Options options, QueryFilter filter, String commune1, String commune2, int limit) {
+		this(function, options, filter, commune1, commune2, limit, false);
+	}
+
+	/**
+	 * This method is used to create a query of a function without filter.
+	 *
+	 * @param function The function.
+	 * @param options  The options of the sorting.
+	 * @return The query.
+	 */
+	public static Query of(Functions function, Options options) {
+		return new Query(function, options, QueryFilter.all(), null, null, 10);
+	}
+
+	/**
+	 * This method is used to create a comparison of two communes without filter.
+	 *
+	 * @param commune1 The first commune.
+	 * @param commune2 The second commune.
+	 * @return The query.
+	 */
+	public static Query comparison(String commune1, String commune2) {
+		return new Query(Functions.COMPARISON_OF_TWO_COMMUNES, new Options(1, 1), QueryFilter.all(), commune1, commune2, 10);
+	}
+
+	/**
+	 * This method is used to create a forecast of all communes without filter.
+	 *
+	 * @param options  The options of the sorting.
+	 * @param forecast The method and the number of years ahead.
+	 * @return The query.
+	 */
+	public static Query forecast(Options options, ForecastModel forecast) {
+		return new Query(Functions.FORECAST_PER_COMMUNE, options, QueryFilter.all(), null, null, 10, false, forecast);
+	}
+
+	/**
+	 * This method is used to create a detection of the anomalies of all communes without filter.
+	 *
+	 * @param limit     The maximum number of anomalies.
+	 * @param anomalies The method, the window and the threshold.
+	 * @return The query.
+	 */
+	public static Query anomalies(int limit, AnomalyModel anomalies) {
+		return new Query(Functions.ANOMALIES_PER_COMMUNE, new Options(2, 1), QueryFilter.all(), null, null, limit,
+				false, null, anomalies);
+	}
+
+	/**
+	 * This method is used to create the same query with its execution plan, see {@link QueryResult#getPlan()}.
+	 *
+	 * @return The query.
+	 */
+	public Query explained() {
+		return new Query(function, options, filter, commune1, commune2, limit, true, forecast, anomalies);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * This class is used to restrict a query to a range of years and a set of communes.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class QueryFilter {
+	private static final QueryFilter ALL = new QueryFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, Set.of());
+	private final int fromYear;
+	private final int toYear;
+	private final Set<String> communes;
+
+	/**
+	 * This method is used to return the filter that includes all entries.
+	 *
+	 * @return The filter.
+	 */
+	public static QueryFilter all() {
+		return ALL;
+	}
+
+	/**
+	 * This method is used to check whether the filter includes all entries.
+	 *
+	 * @return True if no year or commune is excluded.
+	 */
+	public boolean isAll() {
+		return fromYear == Integer.MIN_VALUE && toYear == Integer.MAX_VALUE && communes.isEmpty();
+	}
+
+	/**
+	 * This method is used to check whether a year is in the range of the filter.
+	 *
+	 * @param year The year.
+	 * @return True if the year is included.
+	 */
+	public boolean includesYear(int year) {
+		return year >= fromYear && year <= toYear;
+	}
+}
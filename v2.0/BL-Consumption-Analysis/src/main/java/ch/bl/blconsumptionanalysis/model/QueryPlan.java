@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * This class is used to represent how a query was executed: the access path, the rows and chunks that were read and
+ * the duration of each stage. Plans are only created for queries that ask for them, see {@link Query#explained()}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@AllArgsConstructor
+public class QueryPlan {
+	private final Access access;
+	private final String description;
+	private final long rowsScanned;
+	private final int chunks;
+	private final int aggregates;
+	private final int batchSize;
+	private final Map<String, Long> stages;
+
+	/**
+	 * This method is used to return the duration of all stages.
+	 *
+	 * @return The duration in nanoseconds.
+	 */
+	public long getTotal() {
+		return stages.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * This enum is used to represent where the result of a query comes from.
+	 */
+	public enum Access {
+		/**
+		 * The result was cached for the version of the data.
+		 */
+		CACHE,
+		/**
+		 * The rows were read in a pass over the storage, shared by all queries of the batch.
+		 */
+		SCAN,
+		/**
+		 * The partial results were requested from the shard workers.
+		 */
+		SHARDS
+	}
+}
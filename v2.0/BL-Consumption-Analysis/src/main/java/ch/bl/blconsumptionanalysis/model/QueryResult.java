@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is used to represent the result of a query. Comparisons fill the comparison map, rollups the list of
+ * rollup rows, forecasts the list of forecast rows, anomaly detections the list of anomalies and all other functions
+ * the list of entries. The plan is only set if the query was {@link Query#explained() explained}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Getter
+@AllArgsConstructor
+public class QueryResult {
+	private final Query query;
+	private final long version;
+	private final List<Entry> entries;
+	private final Map<Integer, Pair> comparison;
+	private final List<RollupRow> rollup;
+	private final List<ForecastRow> forecast;
+	private final List<AnomalyRow> anomalies;
+	private final QueryPlan plan;
+
+	/**
+	 * This constructor is used to create a result without execution plan.
+	 *
+	 * @param query      The query.
+	 * @param version    The version of the data.
+	 * @param entries    The entries, or null for a comparison.
+	 * @param comparison The comparison, or null.
+	 */
+	public QueryResult(Query query, long version, List<Entry> entries, Map<Integer, Pair> comparison) {
+		this(query, version, entries, comparison, null, null, null, null);
+	}
+
+	/**
+	 * This constructor is used to create the result of a rollup without execution plan.
+	 *
+	 * @param query   The query.
+	 * @param version The version of the data.
+	 * @param rollup  The rows of all levels.
+	 */
+	public QueryResult(Query query, long version, List<RollupRow> rollup) {
+		this(query, version, null, null, rollup, null, null, null);
+	}
+
+	/**
+	 * This method is used to create the result of a forecast without execution plan.
+	 *
+	 * @param query    The query.
+	 * @param version  The version of the data.
+	 * @param forecast The projected rows.
+	 * @return The result.
+	 */
+	public static QueryResult forecast(Query query, long version, List<ForecastRow> forecast) {
+		return new QueryResult(query, version, null, null, null, forecast, null, null);
+	}
+
+	/**
+	 * This method is used to create the result of an anomaly detection without execution plan.
+	 *
+	 * @param query     The query.
+	 * @param version   The version of the data.
+	 * @param anomalies The anomalies, ranked by descending score.
+	 * @return The result.
+	 */
+	public static QueryResult anomalies(Query query, long version, List<AnomalyRow> anomalies) {
+		return new QueryResult(query, version, null, null, null, null, anomalies, null);
+	}
+
+	/**
+	 * This method is used to return the number of result rows.
+	 *
+	 * @return The number of rows.
+	 */
+	public int size() {
+		if (comparison != null) {
+			return comparison.size();
+		}
+		if (forecast != null) {
+			return forecast.size();
+		}
+		if (anomalies != null) {
+			return anomalies.size();
+		}
+		return rollup != null ? rollup.size() : entries.size();
+	}
+
+	/**
+	 * This method is used to create the same result with an execution plan.
+	 *
+	 * @param plan The execution plan.
+	 * @return The result.
+	 */
+	public QueryResult withPlan(QueryPlan plan) {
+		return new QueryResult(query, version, entries, comparison, rollup, forecast, anomalies, plan);
+	}
+}
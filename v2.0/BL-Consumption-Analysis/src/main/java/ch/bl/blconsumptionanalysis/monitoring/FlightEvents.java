@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import jdk.jfr.FlightRecorder;
+
+import java.util.List;
+
+/**
+ * This class is used to create the Java Flight Recorder events only once the flight recorder has been started.
+ * <p>
+ * Initialising the first event class starts the event framework of the JDK, which takes about 0.2 s even if nothing
+ * is recorded. No recording can be running before the flight recorder is initialised, so until then the events are
+ * not created and their classes are not initialised. A recording started later, for example with
+ * {@code jcmd <pid> JFR.start}, initialises the flight recorder and the following phases and queries are recorded.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class FlightEvents {
+
+	private FlightEvents() {
+	}
+
+	/**
+	 * This method is used to start the event of a phase of loading the data.
+	 *
+	 * @return The started event, or null if the flight recorder has not been started.
+	 */
+	public static IngestionEvent beginIngestion() {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		IngestionEvent event = new IngestionEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * This method is used to set the results of a phase and to commit its event, if it is recorded.
+	 *
+	 * @param event   The event returned by {@link #beginIngestion()}, or null.
+	 * @param phase   The phase.
+	 * @param source  The source of the data.
+	 * @param bytes   The number of bytes read, or 0 if unknown.
+	 * @param records The number of records.
+	 */
+	public static void recordIngestion(IngestionEvent event, String phase, String source, long bytes, long records) {
+		if (event != null) {
+			event.record(phase, source, bytes, records);
+		}
+	}
+
+	/**
+	 * This method is used to start the events of a batch of queries.
+	 *
+	 * @param queries The queries.
+	 * @return The started events, or null if queries are not recorded.
+	 */
+	public static QueryEvent[] beginQueries(List<Query> queries) {
+		return FlightRecorder.isInitialized() ? QueryEvent.begin(queries) : null;
+	}
+
+	/**
+	 * This method is used to commit the events of a batch of queries once the results are known.
+	 *
+	 * @param events      The events returned by {@link #beginQueries(List)}, or null.
+	 * @param results     The results in the order of the queries.
+	 * @param cached      Which results were taken from the cache.
+	 * @param rowsScanned The rows read by the pass over the data.
+	 */
+	public static void commitQueries(QueryEvent[] events, List<QueryResult> results, boolean[] cached,
+									 long rowsScanned) {
+		if (events != null) {
+			QueryEvent.commit(events, results, cached, rowsScanned);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import ch.bl.blconsumptionanalysis.service.IQueryService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is used to write the {@link MemoryFootprint} of the data to the log once it is loaded. The report is
+ * enabled with {@code footprint.log-on-startup} and projected to the numbers of rows in {@code footprint.rows}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Component
+@ConditionalOnProperty(name = "footprint.log-on-startup", havingValue = "true")
+public class FootprintReporter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FootprintReporter.class);
+	private final IQueryService queryService;
+	private final long[] projectedRows;
+
+	/**
+	 * This constructor is used to inject the QueryService and to set the projections.
+	 *
+	 * @param queryService  The QueryService.
+	 * @param projectedRows The comma separated numbers of rows to project the memory to.
+	 */
+	public FootprintReporter(IQueryService queryService, @Value("${footprint.rows:}") String projectedRows) {
+		this.queryService = queryService;
+		this.projectedRows = MemoryFootprint.parseRows(projectedRows);
+	}
+
+	/**
+	 * This method is used to write the report.
+	 */
+	@PostConstruct
+	public void report() {
+		LOGGER.info(queryService.footprint().toText(projectedRows).stripTrailing());
+	}
+}
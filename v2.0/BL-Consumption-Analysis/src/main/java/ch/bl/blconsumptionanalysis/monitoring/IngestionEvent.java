@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class is used to record a phase of loading the data as a Java Flight Recorder event.
+ * <p>
+ * The phases are {@code read} (reading the JSON file), {@code parse} (creating the entries), {@code load} (creating
+ * the storage of the repository) and {@code append} (adding entries as a new version). The events are created by
+ * {@link FlightEvents} once the flight recorder has been started and only committed while a recording is running.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Name("ch.bl.blconsumptionanalysis.Ingestion")
+@Label("Ingestion")
+@Description("A phase of loading the consumption data")
+@Category({"BL Consumption Analysis", "Ingestion"})
+@StackTrace(false)
+public class IngestionEvent extends Event {
+	@Label("Phase")
+	private String phase;
+
+	@Label("Source")
+	@Description("The file, the storage backend or the segment log")
+	private String source;
+
+	@Label("Bytes")
+	@DataAmount
+	private long bytes;
+
+	@Label("Records")
+	private long records;
+
+	/**
+	 * This method is used to set the results of the phase and to commit the event, if it is recorded.
+	 *
+	 * @param phase   The phase.
+	 * @param source  The source of the data.
+	 * @param bytes   The number of bytes read, or 0 if unknown.
+	 * @param records The number of records.
+	 */
+	public void record(String phase, String source, long bytes, long records) {
+		if (shouldCommit()) {
+			this.phase = phase;
+			this.source = source;
+			this.bytes = bytes;
+			this.records = records;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class is used to report the memory used by a version of the data, broken down by structure: the stored
+ * records, the commune names, the dictionary, the indexes, the cached results and the aggregates of a scan.
+ * <p>
+ * The sizes are estimated with the {@link MemoryLayout} of the running JVM. The projection to another number of rows
+ * assumes that the rows per commune and the years stay the same, so everything except the structures per year grows
+ * linearly. The report also contains the memory measured by the JVM, which includes everything else of the
+ * application.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class MemoryFootprint {
+	private static final long[] PROJECTED_ROWS = {1_000_000L, 10_000_000L, 100_000_000L};
+	private final long version;
+	private final long rows;
+	private final int communes;
+	private final int chunks;
+	private final List<Part> parts = new ArrayList<>();
+
+	/**
+	 * This constructor is used to create an empty report of a version of the data.
+	 *
+	 * @param version  The version of the data.
+	 * @param rows     The number of rows.
+	 * @param communes The number of communes.
+	 * @param chunks   The number of chunks.
+	 */
+	public MemoryFootprint(long version, long rows, int communes, int chunks) {
+		this.version = version;
+		this.rows = rows;
+		this.communes = communes;
+		this.chunks = chunks;
+	}
+
+	/**
+	 * This method is used to add the memory of a structure.
+	 *
+	 * @param name        The name of the structure.
+	 * @param category    The category, like records or cache.
+	 * @param heapBytes   The estimated bytes on the heap.
+	 * @param nativeBytes The bytes in direct or mapped buffers.
+	 * @param perRow      Whether the structure grows with the number of rows.
+	 */
+	public void add(String name, String category, long heapBytes, long nativeBytes, boolean perRow) {
+		parts.add(new Part(name, category, heapBytes, nativeBytes, perRow));
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public int getCommunes() {
+		return communes;
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public List<Part> getParts() {
+		return Collections.unmodifiableList(parts);
+	}
+
+	public long getHeapBytes() {
+		return parts.stream().mapToLong(Part::getHeapBytes).sum();
+	}
+
+	public long getNativeBytes() {
+		return parts.stream().mapToLong(Part::getNativeBytes).sum();
+	}
+
+	public long getTotalBytes() {
+		return getHeapBytes() + getNativeBytes();
+	}
+
+	/**
+	 * This method is used to return the memory per row of all structures.
+	 *
+	 * @return The bytes per row, 0 without rows.
+	 */
+	public double getBytesPerRow() {
+		return rows == 0 ? 0 : (double) getTotalBytes() / rows;
+	}
+
+	/**
+	 * This method is used to project the memory to another number of rows.
+	 *
+	 * @param projectedRows The number of rows.
+	 * @return The projected bytes.
+	 */
+	public long projected(long projectedRows) {
+		double factor = rows == 0 ? 0 : (double) projectedRows / rows;
+		double bytes = 0;
+		for (Part part : parts) {
+			bytes += part.isPerRow() ? part.getTotalBytes() * factor : part.getTotalBytes();
+		}
+		return Math.round(bytes);
+	}
+
+	/**
+	 * This method is used to return the report as JSON.
+	 *
+	 * @param projectedRows The numbers of rows to project the memory to.
+	 * @return The report.
+	 */
+	public JsonObject toJson(long... projectedRows) {
+		JsonArray structures = new JsonArray();
+		for (Part part : parts) {
+			JsonObject structure = new JsonObject();
+			structure.addProperty("name", part.getName());
+			structure.addProperty("category", part.getCategory());
+			structure.addProperty("heapBytes", part.getHeapBytes());
+			structure.addProperty("nativeBytes", part.getNativeBytes());
+			structure.addProperty("bytesPerRow", rows == 0 ? 0 : (double) part.getTotalBytes() / rows);
+			structure.addProperty("perRow", part.isPerRow());
+			structures.add(structure);
+		}
+		JsonObject projections = new JsonObject();
+		for (long projected : projectedRows) {
+			projections.addProperty(Long.toString(projected), projected(projected));
+		}
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		JsonObject jvm = new JsonObject();
+		jvm.addProperty("heapUsedBytes", heap.getUsed());
+		jvm.addProperty("heapCommittedBytes", heap.getCommitted());
+		jvm.addProperty("heapMaxBytes", heap.getMax());
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			jvm.addProperty(pool.getName() + "BufferBytes", pool.getMemoryUsed());
+		}
+		JsonObject json = new JsonObject();
+		json.addProperty("version", version);
+		json.addProperty("rows", rows);
+		json.addProperty("communes", communes);
+		json.addProperty("chunks", chunks);
+		json.addProperty("heapBytes", getHeapBytes());
+		json.addProperty("nativeBytes", getNativeBytes());
+		json.addProperty("bytesPerRow", getBytesPerRow());
+		json.add("structures", structures);
+		json.add("projectedBytes", projections);
+		json.add("jvm", jvm);
+		return json;
+	}
+
+	/**
+	 * This method is used to return the report as text, one line per structure.
+	 *
+	 * @param projectedRows The numbers of rows to project the memory to.
+	 * @return The lines of the report.
+	 */
+	public String toText(long... projectedRows) {
+		StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+				"Memory footprint of version %d: %d rows, %d communes, %d chunks, %s on the heap, %s native, "
+						+ "%.1f bytes per row%n", version, rows, communes, chunks, format(getHeapBytes()),
+				format(getNativeBytes()), getBytesPerRow()));
+		for (Part part : parts) {
+			text.append(String.format(Locale.ROOT, "  %-11s %-28s %10s heap %10s native%n", part.getCategory(),
+					part.getName(), format(part.getHeapBytes()), format(part.getNativeBytes())));
+		}
+		for (long projected : projectedRows) {
+			text.append(String.format(Locale.ROOT, "  projected at %,d rows: %s%n", projected,
+					format(projected(projected))));
+		}
+		return text.toString();
+	}
+
+	/**
+	 * This method is used to parse the numbers of rows to project the memory to.
+	 *
+	 * @param value The comma separated numbers, or null or empty for 1, 10 and 100 million rows.
+	 * @return The numbers of rows.
+	 * @throws IllegalArgumentException If a value is not a number.
+	 */
+	public static long[] parseRows(String value) {
+		if (value == null || value.isBlank()) {
+			return PROJECTED_ROWS.clone();
+		}
+		try {
+			return Arrays.stream(value.split(",")).map(String::trim).mapToLong(Long::parseLong).toArray();
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a list of row counts: " + value, e);
+		}
+	}
+
+	/**
+	 * This method is used to format a number of bytes with a binary unit.
+	 *
+	 * @param bytes The number of bytes.
+	 * @return The formatted size, like {@code 1.5 MiB}.
+	 */
+	public static String format(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+		return String.format(Locale.ROOT, "%.1f %siB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+	}
+
+	/**
+	 * This class is used to represent the memory of one structure.
+	 */
+	public static final class Part {
+		private final String name;
+		private final String category;
+		private final long heapBytes;
+		private final long nativeBytes;
+		private final boolean perRow;
+
+		Part(String name, String category, long heapBytes, long nativeBytes, boolean perRow) {
+			this.name = name;
+			this.category = category;
+			this.heapBytes = heapBytes;
+			this.nativeBytes = nativeBytes;
+			this.perRow = perRow;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getCategory() {
+			return category;
+		}
+
+		public long getHeapBytes() {
+			return heapBytes;
+		}
+
+		public long getNativeBytes() {
+			return nativeBytes;
+		}
+
+		public long getTotalBytes() {
+			return heapBytes + nativeBytes;
+		}
+
+		public boolean isPerRow() {
+			return perRow;
+		}
+	}
+}
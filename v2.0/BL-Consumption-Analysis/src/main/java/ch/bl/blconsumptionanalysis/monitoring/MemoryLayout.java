@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+
+/**
+ * This class is used to estimate the size of objects on the heap from the layout of the running JVM: the size of
+ * object headers and references (compressed or not) and the alignment of objects. The estimates are shallow, every
+ * method documents which referenced objects are included.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class MemoryLayout {
+	/**
+	 * The size of a reference in bytes.
+	 */
+	public static final int REFERENCE = booleanOption("UseCompressedOops", true) ? 4 : 8;
+	/**
+	 * The size of an object header in bytes.
+	 */
+	public static final int HEADER = booleanOption("UseCompressedClassPointers", true) ? 12 : 16;
+	private static final int ALIGNMENT = intOption("ObjectAlignmentInBytes", 8);
+
+	private MemoryLayout() {
+	}
+
+	/**
+	 * This method is used to estimate the size of an object without the objects it references.
+	 *
+	 * @param fieldBytes The size of all fields, references counted with {@link #REFERENCE}.
+	 * @return The size in bytes.
+	 */
+	public static long object(long fieldBytes) {
+		return align(HEADER + fieldBytes);
+	}
+
+	/**
+	 * This method is used to estimate the size of an array of primitives.
+	 *
+	 * @param length       The length of the array.
+	 * @param elementBytes The size of an element.
+	 * @return The size in bytes.
+	 */
+	public static long array(long length, int elementBytes) {
+		return align(HEADER + Integer.BYTES + length * elementBytes);
+	}
+
+	/**
+	 * This method is used to estimate the size of an array of references without the referenced objects.
+	 *
+	 * @param length The length of the array.
+	 * @return The size in bytes.
+	 */
+	public static long references(long length) {
+		return array(length, REFERENCE);
+	}
+
+	/**
+	 * This method is used to estimate the size of a string with its characters, stored with one byte per character if
+	 * all of them are Latin-1.
+	 *
+	 * @param value The string.
+	 * @return The size in bytes.
+	 */
+	public static long string(String value) {
+		boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+		return object(REFERENCE + Integer.BYTES + 2) + array(value.length(), latin1 ? 1 : 2);
+	}
+
+	/**
+	 * This method is used to estimate the size of strings with their characters.
+	 *
+	 * @param values The strings.
+	 * @return The size in bytes.
+	 */
+	public static long strings(Collection<String> values) {
+		return values.stream().mapToLong(MemoryLayout::string).sum();
+	}
+
+	/**
+	 * This method is used to estimate the size of a {@link java.util.HashMap} with its table and nodes, but without
+	 * the keys and values.
+	 *
+	 * @param size            The number of mappings.
+	 * @param initialCapacity The initial capacity the map was created with.
+	 * @return The size in bytes.
+	 */
+	public static long hashMap(int size, int initialCapacity) {
+		long table = 0;
+		if (size > 0) {
+			int capacity = Integer.highestOneBit(Math.max(Math.max(initialCapacity, 1) - 1, 1)) << 1;
+			while (size > capacity * 0.75) {
+				capacity <<= 1;
+			}
+			table = references(capacity);
+		}
+		long nodes = size * object(Integer.BYTES + 3L * REFERENCE);
+		return object(4L * REFERENCE + 3L * Integer.BYTES + Float.BYTES) + table + nodes;
+	}
+
+	/**
+	 * This method is used to estimate the size of the boxed integers of a range of values, without the ones that are
+	 * cached by {@link Integer#valueOf(int)}.
+	 *
+	 * @param from The first value.
+	 * @param to   The last value, exclusive.
+	 * @return The size in bytes.
+	 */
+	public static long integers(int from, int to) {
+		long boxed = Math.max(0, to - Math.max(from, 128)) + Math.max(0, Math.min(to, -128) - from);
+		return boxed * object(Integer.BYTES);
+	}
+
+	private static long align(long bytes) {
+		return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	private static boolean booleanOption(String name, boolean defaultValue) {
+		String value = option(name);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	private static int intOption(String name, int defaultValue) {
+		String value = option(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	private static String option(String name) {
+		try {
+			return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+		} catch (RuntimeException e) {
+			// Not a HotSpot JVM or the option does not exist, the defaults of a 64-bit HotSpot JVM are used.
+			return null;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import ch.bl.blconsumptionanalysis.model.Functions;
+import com.google.gson.JsonObject;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is used to collect the metrics of the application: the latency, the calls, the cache hits and the rows
+ * scanned of each function, and the durations of loading the data.
+ * <p>
+ * There is one registry per process, like the Flight Recorder events, so it is filled by every repository no matter
+ * whether it was created by Spring. Recording never locks. The metrics are served by the API under
+ * {@code /api/metrics} and written to the log by the {@link MetricsReporter}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class MetricsRegistry {
+	private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+	private final Map<Functions, QueryMetrics> queries;
+	private final Map<String, PhaseMetrics> phases = new ConcurrentHashMap<>();
+	private final long startTime = System.nanoTime();
+
+	/**
+	 * This constructor is used to create an empty registry.
+	 */
+	public MetricsRegistry() {
+		Map<Functions, QueryMetrics> metrics = new EnumMap<>(Functions.class);
+		for (Functions function : Functions.values()) {
+			metrics.put(function, new QueryMetrics());
+		}
+		this.queries = Collections.unmodifiableMap(metrics);
+	}
+
+	/**
+	 * This method is used to return the registry of the process.
+	 *
+	 * @return The registry.
+	 */
+	public static MetricsRegistry global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * This method is used to record the execution of a query.
+	 *
+	 * @param function    The function of the query.
+	 * @param nanos       The duration in nanoseconds.
+	 * @param cached      Whether the result was taken from the cache.
+	 * @param rowsScanned The rows read to compute the result.
+	 */
+	public void recordQuery(Functions function, long nanos, boolean cached, long rowsScanned) {
+		queries.get(function).record(nanos, cached, rowsScanned);
+	}
+
+	/**
+	 * This method is used to record a phase of loading the data.
+	 *
+	 * @param phase   The phase, like {@code load} or {@code append}.
+	 * @param nanos   The duration in nanoseconds.
+	 * @param records The number of records.
+	 */
+	public void recordPhase(String phase, long nanos, long records) {
+		phases.computeIfAbsent(phase, key -> new PhaseMetrics()).record(nanos, records);
+	}
+
+	/**
+	 * This method is used to return the metrics of each function.
+	 *
+	 * @return The metrics by function.
+	 */
+	public Map<Functions, QueryMetrics> getQueries() {
+		return queries;
+	}
+
+	/**
+	 * This method is used to return the metrics of each phase of loading the data that was executed.
+	 *
+	 * @return The metrics by phase, sorted by name.
+	 */
+	public Map<String, PhaseMetrics> getPhases() {
+		return new TreeMap<>(phases);
+	}
+
+	/**
+	 * This method is used to return the time since the registry was created.
+	 *
+	 * @return The uptime in nanoseconds.
+	 */
+	public long getUptime() {
+		return System.nanoTime() - startTime;
+	}
+
+	/**
+	 * This method is used to return the current metrics as JSON, with all durations in milliseconds.
+	 *
+	 * @return The metrics.
+	 */
+	public JsonObject toJson() {
+		double uptimeSeconds = getUptime() / 1e9;
+		JsonObject functions = new JsonObject();
+		for (Map.Entry<Functions, QueryMetrics> entry : queries.entrySet()) {
+			QueryMetrics metrics = entry.getValue();
+			JsonObject function = new JsonObject();
+			function.addProperty("calls", metrics.getCalls());
+			function.addProperty("callsPerSecond", metrics.getCalls() / Math.max(uptimeSeconds, 1e-9));
+			function.addProperty("cacheHits", metrics.getCacheHits());
+			function.addProperty("cacheHitRatio", metrics.getCacheHitRatio());
+			function.addProperty("rowsScanned", metrics.getRowsScanned());
+			function.add("latencyMillis", toJson(metrics.getLatency()));
+			functions.add(entry.getKey().name(), function);
+		}
+		JsonObject ingestion = new JsonObject();
+		for (Map.Entry<String, PhaseMetrics> entry : getPhases().entrySet()) {
+			PhaseMetrics metrics = entry.getValue();
+			JsonObject phase = new JsonObject();
+			phase.addProperty("count", metrics.getDuration().getCount());
+			phase.addProperty("records", metrics.getRecords());
+			phase.addProperty("lastMillis", millis(metrics.getLastDuration()));
+			phase.addProperty("maxMillis", millis(metrics.getDuration().getMax()));
+			phase.addProperty("totalMillis", millis(metrics.getDuration().getTotal()));
+			ingestion.add(entry.getKey(), phase);
+		}
+		JsonObject json = new JsonObject();
+		json.addProperty("uptimeSeconds", uptimeSeconds);
+		json.add("queries", functions);
+		json.add("ingestion", ingestion);
+		return json;
+	}
+
+	private static JsonObject toJson(LatencyHistogram histogram) {
+		JsonObject latency = new JsonObject();
+		latency.addProperty("mean", millis(histogram.getMean()));
+		latency.addProperty("p50", millis(histogram.getPercentile(50)));
+		latency.addProperty("p90", millis(histogram.getPercentile(90)));
+		latency.addProperty("p99", millis(histogram.getPercentile(99)));
+		latency.addProperty("max", millis(histogram.getMax()));
+		return latency;
+	}
+
+	/**
+	 * This method is used to convert nanoseconds to milliseconds, rounded to microseconds.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The duration in milliseconds.
+	 */
+	public static double millis(double nanos) {
+		return Math.round(nanos / 1e3) / 1e3;
+	}
+}
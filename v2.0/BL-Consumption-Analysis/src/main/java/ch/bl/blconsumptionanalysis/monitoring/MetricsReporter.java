@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import ch.bl.blconsumptionanalysis.model.Functions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to write the metrics of the {@link MetricsRegistry} to the log in a fixed interval, one line
+ * per function that was executed since the previous report. The reports are enabled with
+ * {@code metrics.log-interval} in seconds.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Component
+public class MetricsReporter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsReporter.class);
+	private final MetricsRegistry registry;
+	private final long interval;
+	private final Map<Functions, Long> previousCalls = new EnumMap<>(Functions.class);
+	private ScheduledExecutorService executor;
+
+	/**
+	 * This constructor is used to set the interval of the reports.
+	 *
+	 * @param interval The interval in seconds, 0 to disable the reports.
+	 */
+	public MetricsReporter(@Value("${metrics.log-interval:0}") long interval) {
+		this.registry = MetricsRegistry.global();
+		this.interval = interval;
+	}
+
+	/**
+	 * This method is used to start the reports if they are enabled.
+	 */
+	@PostConstruct
+	public void start() {
+		if (interval <= 0) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * This method is used to stop the reports.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method is used to write the metrics of every function that was executed since the previous report.
+	 */
+	void report() {
+		for (Map.Entry<Functions, QueryMetrics> entry : registry.getQueries().entrySet()) {
+			QueryMetrics metrics = entry.getValue();
+			long calls = metrics.getCalls();
+			long newCalls = calls - previousCalls.getOrDefault(entry.getKey(), 0L);
+			previousCalls.put(entry.getKey(), calls);
+			if (newCalls == 0) {
+				continue;
+			}
+			LatencyHistogram latency = metrics.getLatency();
+			LOGGER.info(String.format(Locale.ROOT,
+					"%s: %d calls (%.1f/s), latency p50 %.3f ms, p99 %.3f ms, max %.3f ms, cache hit ratio %.2f, "
+							+ "%d rows scanned",
+					entry.getKey(), calls, (double) newCalls / interval,
+					MetricsRegistry.millis(latency.getPercentile(50)), MetricsRegistry.millis(latency.getPercentile(99)),
+					MetricsRegistry.millis(latency.getMax()), metrics.getCacheHitRatio(), metrics.getRowsScanned()));
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is used to count the executions of one phase of loading the data, like the initial load or appending
+ * a new version.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class PhaseMetrics {
+	private final LatencyHistogram duration = new LatencyHistogram();
+	private final LongAdder records = new LongAdder();
+	private volatile long lastDuration;
+
+	/**
+	 * This method is used to record an execution.
+	 *
+	 * @param nanos   The duration in nanoseconds.
+	 * @param records The number of records.
+	 */
+	void record(long nanos, long records) {
+		duration.record(nanos);
+		this.records.add(records);
+		lastDuration = nanos;
+	}
+
+	public LatencyHistogram getDuration() {
+		return duration;
+	}
+
+	public long getRecords() {
+		return records.sum();
+	}
+
+	public long getLastDuration() {
+		return lastDuration;
+	}
+}
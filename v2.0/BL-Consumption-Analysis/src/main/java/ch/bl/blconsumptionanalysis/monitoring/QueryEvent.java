@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class is used to record the execution of a query as a Java Flight Recorder event.
+ * <p>
+ * The queries of a batch share one pass over the data, so their events cover the whole batch and report the rows
+ * scanned and the memory allocated by the batch. The events are created by {@link FlightEvents} once the flight
+ * recorder has been started, and only while a recording is running.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Name("ch.bl.blconsumptionanalysis.Query")
+@Label("Query")
+@Description("The execution of a query by the EnergyRepository")
+@Category({"BL Consumption Analysis", "Query"})
+@StackTrace(false)
+public class QueryEvent extends Event {
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	@Label("Function")
+	private String function;
+
+	@Label("Parameters")
+	@Description("The options, the filter and the communes of the query")
+	private String parameters;
+
+	@Label("Version")
+	@Description("The version of the data the query ran on")
+	private long version;
+
+	@Label("Cached")
+	@Description("Whether the result was taken from the cache of the version")
+	private boolean cached;
+
+	@Label("Rows Scanned")
+	@Description("The rows read by the pass over the data of the batch")
+	private long rowsScanned;
+
+	@Label("Groups")
+	@Description("The number of rows of the result")
+	private int groups;
+
+	@Label("Batch Size")
+	private int batchSize;
+
+	@Label("Allocated")
+	@Description("The memory allocated by the thread while executing the batch")
+	@DataAmount
+	private long allocated;
+
+	private transient long allocatedBefore;
+
+	/**
+	 * This method is used to start the events of a batch of queries.
+	 *
+	 * @param queries The queries.
+	 * @return The started events, or null if queries are not recorded.
+	 */
+	public static QueryEvent[] begin(List<Query> queries) {
+		QueryEvent first = new QueryEvent();
+		if (!first.isEnabled()) {
+			return null;
+		}
+		long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+		QueryEvent[] events = new QueryEvent[queries.size()];
+		for (int i = 0; i < events.length; ++i) {
+			events[i] = i == 0 ? first : new QueryEvent();
+			events[i].allocatedBefore = allocatedBefore;
+			events[i].begin();
+		}
+		return events;
+	}
+
+	/**
+	 * This method is used to commit the events of a batch of queries once the results are known.
+	 *
+	 * @param events      The events returned by {@link #begin(List)}, or null.
+	 * @param results     The results in the order of the queries.
+	 * @param cached      Which results were taken from the cache.
+	 * @param rowsScanned The rows read by the pass over the data.
+	 */
+	public static void commit(QueryEvent[] events, List<QueryResult> results, boolean[] cached, long rowsScanned) {
+		if (events == null) {
+			return;
+		}
+		long allocated = THREADS.getCurrentThreadAllocatedBytes() - events[0].allocatedBefore;
+		for (int i = 0; i < events.length; ++i) {
+			QueryEvent event = events[i];
+			event.end();
+			if (event.shouldCommit()) {
+				QueryResult result = results.get(i);
+				Query query = result.getQuery();
+				event.function = query.getFunction().name();
+				event.parameters = parameters(query);
+				event.version = result.getVersion();
+				event.cached = cached[i];
+				event.rowsScanned = rowsScanned;
+				event.groups = result.size();
+				event.batchSize = events.length;
+				event.allocated = allocated;
+				event.commit();
+			}
+		}
+	}
+
+	private static String parameters(Query query) {
+		StringBuilder parameters = new StringBuilder()
+				.append("sort=").append(query.getOptions().getSort())
+				.append(" order=").append(query.getOptions().getOrder());
+		if (!query.getFilter().isAll()) {
+			parameters.append(" from=").append(query.getFilter().getFromYear())
+					.append(" to=").append(query.getFilter().getToYear());
+			if (!query.getFilter().getCommunes().isEmpty()) {
+				parameters.append(" communes=").append(String.join(",", query.getFilter().getCommunes()));
+			}
+		}
+		if (query.getCommune1() != null) {
+			parameters.append(" commune1=").append(query.getCommune1())
+					.append(" commune2=").append(query.getCommune2());
+		}
+		if (query.getFunction() == Functions.HIGHEST_CONSUMERS
+				|| query.getFunction() == Functions.ANOMALIES_PER_COMMUNE) {
+			parameters.append(" limit=").append(query.getLimit());
+		}
+		if (query.getForecast() != null) {
+			parameters.append(" horizon=").append(query.getForecast().getHorizon())
+					.append(" model=").append(query.getForecast().getMethod().name().toLowerCase(Locale.ROOT));
+		}
+		if (query.getAnomalies() != null) {
+			parameters.append(" model=").append(query.getAnomalies().getMethod().name().toLowerCase(Locale.ROOT))
+					.append(" window=").append(query.getAnomalies().getWindow())
+					.append(" threshold=").append(query.getAnomalies().getThreshold());
+		}
+		return parameters.toString();
+	}
+}
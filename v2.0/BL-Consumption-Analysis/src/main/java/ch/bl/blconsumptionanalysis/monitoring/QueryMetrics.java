@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is used to count the executions of one function.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class QueryMetrics {
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder rowsScanned = new LongAdder();
+
+	/**
+	 * This method is used to record an execution.
+	 *
+	 * @param nanos       The duration in nanoseconds.
+	 * @param cached      Whether the result was taken from the cache.
+	 * @param rowsScanned The rows read to compute the result.
+	 */
+	void record(long nanos, boolean cached, long rowsScanned) {
+		latency.record(nanos);
+		if (cached) {
+			cacheHits.increment();
+		}
+		this.rowsScanned.add(rowsScanned);
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public long getCalls() {
+		return latency.getCount();
+	}
+
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getRowsScanned() {
+		return rowsScanned.sum();
+	}
+
+	/**
+	 * This method is used to return the share of the executions answered from the cache.
+	 *
+	 * @return The ratio between 0 and 1, or 0 if there were no executions.
+	 */
+	public double getCacheHitRatio() {
+		long calls = getCalls();
+		return calls == 0 ? 0 : (double) getCacheHits() / calls;
+	}
+}
@@ -26,32 +26,110 @@
 package ch.bl.blconsumptionanalysis.repository;
 
 import ch.bl.blconsumptionanalysis.dao.JSONReaderDAO;
+import ch.bl.blconsumptionanalysis.repository.storage.Storage;
 
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
- * This abstract class is used to read the JSON files and to create a list of the corresponding objects.
+ * This abstract class is used to read the JSON files and to keep the objects in a storage.
+ * <p>
+ * The data is published as immutable {@link DatasetSnapshot}s through an atomic reference. Readers take the current
+ * snapshot without locking, writers prepare the next version from the current one and publish it when it is complete.
  *
  * @author Joel Schaltenbrand, Leon Hochwimmer
  * @version 2.0
  */
-public abstract class AbstractBaseRepository<T> implements BaseRepository<T> {
-	protected final List<T> entities;
+public abstract class AbstractBaseRepository<T, S extends Storage<T>> implements BaseRepository<T> {
+	private final AtomicReference<DatasetSnapshot<S>> current;
+	private final Object writeLock = new Object();
 
 	/**
-	 * This constructor is used to set the path of the JSON file.
+	 * This constructor is used to load the objects of the JSON file into the storage.
+	 *
+	 * @param service        The service reading the JSON file.
+	 * @param clazz          The class of the objects.
+	 * @param storageFactory The factory creating the storage from the loaded objects.
 	 */
-	protected AbstractBaseRepository(JSONReaderDAO<T> service, Class<T> clazz) {
-		this.entities = service.getList(clazz);
+	protected AbstractBaseRepository(JSONReaderDAO<T> service, Class<T> clazz, Function<List<T>, S> storageFactory) {
+		this(() -> storageFactory.apply(service.getList(clazz)));
+	}
+
+	/**
+	 * This constructor is used to create the initial storage with a custom loader.
+	 *
+	 * @param loader The loader creating the initial storage.
+	 */
+	protected AbstractBaseRepository(Supplier<S> loader) {
+		this.current = new AtomicReference<>(new DatasetSnapshot<>(1, loader.get()));
 	}
 
 	/**
 	 * This method is used to return all objects of the corresponding list.
 	 *
-	 * @return The list of objects.
+	 * @return A read-only list of the objects of the current snapshot.
 	 */
 	@Override
 	public List<T> findAll() {
-		return entities;
+		return new StorageList<>(snapshot().getStorage());
+	}
+
+	/**
+	 * This method is used to return the current snapshot.
+	 *
+	 * @return The snapshot.
+	 */
+	public DatasetSnapshot<S> snapshot() {
+		return current.get();
+	}
+
+	/**
+	 * This method is used to return the version of the current snapshot.
+	 *
+	 * @return The version.
+	 */
+	public long getVersion() {
+		return snapshot().getVersion();
+	}
+
+	/**
+	 * This method is used to publish a new version of the data. Writers are serialized, readers are not blocked.
+	 *
+	 * @param update The function creating the new storage from the current one without changing it.
+	 * @return The published snapshot.
+	 */
+	protected DatasetSnapshot<S> publish(UnaryOperator<S> update) {
+		synchronized (writeLock) {
+			DatasetSnapshot<S> previous = current.get();
+			DatasetSnapshot<S> next = new DatasetSnapshot<>(previous.getVersion() + 1, update.apply(previous.getStorage()));
+			current.set(next);
+			return next;
+		}
+	}
+
+	/**
+	 * This class is used to provide a read-only list view of a storage.
+	 */
+	private static class StorageList<T> extends AbstractList<T> implements RandomAccess {
+		private final Storage<T> storage;
+
+		StorageList(Storage<T> storage) {
+			this.storage = storage;
+		}
+
+		@Override
+		public T get(int index) {
+			return storage.get(index);
+		}
+
+		@Override
+		public int size() {
+			return storage.size();
+		}
 	}
 }
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * This class is used to cache a computed result together with its sort permutations.
+ * The permutations are computed on first use and shared by all later views of the result. Like the stable sorts they
+ * replace, the labels are sorted in ascending and the values in descending order, keeping rows with the same value in
+ * their original order; the other order is the reversed view.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class CachedResult {
+	private final Entry[] rows;
+	private final Comparator<Entry> labelComparator;
+	private volatile int[] byLabel;
+	private volatile int[] byValue;
+
+	/**
+	 * This constructor is used to set the rows and the comparator of the label (commune or year).
+	 *
+	 * @param rows            The computed rows.
+	 * @param labelComparator The comparator of the label.
+	 */
+	public CachedResult(List<Entry> rows, Comparator<Entry> labelComparator) {
+		this.rows = rows.toArray(new Entry[0]);
+		this.labelComparator = labelComparator;
+	}
+
+	/**
+	 * This method is used to return a view of the rows sorted and ordered by the options.
+	 *
+	 * @param options The options object.
+	 * @return The sorted view of the rows.
+	 */
+	public List<Entry> view(Options options) {
+		if (options.getSort() == 1) {
+			return new PermutationView(rows, byLabel(), options.getOrder() == 2);
+		}
+		return new PermutationView(rows, byValue(), options.getOrder() == 2);
+	}
+
+	/**
+	 * This method is used to return a view of the rows sorted by the value in descending order.
+	 *
+	 * @param limit The maximum number of rows.
+	 * @return The sorted view of the rows.
+	 */
+	public List<Entry> highest(int limit) {
+		List<Entry> view = new PermutationView(rows, byValue(), false);
+		return view.subList(0, Math.min(limit, view.size()));
+	}
+
+	/**
+	 * This method is used to return the number of rows.
+	 *
+	 * @return The number of rows.
+	 */
+	public int size() {
+		return rows.length;
+	}
+
+	/**
+	 * This method is used to estimate the memory of the rows and the sort orders computed so far. The names of the
+	 * communes belong to the dictionary and are not included.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long heapBytes() {
+		long entries = rows.length * MemoryLayout.object(2 * Integer.BYTES + MemoryLayout.REFERENCE + Double.BYTES);
+		long permutations = 0;
+		for (int[] permutation : new int[][]{byLabel, byValue}) {
+			permutations += permutation == null ? 0 : MemoryLayout.array(permutation.length, Integer.BYTES);
+		}
+		return MemoryLayout.object(4L * MemoryLayout.REFERENCE) + MemoryLayout.references(rows.length) + entries
+				+ permutations;
+	}
+
+	private int[] byLabel() {
+		int[] permutation = byLabel;
+		if (permutation == null) {
+			permutation = sort(labelComparator);
+			byLabel = permutation;
+		}
+		return permutation;
+	}
+
+	private int[] byValue() {
+		int[] permutation = byValue;
+		if (permutation == null) {
+			permutation = sort(Comparator.comparingDouble(Entry::getMwh).reversed());
+			byValue = permutation;
+		}
+		return permutation;
+	}
+
+	private int[] sort(Comparator<Entry> comparator) {
+		return IntStream.range(0, rows.length)
+				.boxed()
+				.sorted((a, b) -> comparator.compare(rows[a], rows[b]))
+				.mapToInt(Integer::intValue)
+				.toArray();
+	}
+
+	/**
+	 * This class is used to iterate over the rows in the order of a permutation without copying them.
+	 */
+	private static class PermutationView extends AbstractList<Entry> implements RandomAccess {
+		private final Entry[] rows;
+		private final int[] permutation;
+		private final boolean reversed;
+
+		PermutationView(Entry[] rows, int[] permutation, boolean reversed) {
+			this.rows = rows;
+			this.permutation = permutation;
+			this.reversed = reversed;
+		}
+
+		@Override
+		public Entry get(int index) {
+			if (index < 0 || index >= permutation.length) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return rows[permutation[reversed ? permutation.length - 1 - index : index]];
+		}
+
+		@Override
+		public int size() {
+			return permutation.length;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * This class is used to represent one immutable version of the data of a repository.
+ * Structures derived from the data, like cached results, are kept with the version they were computed from.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class DatasetSnapshot<S> {
+	private final long version;
+	private final S storage;
+	private final Map<String, Object> derived = new ConcurrentHashMap<>();
+
+	/**
+	 * This constructor is used to set the version and the storage.
+	 *
+	 * @param version The version.
+	 * @param storage The storage, which must not be changed after publishing.
+	 */
+	public DatasetSnapshot(long version, S storage) {
+		this.version = version;
+		this.storage = storage;
+	}
+
+	/**
+	 * This method is used to return the version.
+	 *
+	 * @return The version, starting at 1 for the initially loaded data.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * This method is used to return the storage.
+	 *
+	 * @return The storage.
+	 */
+	public S getStorage() {
+		return storage;
+	}
+
+	/**
+	 * This method is used to return the values derived so far by their key.
+	 *
+	 * @return The derived values, which cannot be modified.
+	 */
+	public Map<String, Object> getDerived() {
+		return Collections.unmodifiableMap(derived);
+	}
+
+	/**
+	 * This method is used to return a structure derived from this version if it was already computed.
+	 *
+	 * @param key The key of the structure.
+	 * @return The derived structure, or null if it was not computed yet.
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V peek(String key) {
+		return (V) derived.get(key);
+	}
+
+	/**
+	 * This method is used to return a structure derived from this version, computing it on first access.
+	 *
+	 * @param key     The key of the structure.
+	 * @param compute The function computing the structure from the storage.
+	 * @return The derived structure.
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V derived(String key, Function<S, V> compute) {
+		return (V) derived.computeIfAbsent(key, k -> compute.apply(storage));
+	}
+}
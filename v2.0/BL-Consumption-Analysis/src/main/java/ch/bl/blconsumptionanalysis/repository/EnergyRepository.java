@@ -25,18 +25,56 @@
 
 package ch.bl.blconsumptionanalysis.repository;
 
+import ch.bl.blconsumptionanalysis.analysis.AnomalyDetector;
+import ch.bl.blconsumptionanalysis.analysis.TrendForecaster;
+import ch.bl.blconsumptionanalysis.dao.HierarchyReaderDAO;
 import ch.bl.blconsumptionanalysis.dao.JSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.AnomalyModel;
+import ch.bl.blconsumptionanalysis.model.AnomalyRow;
+import ch.bl.blconsumptionanalysis.model.AppendResult;
+import ch.bl.blconsumptionanalysis.model.CommuneHierarchy;
 import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.ForecastModel;
+import ch.bl.blconsumptionanalysis.model.ForecastRow;
+import ch.bl.blconsumptionanalysis.model.Functions;
 import ch.bl.blconsumptionanalysis.model.Options;
 import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryCost;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.model.QueryPlan;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.model.RollupRow;
+import ch.bl.blconsumptionanalysis.monitoring.FlightEvents;
+import ch.bl.blconsumptionanalysis.monitoring.IngestionEvent;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryFootprint;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+import ch.bl.blconsumptionanalysis.monitoring.MetricsRegistry;
+import ch.bl.blconsumptionanalysis.monitoring.QueryEvent;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryColumns;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryStorage;
+import ch.bl.blconsumptionanalysis.repository.storage.SegmentLog;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import ch.bl.blconsumptionanalysis.shard.ShardCoordinator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class is used to read the JSON files and to create a list of the corresponding objects.
@@ -45,10 +83,112 @@ import java.util.stream.Collectors;
  * @version 2.0
  */
 @Repository
-public class EnergyRepository extends AbstractBaseRepository<Entry> {
+public class EnergyRepository extends AbstractBaseRepository<Entry, EntryStorage> {
+	private final BiFunction<EntryStorage, List<Entry>, EntryStorage> appender;
+	private final SegmentLog segmentLog;
+	private final ShardCoordinator shards;
+	private final CommuneHierarchy hierarchy;
+	private final boolean checkAnomalies;
 
-	public EnergyRepository(JSONReaderDAO<Entry> service) {
-		super(service, Entry.class);
+	/**
+	 * This constructor is used to load the entries into the configured storage backend.
+	 * If a storage directory is configured, the entries are persisted in a {@link SegmentLog} there and later starts
+	 * map the existing segments instead of reading the JSON file again.
+	 * If shard workers are configured, the data stays on the workers and nothing is loaded here.
+	 *
+	 * @param service            The service reading the JSON file.
+	 * @param hierarchy          The service reading the districts and cantons of the communes.
+	 * @param backend            The storage backend.
+	 * @param directory          The directory of the segment log, or an empty string to keep the data in memory only.
+	 * @param checkpointInterval The number of appended segments after which a checkpoint is written.
+	 * @param shards             The coordinator of the shard workers.
+	 * @param checkAnomalies     Whether the appended years are checked for anomalies, see {@link #append(List)}.
+	 */
+	@Autowired
+	public EnergyRepository(JSONReaderDAO<Entry> service, HierarchyReaderDAO hierarchy,
+							@Value("${storage.backend:heap}") StorageBackend backend,
+							@Value("${storage.directory:}") String directory,
+							@Value("${storage.checkpoint-interval:8}") int checkpointInterval,
+							ShardCoordinator shards,
+							@Value("${anomalies.check-on-append:false}") boolean checkAnomalies) {
+		this(service, backend, directory.isBlank() || shards.isEnabled() ? null
+				: SegmentLog.open(Path.of(directory), checkpointInterval), shards, hierarchy.read(), checkAnomalies);
+	}
+
+	private EnergyRepository(JSONReaderDAO<Entry> service, StorageBackend backend, SegmentLog segmentLog,
+							 ShardCoordinator shards, CommuneHierarchy hierarchy, boolean checkAnomalies) {
+		super(() -> {
+			if (shards.isEnabled()) {
+				return backend.create(List.of());
+			}
+			List<Entry> entries = segmentLog == null || segmentLog.isEmpty() ? service.getList(Entry.class) : null;
+			IngestionEvent event = FlightEvents.beginIngestion();
+			long start = System.nanoTime();
+			EntryStorage storage;
+			if (segmentLog == null) {
+				storage = backend.create(entries);
+			} else if (entries != null) {
+				storage = segmentLog.append(segmentLog.storage(), entries);
+			} else {
+				storage = segmentLog.storage();
+			}
+			FlightEvents.recordIngestion(event, "load", segmentLog == null ? backend.name() : "segment log", 0,
+					storage.size());
+			MetricsRegistry.global().recordPhase("load", System.nanoTime() - start, storage.size());
+			return storage;
+		});
+		this.appender = segmentLog == null ? backend::append : segmentLog::append;
+		this.segmentLog = segmentLog;
+		this.shards = shards;
+		this.hierarchy = hierarchy;
+		this.checkAnomalies = checkAnomalies;
+	}
+
+	/**
+	 * This constructor is used to keep the entries in memory without persistence, with the bundled hierarchy of the
+	 * communes.
+	 *
+	 * @param service The service reading the JSON file.
+	 * @param backend The storage backend.
+	 * @param shards  The coordinator of the shard workers.
+	 */
+	public EnergyRepository(JSONReaderDAO<Entry> service, StorageBackend backend, ShardCoordinator shards) {
+		this(service, backend, null, shards, new HierarchyReaderDAO().read(), false);
+	}
+
+	/**
+	 * This method is used to write a final checkpoint of the segment log, if there is one.
+	 */
+	@PreDestroy
+	public void close() {
+		if (segmentLog != null) {
+			segmentLog.close();
+		}
+	}
+
+	/**
+	 * This method is used to append entries, for example the data of a new year, as a new version.
+	 * Queries running on the previous version are not affected. With a segment log the entries are durable once
+	 * this method returns. If enabled, the years of the appended communes are then checked for anomalies against
+	 * their previous years; the caller decides how to report them.
+	 *
+	 * @param entries The entries to append.
+	 * @return The version containing the entries and the detected anomalies, empty if the check is disabled.
+	 */
+	public AppendResult append(List<Entry> entries) {
+		if (shards.isEnabled()) {
+			throw new UnsupportedOperationException("Entries cannot be appended in sharded mode.");
+		}
+		IngestionEvent event = FlightEvents.beginIngestion();
+		long start = System.nanoTime();
+		long version = publish(storage -> appender.apply(storage, entries)).getVersion();
+		FlightEvents.recordIngestion(event, "append", segmentLog == null ? "memory" : "segment log", 0,
+				entries.size());
+		MetricsRegistry.global().recordPhase("append", System.nanoTime() - start, entries.size());
+		if (!checkAnomalies || entries.isEmpty()) {
+			return new AppendResult(version, List.of());
+		}
+		return new AppendResult(version, detectAnomalies(entries));
 	}
 
 	/**
@@ -58,27 +198,19 @@ public class EnergyRepository extends AbstractBaseRepository<Entry> {
 	 * @return The list of objects.
 	 */
 	public List<Entry> getAverageConsumptionPerCommune(Options options) {
-		Map<String, List<Entry>> communeToEntries = entities.stream()
-				.collect(Collectors.groupingBy(Entry::getCommune));
-
-		List<Entry> result = communeToEntries.entrySet().stream()
-				.map(entry -> {
-					String commune = entry.getKey();
-					List<Entry> entries = entry.getValue();
-					double totalConsumption = entries.stream()
-							.mapToDouble(Entry::getMwh)
-							.sum();
-					int count = entries.size();
-					double averageConsumption = totalConsumption / count;
-
-					Entry newEntry = new Entry();
-					newEntry.setCommune(commune);
-					newEntry.setMwh(averageConsumption);
-
-					return newEntry;
-				})
-				.collect(Collectors.toList());
-		return applyOptions(options, result, Comparator.comparing(Entry::getCommune));
+		return getAverageConsumptionPerCommune(options, QueryFilter.all());
+	}
+
+	/**
+	 * This method is used to return the average consumption per commune of the entries included by the filter.
+	 *
+	 * @param options The options object.
+	 * @param filter  The filter of the years and communes.
+	 * @return The list of objects.
+	 */
+	public List<Entry> getAverageConsumptionPerCommune(Options options, QueryFilter filter) {
+		return execute(new Query(Functions.AVERAGE_CONSUMPTION_PER_COMMUNE, options, filter, null, null, 0))
+				.getEntries();
 	}
 
 	/**
@@ -88,40 +220,19 @@ public class EnergyRepository extends AbstractBaseRepository<Entry> {
 	 * @return The list of objects.
 	 */
 	public List<Entry> getAverageConsumptionPerYear(Options options) {
-		Map<Integer, List<Entry>> yearToEntries = entities.stream()
-				.collect(Collectors.groupingBy(Entry::getYear));
-
-		List<Entry> result = yearToEntries.entrySet().stream()
-				.map(entry -> {
-					int year = entry.getKey();
-					List<Entry> entries = entry.getValue();
-					double totalConsumption = entries.stream()
-							.mapToDouble(Entry::getMwh)
-							.sum();
-					int count = entries.size();
-					double averageConsumption = totalConsumption / count;
-
-					Entry newEntry = new Entry();
-					newEntry.setYear(year);
-					newEntry.setMwh(averageConsumption);
-
-					return newEntry;
-				})
-				.collect(Collectors.toList());
-
-		return applyOptions(options, result, Comparator.comparing(Entry::getYear));
+		return getAverageConsumptionPerYear(options, QueryFilter.all());
 	}
 
-	private List<Entry> applyOptions(Options options, List<Entry> result, Comparator<Entry> comparing) {
-		if (options.getSort() == 1) {
-			result.sort(comparing);
-		} else {
-			result.sort(Comparator.comparingDouble(Entry::getMwh).reversed());
-		}
-		if (options.getOrder() == 2) {
-			Collections.reverse(result);
-		}
-		return result;
+	/**
+	 * This method is used to return the average consumption per year of the entries included by the filter.
+	 *
+	 * @param options The options object.
+	 * @param filter  The filter of the years and communes.
+	 * @return The list of objects.
+	 */
+	public List<Entry> getAverageConsumptionPerYear(Options options, QueryFilter filter) {
+		return execute(new Query(Functions.AVERAGE_CONSUMPTION_PER_YEAR, options, filter, null, null, 0))
+				.getEntries();
 	}
 
 	/**
@@ -130,21 +241,19 @@ public class EnergyRepository extends AbstractBaseRepository<Entry> {
 	 * @return The list of objects.
 	 */
 	public List<Entry> getHighestConsumers() {
-		Map<String, Double> totalConsumptionMap = entities.stream()
-				.collect(Collectors.groupingBy(Entry::getCommune, Collectors.summingDouble(Entry::getMwh)));
-
-		return totalConsumptionMap.entrySet().stream()
-				.map(entry -> {
-					String commune = entry.getKey();
-					double totalConsumption = entry.getValue();
-					Entry newEntry = new Entry();
-					newEntry.setCommune(commune);
-					newEntry.setMwh(totalConsumption);
-					return newEntry;
-				})
-				.sorted(Comparator.comparingDouble(Entry::getMwh).reversed())
-				.limit(10)
-				.collect(Collectors.toList());
+		return getHighestConsumers(10, QueryFilter.all());
+	}
+
+	/**
+	 * This method is used to return the communes with the highest total consumption.
+	 *
+	 * @param limit  The maximum number of communes.
+	 * @param filter The filter of the years and communes.
+	 * @return The communes in descending order of their total consumption.
+	 */
+	public List<Entry> getHighestConsumers(int limit, QueryFilter filter) {
+		return execute(new Query(Functions.HIGHEST_CONSUMERS, new Options(2, 1), filter, null, null, limit))
+				.getEntries();
 	}
 
 	/**
@@ -155,28 +264,400 @@ public class EnergyRepository extends AbstractBaseRepository<Entry> {
 	 * @return The list of objects.
 	 */
 	public Map<Integer, Pair> getComparisonOfTwoCommunes(String commune1, String commune2) {
+		return getComparisonOfTwoCommunes(commune1, commune2, QueryFilter.all());
+	}
+
+	/**
+	 * This method is used to return the consumption of two communes per year in the year range of the filter.
+	 *
+	 * @param commune1 The first commune.
+	 * @param commune2 The second commune.
+	 * @param filter   The filter of the years, its communes are ignored.
+	 * @return The consumption of both communes per year.
+	 */
+	public Map<Integer, Pair> getComparisonOfTwoCommunes(String commune1, String commune2, QueryFilter filter) {
+		return execute(new Query(Functions.COMPARISON_OF_TWO_COMMUNES, new Options(1, 1), filter, commune1, commune2, 0))
+				.getComparison();
+	}
+
+	/**
+	 * This method is used to return the total consumption per canton, district and commune, see
+	 * {@link CommuneHierarchy#rollup(List, Options)}.
+	 *
+	 * @param options The options object.
+	 * @param filter  The filter of the years and communes.
+	 * @return The rows of all levels.
+	 */
+	public List<RollupRow> getRollupByDistrict(Options options, QueryFilter filter) {
+		return execute(new Query(Functions.ROLLUP_BY_DISTRICT, options, filter, null, null, 0)).getRollup();
+	}
+
+	/**
+	 * This method is used to project the consumption of every commune included by the filter.
+	 *
+	 * @param options  The options object.
+	 * @param forecast The method and the number of years ahead.
+	 * @param filter   The filter of the years and communes.
+	 * @return The projected rows of each commune.
+	 */
+	public List<ForecastRow> getForecastPerCommune(Options options, ForecastModel forecast, QueryFilter filter) {
+		return execute(new Query(Functions.FORECAST_PER_COMMUNE, options, filter, null, null, 0, false, forecast))
+				.getForecast();
+	}
+
+	/**
+	 * This method is used to find the anomalous years of the communes included by the filter.
+	 *
+	 * @param anomalies The method, the window and the threshold.
+	 * @param limit     The maximum number of anomalies.
+	 * @param filter    The filter of the years and communes.
+	 * @return The anomalies, ranked by descending score.
+	 */
+	public List<AnomalyRow> getAnomaliesPerCommune(AnomalyModel anomalies, int limit, QueryFilter filter) {
+		return execute(new Query(Functions.ANOMALIES_PER_COMMUNE, new Options(2, 1), filter, null, null, limit, false,
+				null, anomalies)).getAnomalies();
+	}
+
+	/**
+	 * This method is used to return the sums and counts of the consumption per year. The totals of several
+	 * repositories can be merged, unlike the averages.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The totals with the years as keys.
+	 */
+	public GroupTotals getTotalsPerYear(QueryFilter filter) {
+		SharedScan scan = new SharedScan(snapshot().getStorage());
+		GroupTotals totals = scan.totalsPerYear(filter);
+		scan.run();
+		return totals;
+	}
+
+	/**
+	 * This method is used to iterate over the entries included by the filter, in storage order.
+	 * The entries are read lazily from the current snapshot, so the result is never materialized as a whole.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The iterator of the entries.
+	 */
+	public Iterator<Entry> entries(QueryFilter filter) {
+		if (shards.isEnabled()) {
+			throw new UnsupportedOperationException("Entries cannot be streamed in sharded mode.");
+		}
+		return new EntryIterator(snapshot().getStorage(), filter);
+	}
+
+	/**
+	 * This method is used to estimate the cost of executing queries together on the current version of the data,
+	 * from the size of the storage and the number of groups of each result. Cached results cost only their groups and
+	 * all other queries share one scan of all rows. In sharded mode the rows are on the workers and only the groups
+	 * are counted.
+	 *
+	 * @param queries The queries.
+	 * @return The estimated cost.
+	 */
+	public QueryCost estimateCost(List<Query> queries) {
+		DatasetSnapshot<EntryStorage> snapshot = snapshot();
+		EntryStorage storage = snapshot.getStorage();
+		boolean[] cached = cached(queries, snapshot);
+		int hits = 0;
+		long groups = 0;
+		for (int i = 0; i < cached.length; ++i) {
+			hits += cached[i] ? 1 : 0;
+			groups += groups(queries.get(i), storage);
+		}
+		boolean scan = hits < cached.length && !shards.isEnabled();
+		return new QueryCost(queries.size(), hits, scan ? storage.size() : 0, scan ? storage.chunks().size() : 0,
+				groups);
+	}
+
+	/**
+	 * This method is used to estimate the memory of the current version of the data, broken down by structure.
+	 * The totals per commune and per year are allocated by each scan and are reported for capacity planning.
+	 *
+	 * @return The memory footprint.
+	 */
+	public MemoryFootprint footprint() {
+		DatasetSnapshot<EntryStorage> snapshot = snapshot();
+		EntryStorage storage = snapshot.getStorage();
+		CommuneDictionary dictionary = storage.dictionary();
+		List<EntryColumns> chunks = storage.chunks();
+		MemoryFootprint footprint = new MemoryFootprint(snapshot.getVersion(), storage.size(), dictionary.size(),
+				chunks.size());
+		footprint.add("column chunks", "records", chunks.stream().mapToLong(EntryColumns::heapBytes).sum(),
+				chunks.stream().mapToLong(EntryColumns::nativeBytes).sum(), true);
+		footprint.add("commune names", "strings", dictionary.namesBytes(), 0, true);
+		footprint.add("commune ids", "dictionary", dictionary.lookupBytes(), 0, true);
+		footprint.add("chunk offsets", "index", MemoryLayout.references(chunks.size())
+				+ MemoryLayout.array(chunks.size(), Integer.BYTES), 0, true);
+		for (Map.Entry<String, Object> derived : new TreeMap<>(snapshot.getDerived()).entrySet()) {
+			footprint.add(derived.getKey(), "cache", ((CachedResult) derived.getValue()).heapBytes(), 0,
+					!derived.getKey().equals(cacheName(Functions.AVERAGE_CONSUMPTION_PER_YEAR)));
+		}
+		footprint.add("totals per commune (scan)", "aggregates", GroupTotals.bytes(dictionary.size()), 0, true);
+		footprint.add("totals per year (scan)", "aggregates",
+				GroupTotals.bytes(storage.maxYear() - storage.minYear() + 1), 0, false);
+		return footprint;
+	}
+
+	/**
+	 * This method is used to execute a query.
+	 *
+	 * @param query The query.
+	 * @return The result of the query.
+	 */
+	public QueryResult execute(Query query) {
+		return executeBatch(List.of(query)).get(0);
+	}
+
+	/**
+	 * This method is used to execute several queries on the same version of the data.
+	 * Results that are cached are returned directly, all other queries share a single pass over the data.
+	 * The duration of the batch is recorded for each of its queries in the {@link MetricsRegistry}, and the results of
+	 * {@link Query#explained() explained} queries contain their {@link QueryPlan}.
+	 *
+	 * @param queries The queries.
+	 * @return The results in the order of the queries.
+	 */
+	public List<QueryResult> executeBatch(List<Query> queries) {
+		QueryEvent[] events = FlightEvents.beginQueries(queries);
+		long start = System.nanoTime();
+		DatasetSnapshot<EntryStorage> snapshot = snapshot();
+		boolean[] cached = cached(queries, snapshot);
+		long planning = System.nanoTime();
+		SharedScan scan = new SharedScan(snapshot.getStorage());
+		List<Supplier<QueryResult>> plans = queries.stream()
+				.map(query -> plan(query, snapshot, scan))
+				.collect(Collectors.toList());
+		long scanning = System.nanoTime();
+		scan.run();
+		long scanned = System.nanoTime();
+		List<QueryResult> results = new ArrayList<>(plans.size());
+		for (int i = 0; i < plans.size(); ++i) {
+			long materializing = System.nanoTime();
+			QueryResult result = plans.get(i).get();
+			if (queries.get(i).isExplain()) {
+				Map<String, Long> stages = new LinkedHashMap<>();
+				stages.put("snapshot", planning - start);
+				stages.put("plan", scanning - planning);
+				stages.put("scan", scanned - scanning);
+				stages.put("result", System.nanoTime() - materializing);
+				result = result.withPlan(explain(queries.get(i), snapshot, cached[i], scan, queries.size(), stages));
+			}
+			results.add(result);
+		}
+		long elapsed = System.nanoTime() - start;
+		for (int i = 0; i < cached.length; ++i) {
+			MetricsRegistry.global().recordQuery(queries.get(i).getFunction(), elapsed, cached[i],
+					cached[i] ? 0 : scan.getRowsScanned());
+		}
+		FlightEvents.commitQueries(events, results, cached, scan.getRowsScanned());
+		return results;
+	}
 
-		return entities.stream()
-				.filter(entry -> entry.getCommune().equalsIgnoreCase(commune1)
-						|| entry.getCommune().equalsIgnoreCase(commune2))
-				.collect(
-						Collectors.groupingBy(
-								Entry::getYear,
-								TreeMap::new,
-								Collectors.collectingAndThen(
-										Collectors.toMap(
-												Entry::getCommune,
-												Entry::getMwh,
-												Double::sum
-										),
-										map -> {
-											double consumption1 = map.getOrDefault(commune1, 0.0);
-											double consumption2 = map.getOrDefault(commune2, 0.0);
-											return new Pair(consumption1, consumption2);
-										}
-								)
-						)
-				);
+	private static long groups(Query query, EntryStorage storage) {
+		QueryFilter filter = query.getFilter();
+		long years = Math.max(0, (long) Math.min(storage.maxYear(), filter.getToYear())
+				- Math.max(storage.minYear(), filter.getFromYear()) + 1);
+		long communes = filter.getCommunes().isEmpty() ? storage.dictionary().size() : filter.getCommunes().size();
+		switch (query.getFunction()) {
+			case AVERAGE_CONSUMPTION_PER_COMMUNE:
+			case HIGHEST_CONSUMERS:
+			case ROLLUP_BY_DISTRICT:
+				return communes;
+			case FORECAST_PER_COMMUNE:
+				return communes * query.getForecast().getHorizon();
+			case ANOMALIES_PER_COMMUNE:
+				return communes * years;
+			default:
+				return years;
+		}
 	}
 
+	/**
+	 * This method is used to check which queries are answered from the cache of a snapshot before they are planned.
+	 */
+	private boolean[] cached(List<Query> queries, DatasetSnapshot<EntryStorage> snapshot) {
+		boolean[] cached = new boolean[queries.size()];
+		for (int i = 0; i < cached.length; ++i) {
+			String name = cacheName(queries.get(i).getFunction());
+			cached[i] = !shards.isEnabled() && name != null && queries.get(i).getFilter().isAll()
+					&& snapshot.peek(name) != null;
+		}
+		return cached;
+	}
+
+	private static String cacheName(Functions function) {
+		switch (function) {
+			case AVERAGE_CONSUMPTION_PER_YEAR:
+				return "averagePerYear";
+			case AVERAGE_CONSUMPTION_PER_COMMUNE:
+				return "averagePerCommune";
+			case HIGHEST_CONSUMERS:
+			case ROLLUP_BY_DISTRICT:
+				return "totalPerCommune";
+			default:
+				return null;
+		}
+	}
+
+	private QueryPlan explain(Query query, DatasetSnapshot<EntryStorage> snapshot, boolean cached, SharedScan scan,
+							  int batchSize, Map<String, Long> stages) {
+		String cache = cacheName(query.getFunction());
+		if (cached) {
+			return new QueryPlan(QueryPlan.Access.CACHE, "Cached " + cache + " of version " + snapshot.getVersion(),
+					0, 0, 0, batchSize, stages);
+		}
+		if (shards.isEnabled()) {
+			return new QueryPlan(QueryPlan.Access.SHARDS, "Partial results of " + shards.getWorkers()
+					+ " shard workers, merged by the coordinator", 0, 0, 0, batchSize, stages);
+		}
+		QueryFilter filter = query.getFilter();
+		String years = "years " + filter.getFromYear() + " to " + filter.getToYear();
+		if (filter.getFromYear() == Integer.MIN_VALUE) {
+			years = filter.getToYear() == Integer.MAX_VALUE ? "all years" : "years until " + filter.getToYear();
+		} else if (filter.getToYear() == Integer.MAX_VALUE) {
+			years = "years from " + filter.getFromYear();
+		}
+		String communes = filter.getCommunes().isEmpty() ? "all communes" : filter.getCommunes().size() + " communes";
+		String description = "Scan of " + scan.getRowsScanned() + " rows in " + scan.getChunksScanned()
+				+ " chunks for " + years + " and " + communes;
+		if (cache != null && filter.isAll()) {
+			description += ", result cached as " + cache;
+		}
+		return new QueryPlan(QueryPlan.Access.SCAN, description, scan.getRowsScanned(), scan.getChunksScanned(),
+				scan.getAggregates(), batchSize, stages);
+	}
+
+	private Supplier<QueryResult> plan(Query query, DatasetSnapshot<EntryStorage> snapshot, SharedScan scan) {
+		long version = snapshot.getVersion();
+		QueryFilter filter = query.getFilter();
+		String cache = cacheName(query.getFunction());
+		CommuneDictionary dictionary = snapshot.getStorage().dictionary();
+		switch (query.getFunction()) {
+			case AVERAGE_CONSUMPTION_PER_YEAR:
+				Supplier<CachedResult> perYear = planResult(snapshot, cache, filter, () -> {
+					if (shards.isEnabled()) {
+						return () -> perYear(shards.getAverageConsumptionPerYear(filter));
+					}
+					GroupTotals totals = scan.totalsPerYear(filter);
+					return () -> averagePerYear(totals);
+				});
+				return () -> new QueryResult(query, version, perYear.get().view(query.getOptions()), null);
+			case AVERAGE_CONSUMPTION_PER_COMMUNE:
+				Supplier<CachedResult> perCommune = planResult(snapshot, cache, filter, () -> {
+					if (shards.isEnabled()) {
+						return () -> perCommune(shards.getAverageConsumptionPerCommune(filter));
+					}
+					GroupTotals totals = scan.totalsPerCommune(filter);
+					return () -> averagePerCommune(totals, dictionary);
+				});
+				return () -> new QueryResult(query, version, perCommune.get().view(query.getOptions()), null);
+			case HIGHEST_CONSUMERS:
+				if (shards.isEnabled()) {
+					return () -> new QueryResult(query, version, shards.getHighestConsumers(query.getLimit(), filter), null);
+				}
+				Supplier<CachedResult> totalPerCommune = planResult(snapshot, cache, filter, () -> {
+					GroupTotals totals = scan.totalsPerCommune(filter);
+					return () -> totalPerCommune(totals, dictionary);
+				});
+				return () -> new QueryResult(query, version, totalPerCommune.get().highest(query.getLimit()), null);
+			case COMPARISON_OF_TWO_COMMUNES:
+				if (shards.isEnabled()) {
+					return () -> new QueryResult(query, version, null,
+							shards.getComparisonOfTwoCommunes(query.getCommune1(), query.getCommune2(), filter));
+				}
+				Map<Integer, Pair> comparison = scan.comparison(query.getCommune1(), query.getCommune2(), filter);
+				return () -> new QueryResult(query, version, null, comparison);
+			case ROLLUP_BY_DISTRICT:
+				// Only the finest level is aggregated from the rows, the districts and cantons from its groups.
+				if (shards.isEnabled()) {
+					return () -> new QueryResult(query, version, hierarchy.rollup(
+							shards.getHighestConsumers(Integer.MAX_VALUE, filter), query.getOptions()));
+				}
+				Supplier<CachedResult> communeTotals = planResult(snapshot, cache, filter, () -> {
+					GroupTotals totals = scan.totalsPerCommune(filter);
+					return () -> totalPerCommune(totals, dictionary);
+				});
+				return () -> new QueryResult(query, version,
+						hierarchy.rollup(communeTotals.get().view(new Options(1, 1)), query.getOptions()));
+			case FORECAST_PER_COMMUNE:
+				// The series are filled by the scan, the communes are fitted in parallel afterwards.
+				if (shards.isEnabled()) {
+					throw new UnsupportedOperationException("Forecasts are not supported in sharded mode.");
+				}
+				YearSeries series = scan.yearSeries(filter);
+				return () -> QueryResult.forecast(query, version,
+						TrendForecaster.forecast(series, dictionary, query.getForecast(), query.getOptions()));
+			case ANOMALIES_PER_COMMUNE:
+				// Shares the series with the forecasts of the same batch.
+				if (shards.isEnabled()) {
+					throw new UnsupportedOperationException("Anomaly detection is not supported in sharded mode.");
+				}
+				YearSeries anomalySeries = scan.yearSeries(filter);
+				return () -> QueryResult.anomalies(query, version,
+						AnomalyDetector.detect(anomalySeries, dictionary, query.getAnomalies(), query.getLimit()));
+			default:
+				throw new IllegalArgumentException("Unknown function " + query.getFunction());
+		}
+	}
+
+	/**
+	 * This method is used to detect the anomalies of the appended years, compared with the previous years of the same
+	 * communes in the new version.
+	 */
+	private List<AnomalyRow> detectAnomalies(List<Entry> entries) {
+		int since = entries.stream().mapToInt(Entry::getYear).min().orElseThrow();
+		Set<String> communes = entries.stream().map(Entry::getCommune).collect(Collectors.toUnmodifiableSet());
+		AnomalyModel model = new AnomalyModel(AnomalyModel.Method.MAD, AnomalyModel.DEFAULT_WINDOW,
+				AnomalyModel.Method.MAD.getDefaultThreshold(), since);
+		return getAnomaliesPerCommune(model, Integer.MAX_VALUE,
+				new QueryFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, communes));
+	}
+
+	/**
+	 * This method is used to return a cached result, or to register what is needed to compute it.
+	 * Unfiltered results are added to the cache of the snapshot once they are computed.
+	 */
+	private Supplier<CachedResult> planResult(DatasetSnapshot<EntryStorage> snapshot, String name, QueryFilter filter,
+											  Supplier<Supplier<CachedResult>> register) {
+		if (!filter.isAll()) {
+			return register.get();
+		}
+		CachedResult cached = snapshot.peek(name);
+		if (cached != null) {
+			return () -> cached;
+		}
+		Supplier<CachedResult> pending = register.get();
+		return () -> snapshot.derived(name, storage -> pending.get());
+	}
+
+	private CachedResult averagePerCommune(GroupTotals totals, CommuneDictionary dictionary) {
+		return perCommune(IntStream.range(0, totals.groups())
+				.filter(id -> totals.count(id) > 0)
+				.mapToObj(id -> new Entry(0, dictionary.bfsNumber(id), dictionary.name(id),
+						totals.sum(id) / totals.count(id)))
+				.collect(Collectors.toList()));
+	}
+
+	private CachedResult averagePerYear(GroupTotals totals) {
+		return perYear(IntStream.range(0, totals.groups())
+				.filter(group -> totals.count(group) > 0)
+				.mapToObj(group -> new Entry(totals.key(group), null, totals.sum(group) / totals.count(group)))
+				.collect(Collectors.toList()));
+	}
+
+	private CachedResult totalPerCommune(GroupTotals totals, CommuneDictionary dictionary) {
+		return perCommune(IntStream.range(0, totals.groups())
+				.filter(id -> totals.count(id) > 0)
+				.mapToObj(id -> new Entry(0, dictionary.bfsNumber(id), dictionary.name(id), totals.sum(id)))
+				.collect(Collectors.toList()));
+	}
+
+	private CachedResult perCommune(List<Entry> result) {
+		return new CachedResult(result, Comparator.comparing(Entry::getCommune));
+	}
+
+	private CachedResult perYear(List<Entry> result) {
+		return new CachedResult(result, Comparator.comparing(Entry::getYear));
+	}
 }
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.repository;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryColumns;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryStorage;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is used to iterate over the rows of a storage that are included by a filter.
+ * <p>
+ * The rows are read from the columns one at a time, so only the current row is materialized as an entry.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+final class EntryIterator implements Iterator<Entry> {
+	private final EntryStorage storage;
+	private final QueryFilter filter;
+	private final boolean[] communes;
+	private int chunk;
+	private int row = -1;
+	private boolean advanced;
+
+	/**
+	 * This constructor is used to set the storage and the filter.
+	 *
+	 * @param storage The storage.
+	 * @param filter  The filter of the years and communes.
+	 */
+	EntryIterator(EntryStorage storage, QueryFilter filter) {
+		this.storage = storage;
+		this.filter = filter;
+		this.communes = SharedScan.communeMask(storage.dictionary(), filter);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!advanced) {
+			advance();
+			advanced = true;
+		}
+		return chunk < storage.chunks().size();
+	}
+
+	@Override
+	public Entry next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		advanced = false;
+		EntryColumns columns = storage.chunks().get(chunk);
+		int communeId = columns.communeId(row);
+		return new Entry(columns.year(row), storage.dictionary().bfsNumber(communeId),
+				storage.dictionary().name(communeId), columns.mwh(row));
+	}
+
+	private void advance() {
+		++row;
+		while (chunk < storage.chunks().size()) {
+			EntryColumns columns = storage.chunks().get(chunk);
+			for (; row < columns.rows(); ++row) {
+				if ((communes == null || communes[columns.communeId(row)]) && filter.includesYear(columns.year(row))) {
+					return;
+				}
+			}
+			++chunk;
+			row = 0;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+/**
+ * This class is used to sum up values and count them per group, where the groups are dense int keys.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class GroupTotals {
+	private final int firstKey;
+	private final double[] sums;
+	private final long[] counts;
+
+	/**
+	 * This constructor is used to allocate the totals for the keys 0 to groups - 1.
+	 *
+	 * @param groups The number of groups.
+	 */
+	public GroupTotals(int groups) {
+		this(0, groups);
+	}
+
+	/**
+	 * This constructor is used to allocate the totals for the keys firstKey to firstKey + groups - 1.
+	 *
+	 * @param firstKey The key of the first group, for example the first year.
+	 * @param groups   The number of groups.
+	 */
+	public GroupTotals(int firstKey, int groups) {
+		this.firstKey = firstKey;
+		this.sums = new double[Math.max(groups, 0)];
+		this.counts = new long[Math.max(groups, 0)];
+	}
+
+	/**
+	 * This method is used to estimate the memory of totals with a number of groups, see {@link MemoryLayout}.
+	 *
+	 * @param groups The number of groups.
+	 * @return The size in bytes.
+	 */
+	public static long bytes(int groups) {
+		int length = Math.max(groups, 0);
+		return MemoryLayout.object(Integer.BYTES + 2L * MemoryLayout.REFERENCE)
+				+ MemoryLayout.array(length, Double.BYTES) + MemoryLayout.array(length, Long.BYTES);
+	}
+
+	/**
+	 * This method is used to add a value to a group.
+	 *
+	 * @param group The group.
+	 * @param value The value.
+	 */
+	public void add(int group, double value) {
+		sums[group] += value;
+		++counts[group];
+	}
+
+	/**
+	 * This method is used to add the totals of another instance with the same groups.
+	 *
+	 * @param other The other totals.
+	 */
+	public void merge(GroupTotals other) {
+		for (int group = 0; group < sums.length; ++group) {
+			sums[group] += other.sums[group];
+			counts[group] += other.counts[group];
+		}
+	}
+
+	/**
+	 * This method is used to return the number of groups.
+	 *
+	 * @return The number of groups.
+	 */
+	public int groups() {
+		return sums.length;
+	}
+
+	/**
+	 * This method is used to return the key of a group.
+	 *
+	 * @param group The group.
+	 * @return The key.
+	 */
+	public int key(int group) {
+		return firstKey + group;
+	}
+
+	/**
+	 * This method is used to return the sum of a group.
+	 *
+	 * @param group The group.
+	 * @return The sum.
+	 */
+	public double sum(int group) {
+		return sums[group];
+	}
+
+	/**
+	 * This method is used to return the number of values of a group.
+	 *
+	 * @param group The group.
+	 * @return The count.
+	 */
+	public long count(int group) {
+		return counts[group];
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryColumns;
+import ch.bl.blconsumptionanalysis.repository.storage.EntryStorage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+
+/**
+ * This class is used to compute several aggregates with a single pass over a storage.
+ * <p>
+ * The aggregates are registered first, each registration returns the object that is filled by {@link #run()}.
+ * Registering the same aggregate twice returns the same object, so it is only computed once.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class SharedScan {
+	private final EntryStorage storage;
+	private final Map<List<Object>, Accumulator> accumulators = new LinkedHashMap<>();
+	private long rowsScanned;
+	private int chunksScanned;
+	private int aggregates;
+
+	/**
+	 * This constructor is used to set the storage to scan.
+	 *
+	 * @param storage The storage.
+	 */
+	public SharedScan(EntryStorage storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * This method is used to register the sums and counts per commune id.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The totals, filled by {@link #run()}.
+	 */
+	public GroupTotals totalsPerCommune(QueryFilter filter) {
+		return ((CommuneTotals) accumulators.computeIfAbsent(List.of("commune", filter),
+				key -> new CommuneTotals(filter, communeMask(storage.dictionary(), filter),
+						storage.dictionary().size()))).totals;
+	}
+
+	/**
+	 * This method is used to register the sums and counts per year.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The totals with the years as keys, filled by {@link #run()}.
+	 */
+	public GroupTotals totalsPerYear(QueryFilter filter) {
+		return ((YearTotals) accumulators.computeIfAbsent(List.of("year", filter), key -> {
+			int minYear = Math.max(storage.minYear(), filter.getFromYear());
+			int maxYear = Math.min(storage.maxYear(), filter.getToYear());
+			return new YearTotals(communeMask(storage.dictionary(), filter), minYear, maxYear);
+		})).totals;
+	}
+
+	/**
+	 * This method is used to register the sums per commune id and year, so every commune has a time series.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The series of all communes, filled by {@link #run()}. Excluded communes have no values.
+	 */
+	public YearSeries yearSeries(QueryFilter filter) {
+		return ((CommuneYearTotals) accumulators.computeIfAbsent(List.of("series", filter), key -> {
+			int minYear = Math.max(storage.minYear(), filter.getFromYear());
+			int maxYear = Math.min(storage.maxYear(), filter.getToYear());
+			return new CommuneYearTotals(communeMask(storage.dictionary(), filter),
+					new YearSeries(storage.dictionary().size(), minYear, maxYear));
+		})).series;
+	}
+
+	/**
+	 * This method is used to register the consumption of two communes per year.
+	 *
+	 * @param commune1 The first commune.
+	 * @param commune2 The second commune.
+	 * @param filter   The filter of the years, its communes are ignored.
+	 * @return The consumption of both communes per year, filled by {@link #run()}.
+	 */
+	public Map<Integer, Pair> comparison(String commune1, String commune2, QueryFilter filter) {
+		int id1 = storage.dictionary().idIgnoreCase(commune1);
+		int id2 = storage.dictionary().idIgnoreCase(commune2);
+		List<Object> key = List.of("comparison", id1, id2, filter.getFromYear(), filter.getToYear());
+		return ((Comparison) accumulators.computeIfAbsent(key, k -> new Comparison(filter, id1, id2))).result;
+	}
+
+	/**
+	 * This method is used to scan the storage once and to feed every row to all registered aggregates.
+	 * The scan stops before the next chunk if the thread is interrupted.
+	 *
+	 * @throws CancellationException If the thread is interrupted.
+	 */
+	public void run() {
+		Accumulator[] targets = accumulators.values().toArray(new Accumulator[0]);
+		aggregates += targets.length;
+		if (targets.length == 0) {
+			return;
+		}
+		for (EntryColumns chunk : storage.chunks()) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("The scan was cancelled after " + rowsScanned + " rows");
+			}
+			int rows = chunk.rows();
+			for (int row = 0; row < rows; ++row) {
+				int year = chunk.year(row);
+				int communeId = chunk.communeId(row);
+				double mwh = chunk.mwh(row);
+				for (Accumulator target : targets) {
+					target.accept(year, communeId, mwh);
+				}
+			}
+			rowsScanned += rows;
+			++chunksScanned;
+		}
+		accumulators.clear();
+	}
+
+	/**
+	 * This method is used to return the number of rows read by {@link #run()}.
+	 *
+	 * @return The number of rows.
+	 */
+	public long getRowsScanned() {
+		return rowsScanned;
+	}
+
+	/**
+	 * This method is used to return the number of chunks read by {@link #run()}.
+	 *
+	 * @return The number of chunks.
+	 */
+	public int getChunksScanned() {
+		return chunksScanned;
+	}
+
+	/**
+	 * This method is used to return the number of aggregates that were filled by {@link #run()}. Queries with the same
+	 * aggregate and filter share it.
+	 *
+	 * @return The number of aggregates.
+	 */
+	public int getAggregates() {
+		return aggregates;
+	}
+
+	/**
+	 * This method is used to return which commune ids are included by a filter.
+	 *
+	 * @param dictionary The dictionary of the storage.
+	 * @param filter     The filter.
+	 * @return The included commune ids, or null if all communes are included.
+	 */
+	static boolean[] communeMask(CommuneDictionary dictionary, QueryFilter filter) {
+		if (filter.getCommunes().isEmpty()) {
+			return null;
+		}
+		boolean[] mask = new boolean[dictionary.size()];
+		filter.getCommunes().stream()
+				.mapToInt(dictionary::idIgnoreCase)
+				.filter(id -> id >= 0)
+				.forEach(id -> mask[id] = true);
+		return mask;
+	}
+
+	/**
+	 * This interface is used to consume the rows of the scan.
+	 */
+	private interface Accumulator {
+		void accept(int year, int communeId, double mwh);
+	}
+
+	private static final class CommuneTotals implements Accumulator {
+		private final QueryFilter filter;
+		private final boolean[] communes;
+		private final GroupTotals totals;
+
+		CommuneTotals(QueryFilter filter, boolean[] communes, int groups) {
+			this.filter = filter;
+			this.communes = communes;
+			this.totals = new GroupTotals(groups);
+		}
+
+		@Override
+		public void accept(int year, int communeId, double mwh) {
+			if ((communes == null || communes[communeId]) && filter.includesYear(year)) {
+				totals.add(communeId, mwh);
+			}
+		}
+	}
+
+	private static final class YearTotals implements Accumulator {
+		private final boolean[] communes;
+		private final int minYear;
+		private final int maxYear;
+		private final GroupTotals totals;
+
+		YearTotals(boolean[] communes, int minYear, int maxYear) {
+			this.communes = communes;
+			this.minYear = minYear;
+			this.maxYear = maxYear;
+			this.totals = new GroupTotals(minYear, maxYear - minYear + 1);
+		}
+
+		@Override
+		public void accept(int year, int communeId, double mwh) {
+			if (year >= minYear && year <= maxYear && (communes == null || communes[communeId])) {
+				totals.add(year - minYear, mwh);
+			}
+		}
+	}
+
+	private static final class CommuneYearTotals implements Accumulator {
+		private final boolean[] communes;
+		private final YearSeries series;
+		private final int minYear;
+		private final int maxYear;
+
+		CommuneYearTotals(boolean[] communes, YearSeries series) {
+			this.communes = communes;
+			this.series = series;
+			this.minYear = series.firstYear();
+			this.maxYear = series.firstYear() + series.years() - 1;
+		}
+
+		@Override
+		public void accept(int year, int communeId, double mwh) {
+			if (year >= minYear && year <= maxYear && (communes == null || communes[communeId])) {
+				series.add(communeId, year, mwh);
+			}
+		}
+	}
+
+	private static final class Comparison implements Accumulator {
+		private final QueryFilter filter;
+		private final int id1;
+		private final int id2;
+		private final TreeMap<Integer, Pair> result = new TreeMap<>();
+
+		Comparison(QueryFilter filter, int id1, int id2) {
+			this.filter = filter;
+			this.id1 = id1;
+			this.id2 = id2;
+		}
+
+		@Override
+		public void accept(int year, int communeId, double mwh) {
+			if ((communeId == id1 || communeId == id2) && filter.includesYear(year)) {
+				Pair pair = result.computeIfAbsent(year, key -> new Pair(0.0, 0.0));
+				if (communeId == id1) {
+					pair.setFirst(pair.getFirst() + mwh);
+				}
+				if (communeId == id2) {
+					pair.setSecond(pair.getSecond() + mwh);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+/**
+ * This class is used to sum up the consumption per commune id and year, so every commune has a time series.
+ * The sums are stored in one array with a row per commune and a column per year of the range.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class YearSeries {
+	private final int firstYear;
+	private final int years;
+	private final double[] sums;
+	private final boolean[] present;
+
+	/**
+	 * This constructor is used to allocate the series of the communes 0 to communes - 1 and the years firstYear to
+	 * lastYear.
+	 *
+	 * @param communes  The number of communes.
+	 * @param firstYear The first year.
+	 * @param lastYear  The last year.
+	 */
+	public YearSeries(int communes, int firstYear, int lastYear) {
+		this.firstYear = firstYear;
+		this.years = Math.max(lastYear - firstYear + 1, 0);
+		this.sums = new double[communes * years];
+		this.present = new boolean[communes * years];
+	}
+
+	/**
+	 * This method is used to add a value to the series of a commune.
+	 *
+	 * @param communeId The commune id.
+	 * @param year      The year, it must be in the range.
+	 * @param value     The value.
+	 */
+	public void add(int communeId, int year, double value) {
+		int cell = communeId * years + year - firstYear;
+		sums[cell] += value;
+		present[cell] = true;
+	}
+
+	/**
+	 * This method is used to return the number of communes.
+	 *
+	 * @return The number of communes.
+	 */
+	public int communes() {
+		return years == 0 ? 0 : sums.length / years;
+	}
+
+	/**
+	 * This method is used to return the first year of the range.
+	 *
+	 * @return The first year.
+	 */
+	public int firstYear() {
+		return firstYear;
+	}
+
+	/**
+	 * This method is used to return the number of years of the range.
+	 *
+	 * @return The number of years.
+	 */
+	public int years() {
+		return years;
+	}
+
+	/**
+	 * This method is used to check whether a commune has values in a year.
+	 *
+	 * @param communeId The commune id.
+	 * @param index     The index of the year, 0 is the first year.
+	 * @return True if there are values.
+	 */
+	public boolean has(int communeId, int index) {
+		return present[communeId * years + index];
+	}
+
+	/**
+	 * This method is used to return the sum of a commune in a year.
+	 *
+	 * @param communeId The commune id.
+	 * @param index     The index of the year, 0 is the first year.
+	 * @return The sum.
+	 */
+	public double sum(int communeId, int index) {
+		return sums[communeId * years + index];
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is used to combine the chunks of a storage into one row range.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class ChunkedEntryStorage implements EntryStorage {
+	private final CommuneDictionary dictionary;
+	private final List<EntryColumns> chunks;
+	private final int[] starts;
+	private final int size;
+	private final int minYear;
+	private final int maxYear;
+
+	/**
+	 * This constructor is used to set the dictionary and the chunks.
+	 *
+	 * @param dictionary The commune dictionary.
+	 * @param chunks     The chunks in row order.
+	 */
+	public ChunkedEntryStorage(CommuneDictionary dictionary, List<EntryColumns> chunks) {
+		this.dictionary = dictionary;
+		this.chunks = List.copyOf(chunks);
+		this.starts = new int[this.chunks.size()];
+		int rows = 0;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (int i = 0; i < starts.length; ++i) {
+			EntryColumns chunk = this.chunks.get(i);
+			starts[i] = rows;
+			rows += chunk.rows();
+			for (int row = 0; row < chunk.rows(); ++row) {
+				min = Math.min(min, chunk.year(row));
+				max = Math.max(max, chunk.year(row));
+			}
+		}
+		this.size = rows;
+		this.minYear = rows == 0 ? 0 : min;
+		this.maxYear = rows == 0 ? -1 : max;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Entry get(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException(row);
+		}
+		int index = Arrays.binarySearch(starts, row);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		while (chunks.get(index).rows() == 0) {
+			++index;
+		}
+		EntryColumns chunk = chunks.get(index);
+		int offset = row - starts[index];
+		int communeId = chunk.communeId(offset);
+		return new Entry(chunk.year(offset), dictionary.bfsNumber(communeId), dictionary.name(communeId),
+				chunk.mwh(offset));
+	}
+
+	@Override
+	public List<EntryColumns> chunks() {
+		return chunks;
+	}
+
+	@Override
+	public CommuneDictionary dictionary() {
+		return dictionary;
+	}
+
+	@Override
+	public int minYear() {
+		return minYear;
+	}
+
+	@Override
+	public int maxYear() {
+		return maxYear;
+	}
+}
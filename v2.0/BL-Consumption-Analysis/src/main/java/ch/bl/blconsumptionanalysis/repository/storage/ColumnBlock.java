@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class is used to store a chunk of entries in a byte buffer, usually outside the heap.
+ * <p>
+ * Layout: a header with the capacity and the number of rows, followed by the year column (int),
+ * the commune id column (int) and the consumption column (double), each sized for the capacity.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class ColumnBlock implements MutableEntryColumns {
+	public static final int HEADER_BYTES = 8;
+	public static final int ROW_BYTES = Integer.BYTES + Integer.BYTES + Double.BYTES;
+	private final ByteBuffer buffer;
+	private final int capacity;
+	private final int communeIdOffset;
+	private final int mwhOffset;
+	private int rows;
+
+	private ColumnBlock(ByteBuffer buffer) {
+		this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+		this.capacity = this.buffer.getInt(0);
+		this.rows = this.buffer.getInt(Integer.BYTES);
+		this.communeIdOffset = HEADER_BYTES + capacity * Integer.BYTES;
+		this.mwhOffset = communeIdOffset + capacity * Integer.BYTES;
+	}
+
+	/**
+	 * This method is used to return the number of bytes of a block with the given capacity.
+	 *
+	 * @param capacity The maximum number of rows.
+	 * @return The number of bytes.
+	 */
+	public static int bytes(int capacity) {
+		return HEADER_BYTES + capacity * ROW_BYTES;
+	}
+
+	/**
+	 * This method is used to initialize an empty block in the given buffer.
+	 *
+	 * @param buffer   The buffer with at least {@link #bytes(int)} bytes.
+	 * @param capacity The maximum number of rows.
+	 * @return The empty block.
+	 */
+	public static ColumnBlock create(ByteBuffer buffer, int capacity) {
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(0, capacity).putInt(Integer.BYTES, 0);
+		return new ColumnBlock(buffer);
+	}
+
+	/**
+	 * This method is used to read a block that was written before.
+	 *
+	 * @param buffer The buffer containing the block.
+	 * @return The block.
+	 */
+	public static ColumnBlock wrap(ByteBuffer buffer) {
+		return new ColumnBlock(buffer);
+	}
+
+	@Override
+	public void add(int year, int communeId, double value) {
+		buffer.putInt(HEADER_BYTES + rows * Integer.BYTES, year);
+		buffer.putInt(communeIdOffset + rows * Integer.BYTES, communeId);
+		buffer.putDouble(mwhOffset + rows * Double.BYTES, value);
+		buffer.putInt(Integer.BYTES, ++rows);
+	}
+
+	/**
+	 * This method is used to return the buffer of the block.
+	 *
+	 * @return A read-only view of the buffer.
+	 */
+	public ByteBuffer buffer() {
+		return buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * This method is used to return the maximum number of rows.
+	 *
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int year(int row) {
+		return buffer.getInt(HEADER_BYTES + row * Integer.BYTES);
+	}
+
+	@Override
+	public int communeId(int row) {
+		return buffer.getInt(communeIdOffset + row * Integer.BYTES);
+	}
+
+	@Override
+	public double mwh(int row) {
+		return buffer.getDouble(mwhOffset + row * Double.BYTES);
+	}
+
+	@Override
+	public long heapBytes() {
+		// The block and the fields of its buffer object, the data itself is outside of the heap.
+		return MemoryLayout.object(MemoryLayout.REFERENCE + 4L * Integer.BYTES)
+				+ MemoryLayout.object(6L * Integer.BYTES + Long.BYTES + 4L * MemoryLayout.REFERENCE);
+	}
+
+	@Override
+	public long nativeBytes() {
+		return buffer.capacity();
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class is used to map the commune names to dense ids, so the rows only have to store an int per commune.
+ * The BFS number of a commune is kept once per id instead of in every row.
+ * A dictionary is immutable, adding names returns a new dictionary that keeps all existing ids.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class CommuneDictionary {
+	private static final CommuneDictionary EMPTY = new CommuneDictionary(new String[0], new int[0]);
+	private final String[] names;
+	private final int[] bfsNumbers;
+	private final Map<String, Integer> ids;
+	private final Map<String, Integer> idsIgnoreCase;
+
+	private CommuneDictionary(String[] names, int[] bfsNumbers) {
+		this.names = names;
+		this.bfsNumbers = bfsNumbers;
+		this.ids = new HashMap<>(names.length * 2);
+		this.idsIgnoreCase = new HashMap<>(names.length * 2);
+		for (int id = 0; id < names.length; ++id) {
+			ids.put(names[id], id);
+			idsIgnoreCase.putIfAbsent(names[id].toLowerCase(Locale.ROOT), id);
+		}
+	}
+
+	/**
+	 * This method is used to return the empty dictionary.
+	 *
+	 * @return The empty dictionary.
+	 */
+	public static CommuneDictionary empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * This method is used to return a dictionary that additionally contains the given names.
+	 *
+	 * @param newNames The commune names with their BFS numbers, or 0 if they are not known.
+	 * @return This dictionary if all names are already known, otherwise the extended dictionary.
+	 */
+	public CommuneDictionary withAll(Map<String, Integer> newNames) {
+		String[] extended = Arrays.copyOf(names, names.length + newNames.size());
+		int[] extendedNumbers = Arrays.copyOf(bfsNumbers, extended.length);
+		int size = names.length;
+		for (Map.Entry<String, Integer> name : newNames.entrySet()) {
+			if (!ids.containsKey(name.getKey())) {
+				extendedNumbers[size] = name.getValue();
+				extended[size++] = name.getKey();
+			}
+		}
+		return size == names.length ? this
+				: new CommuneDictionary(Arrays.copyOf(extended, size), Arrays.copyOf(extendedNumbers, size));
+	}
+
+	/**
+	 * This method is used to return the name of an id.
+	 *
+	 * @param id The commune id.
+	 * @return The commune name.
+	 */
+	public String name(int id) {
+		return names[id];
+	}
+
+	/**
+	 * This method is used to return the BFS number of an id.
+	 *
+	 * @param id The commune id.
+	 * @return The BFS number, or 0 if it is not known.
+	 */
+	public int bfsNumber(int id) {
+		return bfsNumbers[id];
+	}
+
+	/**
+	 * This method is used to return the id of a name.
+	 *
+	 * @param name The commune name.
+	 * @return The commune id, or -1 if the name is unknown.
+	 */
+	public int id(String name) {
+		return ids.getOrDefault(name, -1);
+	}
+
+	/**
+	 * This method is used to return the id of a name ignoring the case.
+	 *
+	 * @param name The commune name.
+	 * @return The commune id, or -1 if the name is unknown.
+	 */
+	public int idIgnoreCase(String name) {
+		return name == null ? -1 : idsIgnoreCase.getOrDefault(name.toLowerCase(Locale.ROOT), -1);
+	}
+
+	/**
+	 * This method is used to return the number of names.
+	 *
+	 * @return The number of names.
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * This method is used to estimate the memory of the names with their characters, see {@link MemoryLayout}.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long namesBytes() {
+		return MemoryLayout.references(names.length) + MemoryLayout.strings(Arrays.asList(names));
+	}
+
+	/**
+	 * This method is used to estimate the memory of the maps from the names to the ids, including the lower case
+	 * names that differ from the names, and of the BFS numbers.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long lookupBytes() {
+		long lowerCase = idsIgnoreCase.keySet().stream()
+				.filter(name -> !ids.containsKey(name))
+				.mapToLong(MemoryLayout::string)
+				.sum();
+		return MemoryLayout.hashMap(ids.size(), names.length * 2)
+				+ MemoryLayout.hashMap(idsIgnoreCase.size(), names.length * 2)
+				+ 2 * MemoryLayout.integers(0, names.length) + lowerCase
+				+ MemoryLayout.array(bfsNumbers.length, Integer.BYTES);
+	}
+}
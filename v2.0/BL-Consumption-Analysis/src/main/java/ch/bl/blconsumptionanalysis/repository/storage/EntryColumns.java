@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+/**
+ * This interface is used to read a contiguous chunk of stored entries column by column.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public interface EntryColumns {
+
+	/**
+	 * This method is used to return the number of rows of the chunk.
+	 *
+	 * @return The number of rows.
+	 */
+	int rows();
+
+	/**
+	 * This method is used to return the year of a row.
+	 *
+	 * @param row The row index inside the chunk.
+	 * @return The year.
+	 */
+	int year(int row);
+
+	/**
+	 * This method is used to return the dictionary id of the commune of a row.
+	 *
+	 * @param row The row index inside the chunk.
+	 * @return The commune id.
+	 */
+	int communeId(int row);
+
+	/**
+	 * This method is used to return the consumption of a row.
+	 *
+	 * @param row The row index inside the chunk.
+	 * @return The consumption in MWh.
+	 */
+	double mwh(int row);
+
+	/**
+	 * This method is used to estimate the memory of the chunk on the heap, see {@link MemoryLayout}.
+	 *
+	 * @return The size in bytes.
+	 */
+	long heapBytes();
+
+	/**
+	 * This method is used to return the memory of the chunk outside of the heap, in direct or mapped buffers.
+	 *
+	 * @return The size in bytes.
+	 */
+	long nativeBytes();
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+
+import java.util.List;
+
+/**
+ * This interface is used to read the stored entries column by column without creating objects.
+ * The rows are split into chunks, queries scan the chunks one after another.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public interface EntryStorage extends Storage<Entry> {
+
+	/**
+	 * This method is used to return the chunks of the stored rows in row order.
+	 *
+	 * @return The chunks.
+	 */
+	List<EntryColumns> chunks();
+
+	/**
+	 * This method is used to return the dictionary of the commune names.
+	 *
+	 * @return The commune dictionary.
+	 */
+	CommuneDictionary dictionary();
+
+	/**
+	 * This method is used to return the smallest stored year.
+	 *
+	 * @return The smallest year, or 0 if the storage is empty.
+	 */
+	int minYear();
+
+	/**
+	 * This method is used to return the largest stored year.
+	 *
+	 * @return The largest year, or -1 if the storage is empty.
+	 */
+	int maxYear();
+}
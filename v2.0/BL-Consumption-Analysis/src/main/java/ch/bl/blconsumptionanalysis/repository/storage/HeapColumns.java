@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.monitoring.MemoryLayout;
+
+/**
+ * This class is used to store a chunk of entries in primitive arrays on the heap.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class HeapColumns implements MutableEntryColumns {
+	private final int[] years;
+	private final int[] communeIds;
+	private final double[] mwh;
+	private int rows;
+
+	/**
+	 * This constructor is used to allocate the columns.
+	 *
+	 * @param capacity The maximum number of rows.
+	 */
+	public HeapColumns(int capacity) {
+		this.years = new int[capacity];
+		this.communeIds = new int[capacity];
+		this.mwh = new double[capacity];
+	}
+
+	@Override
+	public void add(int year, int communeId, double value) {
+		years[rows] = year;
+		communeIds[rows] = communeId;
+		mwh[rows] = value;
+		++rows;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int year(int row) {
+		return years[row];
+	}
+
+	@Override
+	public int communeId(int row) {
+		return communeIds[row];
+	}
+
+	@Override
+	public double mwh(int row) {
+		return mwh[row];
+	}
+
+	@Override
+	public long heapBytes() {
+		return MemoryLayout.object(3L * MemoryLayout.REFERENCE + Integer.BYTES)
+				+ 2 * MemoryLayout.array(years.length, Integer.BYTES) + MemoryLayout.array(mwh.length, Double.BYTES);
+	}
+
+	@Override
+	public long nativeBytes() {
+		return 0;
+	}
+}
@@ -0,0 +1,371 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to persist the entries as an append-only log of columnar segments.
+ * <p>
+ * The directory contains:
+ * <ul>
+ *     <li>{@code dictionary.log}: the commune names and BFS numbers in id order, each record with the length of the
+ *     name and a checksum.</li>
+ *     <li>{@code segment-NNNNNNNN.seg}: a {@link ColumnBlock} of up to {@link #SEGMENT_ROWS} rows followed by its
+ *     checksum. Segments are written to a temporary file and renamed when complete, they are never changed.</li>
+ *     <li>{@code checkpoint}: the number of segments and dictionary bytes known to be complete.</li>
+ * </ul>
+ * On open, everything up to the checkpoint is mapped without further checks. Segments and dictionary records written
+ * after the last checkpoint are verified by their checksums; a torn tail left by a crash is discarded. New files are
+ * renamed into place and the directory is synced afterwards, so a completed write survives a crash.
+ * A log of an older format has no valid checkpoint and its records fail the checksums, so it is discarded and
+ * filled again from the data file.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class SegmentLog implements AutoCloseable {
+	/**
+	 * The maximum number of rows of a segment.
+	 */
+	public static final int SEGMENT_ROWS = 1 << 20;
+	private static final int SEGMENT_MAGIC = 0x424C5347;
+	private static final int CHECKPOINT_MAGIC = 0x424C434B;
+	private static final int FORMAT_VERSION = 2;
+	private static final int SEGMENT_TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+	private static final int CHECKPOINT_BYTES = 4 * Integer.BYTES + Long.BYTES + Long.BYTES;
+	private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.seg");
+	private final Path directory;
+	private final int checkpointInterval;
+	private final List<EntryColumns> segments = new ArrayList<>();
+	private CommuneDictionary dictionary = CommuneDictionary.empty();
+	private long dictionaryBytes;
+	private int checkpointedSegments;
+	private int checkpointedDictionary;
+
+	private SegmentLog(Path directory, int checkpointInterval) {
+		this.directory = directory;
+		this.checkpointInterval = Math.max(1, checkpointInterval);
+	}
+
+	/**
+	 * This method is used to open the log in a directory and to recover its complete state.
+	 *
+	 * @param directory          The directory of the log, created if missing.
+	 * @param checkpointInterval The number of appended segments after which a checkpoint is written.
+	 * @return The opened log.
+	 */
+	public static SegmentLog open(Path directory, int checkpointInterval) {
+		SegmentLog log = new SegmentLog(directory, checkpointInterval);
+		try {
+			Files.createDirectories(directory);
+			log.recover();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the segment log in " + directory, e);
+		}
+		return log;
+	}
+
+	/**
+	 * This method is used to check whether the log contains no rows.
+	 *
+	 * @return True if no segment was written yet.
+	 */
+	public synchronized boolean isEmpty() {
+		return segments.isEmpty();
+	}
+
+	/**
+	 * This method is used to return a storage over the mapped segments.
+	 *
+	 * @return The storage.
+	 */
+	public synchronized EntryStorage storage() {
+		return new ChunkedEntryStorage(dictionary, segments);
+	}
+
+	/**
+	 * This method is used to durably append entries as new segments. The returned storage shares the chunks of the
+	 * given storage and maps the new segments.
+	 *
+	 * @param storage The current storage, which must have been created by this log.
+	 * @param entries The entries to append.
+	 * @return The storage including the appended entries.
+	 */
+	public synchronized EntryStorage append(EntryStorage storage, List<Entry> entries) {
+		try {
+			Map<String, Integer> names = new LinkedHashMap<>();
+			entries.forEach(entry -> names.putIfAbsent(entry.getCommune(), entry.getBfsNumber()));
+			CommuneDictionary extended = dictionary.withAll(names);
+			appendDictionary(extended);
+
+			List<EntryColumns> chunks = new ArrayList<>(storage.chunks());
+			for (int start = 0; start < entries.size(); start += SEGMENT_ROWS) {
+				EntryColumns segment = writeSegment(entries.subList(start, Math.min(entries.size(), start + SEGMENT_ROWS)));
+				segments.add(segment);
+				chunks.add(segment);
+			}
+			if (segments.size() - checkpointedSegments >= checkpointInterval) {
+				checkpoint();
+			}
+			return new ChunkedEntryStorage(dictionary, chunks);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not append to the segment log in " + directory, e);
+		}
+	}
+
+	/**
+	 * This method is used to write a checkpoint of the current state.
+	 */
+	public synchronized void checkpoint() {
+		if (checkpointedSegments == segments.size() && checkpointedDictionary == dictionary.size()) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(CHECKPOINT_MAGIC).putInt(FORMAT_VERSION).putInt(segments.size()).putInt(dictionary.size())
+				.putLong(dictionaryBytes);
+		buffer.putLong(crc(buffer.array(), 0, buffer.position()));
+		try {
+			writeAtomically(directory.resolve("checkpoint"), buffer.flip());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the checkpoint in " + directory, e);
+		}
+		checkpointedSegments = segments.size();
+		checkpointedDictionary = dictionary.size();
+	}
+
+	/**
+	 * This method is used to write a final checkpoint.
+	 */
+	@Override
+	public void close() {
+		checkpoint();
+	}
+
+	private void recover() throws IOException {
+		int trustedSegments = 0;
+		long trustedDictionaryBytes = 0;
+		Path checkpointFile = directory.resolve("checkpoint");
+		if (Files.exists(checkpointFile)) {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.remaining() == CHECKPOINT_BYTES && buffer.getInt(0) == CHECKPOINT_MAGIC
+					&& buffer.getInt(Integer.BYTES) == FORMAT_VERSION
+					&& buffer.getLong(CHECKPOINT_BYTES - Long.BYTES) == crc(buffer.array(), 0, CHECKPOINT_BYTES - Long.BYTES)) {
+				trustedSegments = buffer.getInt(2 * Integer.BYTES);
+				trustedDictionaryBytes = buffer.getLong(4 * Integer.BYTES);
+			}
+		}
+		recoverDictionary(trustedDictionaryBytes);
+		recoverSegments(trustedSegments);
+		// Anything recovered beyond the checkpoint, or lost before it, forces a new checkpoint.
+		checkpointedSegments = trustedSegments == segments.size() ? trustedSegments : -1;
+		checkpointedDictionary = trustedDictionaryBytes == dictionaryBytes ? dictionary.size() : -1;
+		checkpoint();
+	}
+
+	private void recoverDictionary(long trustedBytes) throws IOException {
+		Path file = directory.resolve("dictionary.log");
+		Map<String, Integer> names = new LinkedHashMap<>();
+		long valid = 0;
+		if (Files.exists(file)) {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.remaining() >= Integer.BYTES) {
+				int start = buffer.position();
+				int length = buffer.getInt();
+				if (length < 0 || buffer.remaining() < Integer.BYTES + length + Long.BYTES) {
+					break;
+				}
+				byte[] bytes = new byte[Integer.BYTES + length];
+				buffer.get(bytes);
+				long checksum = buffer.getLong();
+				if (start >= trustedBytes && checksum != crc(bytes, 0, bytes.length)) {
+					break;
+				}
+				ByteBuffer record = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+				names.put(new String(bytes, Integer.BYTES, length, StandardCharsets.UTF_8), record.getInt(0));
+				valid = buffer.position();
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		}
+		dictionary = CommuneDictionary.empty().withAll(names);
+		dictionaryBytes = valid;
+	}
+
+	private void recoverSegments(int trustedSegments) throws IOException {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(directory)) {
+			files = list.sorted().toList();
+		}
+		boolean broken = false;
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			Matcher matcher = SEGMENT_NAME.matcher(name);
+			if (name.endsWith(".tmp")) {
+				Files.delete(file);
+			} else if (matcher.matches()) {
+				int number = Integer.parseInt(matcher.group(1));
+				ColumnBlock segment = broken || number != segments.size() + 1 ? null
+						: mapSegment(file, number > trustedSegments);
+				if (segment == null) {
+					broken = true;
+					Files.delete(file);
+				} else {
+					segments.add(segment);
+				}
+			}
+		}
+	}
+
+	private ColumnBlock mapSegment(Path file, boolean verify) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < ColumnBlock.HEADER_BYTES + SEGMENT_TRAILER_BYTES) {
+				return null;
+			}
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		int blockBytes = mapped.capacity() - SEGMENT_TRAILER_BYTES;
+		if (mapped.getInt(blockBytes + Long.BYTES) != SEGMENT_MAGIC
+				|| ColumnBlock.bytes(mapped.getInt(0)) != blockBytes) {
+			return null;
+		}
+		ColumnBlock block = ColumnBlock.wrap(mapped.slice(0, blockBytes));
+		if (verify) {
+			CRC32 crc = new CRC32();
+			crc.update(mapped.slice(0, blockBytes));
+			if (crc.getValue() != mapped.getLong(blockBytes) || block.rows() > block.capacity()) {
+				return null;
+			}
+			for (int row = 0; row < block.rows(); ++row) {
+				if (block.communeId(row) < 0 || block.communeId(row) >= dictionary.size()) {
+					return null;
+				}
+			}
+		}
+		return block;
+	}
+
+	private void appendDictionary(CommuneDictionary extended) throws IOException {
+		if (extended.size() == dictionary.size()) {
+			return;
+		}
+		List<byte[]> records = new ArrayList<>();
+		int bytes = 0;
+		for (int id = dictionary.size(); id < extended.size(); ++id) {
+			byte[] name = extended.name(id).getBytes(StandardCharsets.UTF_8);
+			// The checksum covers the BFS number and the name.
+			byte[] record = ByteBuffer.allocate(Integer.BYTES + name.length).order(ByteOrder.LITTLE_ENDIAN)
+					.putInt(extended.bfsNumber(id)).put(name).array();
+			records.add(record);
+			bytes += Integer.BYTES + record.length + Long.BYTES;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		records.forEach(record -> buffer.putInt(record.length - Integer.BYTES).put(record)
+				.putLong(crc(record, 0, record.length)));
+		Path file = directory.resolve("dictionary.log");
+		boolean created = !Files.exists(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		if (created) {
+			syncDirectory();
+		}
+		dictionary = extended;
+		dictionaryBytes += bytes;
+	}
+
+	private ColumnBlock writeSegment(List<Entry> entries) throws IOException {
+		int blockBytes = ColumnBlock.bytes(entries.size());
+		ByteBuffer buffer = ByteBuffer.allocate(blockBytes + SEGMENT_TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		ColumnBlock block = ColumnBlock.create(buffer, entries.size());
+		entries.forEach(entry -> block.add(entry.getYear(), dictionary.id(entry.getCommune()), entry.getMwh()));
+		buffer.putLong(blockBytes, crc(buffer.array(), 0, blockBytes)).putInt(blockBytes + Long.BYTES, SEGMENT_MAGIC);
+
+		Path file = directory.resolve(String.format("segment-%08d.seg", segments.size() + 1));
+		writeAtomically(file, buffer.position(0));
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, blockBytes);
+			return ColumnBlock.wrap(mapped);
+		}
+	}
+
+	private void writeAtomically(Path file, ByteBuffer buffer) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		syncDirectory();
+	}
+
+	/**
+	 * This method is used to make the names of new or renamed files in the directory durable, which syncing the files
+	 * alone does not.
+	 */
+	private void syncDirectory() throws IOException {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+
+	private static long crc(byte[] bytes, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+		return crc.getValue();
+	}
+}
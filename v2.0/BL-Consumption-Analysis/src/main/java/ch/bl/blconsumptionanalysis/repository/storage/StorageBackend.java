@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This enum is used to define where the columns of an {@link EntryStorage} are kept.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public enum StorageBackend {
+	/**
+	 * The columns are kept in primitive arrays on the heap.
+	 */
+	HEAP {
+		@Override
+		MutableEntryColumns allocate(int capacity) {
+			return new HeapColumns(capacity);
+		}
+	},
+	/**
+	 * The columns are kept in direct byte buffers outside the heap.
+	 */
+	OFF_HEAP {
+		@Override
+		MutableEntryColumns allocate(int capacity) {
+			return ColumnBlock.create(ByteBuffer.allocateDirect(ColumnBlock.bytes(capacity)), capacity);
+		}
+	},
+	/**
+	 * The columns are kept in memory mapped temporary files, so the operating system can page them out.
+	 */
+	MAPPED {
+		@Override
+		MutableEntryColumns allocate(int capacity) {
+			try {
+				Path file = Files.createTempFile("bl-consumption-", ".col");
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.DELETE_ON_CLOSE)) {
+					return ColumnBlock.create(channel.map(FileChannel.MapMode.READ_WRITE, 0, ColumnBlock.bytes(capacity)), capacity);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	};
+
+	/**
+	 * The maximum number of rows of a chunk.
+	 */
+	public static final int CHUNK_ROWS = 1 << 16;
+
+	abstract MutableEntryColumns allocate(int capacity);
+
+	/**
+	 * This method is used to create a storage containing the given entries.
+	 *
+	 * @param entries The entries.
+	 * @return The storage.
+	 */
+	public EntryStorage create(List<Entry> entries) {
+		return append(new ChunkedEntryStorage(CommuneDictionary.empty(), List.of()), entries);
+	}
+
+	/**
+	 * This method is used to create a storage containing the rows of the given storage followed by the given entries.
+	 * The chunks of the given storage are shared, it stays unchanged.
+	 *
+	 * @param storage The existing storage.
+	 * @param entries The entries to append.
+	 * @return The new storage.
+	 */
+	public EntryStorage append(EntryStorage storage, List<Entry> entries) {
+		Map<String, Integer> names = new LinkedHashMap<>();
+		entries.forEach(entry -> names.putIfAbsent(entry.getCommune(), entry.getBfsNumber()));
+		CommuneDictionary dictionary = storage.dictionary().withAll(names);
+
+		List<EntryColumns> chunks = new ArrayList<>(storage.chunks());
+		MutableEntryColumns chunk = null;
+		for (int i = 0; i < entries.size(); ++i) {
+			if (i % CHUNK_ROWS == 0) {
+				chunk = allocate(Math.min(CHUNK_ROWS, entries.size() - i));
+				chunks.add(chunk);
+			}
+			Entry entry = entries.get(i);
+			chunk.add(entry.getYear(), dictionary.id(entry.getCommune()), entry.getMwh());
+		}
+		return new ChunkedEntryStorage(dictionary, chunks);
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.search;
+
+import ch.bl.blconsumptionanalysis.model.CommuneMatch;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class is used to find communes by their normalized names: lower case, without diacritics and with hyphens and
+ * runs of whitespace folded to one space, so {@code "BÖCKTEN"} and {@code "bockten"} both find {@code "Böckten"}.
+ * <p>
+ * The names are stored in a trie with the children of each node in a sorted array. An exact lookup and a prefix walk
+ * touch one node per character. Fuzzy matching computes one row of the edit distance (with transpositions of
+ * neighbouring characters) per node and skips every subtree whose row exceeds the maximum distance, so only a small
+ * part of the trie is visited.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class CommuneTrie {
+	private static final char[] NO_LABELS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+	private static final String[] NO_NAMES = new String[0];
+	private final Node root = new Node();
+	private final int size;
+
+	/**
+	 * This constructor is used to build the trie of the names.
+	 *
+	 * @param names The names.
+	 */
+	public CommuneTrie(Collection<String> names) {
+		for (String name : names) {
+			Node node = root;
+			for (char c : normalize(name).toCharArray()) {
+				node = node.getOrAdd(c);
+			}
+			node.addName(name);
+		}
+		this.size = names.size();
+	}
+
+	/**
+	 * This method is used to normalize a name for the lookup.
+	 *
+	 * @param name The name.
+	 * @return The normalized name.
+	 */
+	public static String normalize(String name) {
+		String decomposed = Normalizer.normalize(name.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+		StringBuilder normalized = new StringBuilder(decomposed.length());
+		boolean space = false;
+		for (int i = 0; i < decomposed.length(); ++i) {
+			char c = decomposed.charAt(i);
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			if (Character.isWhitespace(c) || c == '-') {
+				space = normalized.length() > 0;
+				continue;
+			}
+			if (space) {
+				normalized.append(' ');
+				space = false;
+			}
+			if (c == 'ß') {
+				normalized.append("ss");
+			} else {
+				normalized.append(c);
+			}
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * This method is used to return the number of names.
+	 *
+	 * @return The number of names.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method is used to find the names with the same normalized name.
+	 *
+	 * @param name The name.
+	 * @return The names, empty if there is none.
+	 */
+	public List<String> find(String name) {
+		Node node = walk(normalize(name));
+		return node == null ? List.of() : List.of(node.names);
+	}
+
+	/**
+	 * This method is used to find the names starting with a prefix, in the order of their normalized names.
+	 *
+	 * @param prefix The prefix.
+	 * @param limit  The maximum number of names.
+	 * @return The names.
+	 */
+	public List<String> complete(String prefix, int limit) {
+		List<String> names = new ArrayList<>();
+		Node node = walk(normalize(prefix));
+		if (node != null) {
+			collect(node, names, limit);
+		}
+		return names;
+	}
+
+	/**
+	 * This method is used to find the names within an edit distance, counting insertions, deletions, substitutions and
+	 * transpositions of neighbouring characters of the normalized names.
+	 *
+	 * @param name        The name.
+	 * @param maxDistance The maximum distance.
+	 * @param limit       The maximum number of matches.
+	 * @return The matches, the closest first and those with the same distance by name.
+	 */
+	public List<CommuneMatch> search(String name, int maxDistance, int limit) {
+		char[] query = normalize(name).toCharArray();
+		int[] first = new int[query.length + 1];
+		Arrays.setAll(first, i -> i);
+		List<CommuneMatch> matches = new ArrayList<>();
+		if (query.length <= maxDistance) {
+			for (String match : root.names) {
+				matches.add(new CommuneMatch(match, query.length));
+			}
+		}
+		for (int i = 0; i < root.labels.length; ++i) {
+			search(root.children[i], root.labels[i], (char) 0, query, null, first, maxDistance, matches);
+		}
+		matches.sort(Comparator.comparingInt(CommuneMatch::getDistance).thenComparing(CommuneMatch::getName));
+		return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+	}
+
+	private void search(Node node, char c, char previous, char[] query, int[] beforePrevious, int[] previousRow,
+						int maxDistance, List<CommuneMatch> matches) {
+		int[] row = new int[query.length + 1];
+		row[0] = previousRow[0] + 1;
+		int min = row[0];
+		for (int i = 1; i <= query.length; ++i) {
+			int distance = Math.min(Math.min(row[i - 1], previousRow[i]) + 1,
+					previousRow[i - 1] + (query[i - 1] == c ? 0 : 1));
+			if (beforePrevious != null && i > 1 && query[i - 1] == previous && query[i - 2] == c) {
+				distance = Math.min(distance, beforePrevious[i - 2] + 1);
+			}
+			row[i] = distance;
+			min = Math.min(min, distance);
+		}
+		if (row[query.length] <= maxDistance) {
+			for (String name : node.names) {
+				matches.add(new CommuneMatch(name, row[query.length]));
+			}
+		}
+		if (min <= maxDistance) {
+			for (int i = 0; i < node.labels.length; ++i) {
+				search(node.children[i], node.labels[i], c, query, previousRow, row, maxDistance, matches);
+			}
+		}
+	}
+
+	private Node walk(String normalized) {
+		Node node = root;
+		for (int i = 0; i < normalized.length() && node != null; ++i) {
+			node = node.get(normalized.charAt(i));
+		}
+		return node;
+	}
+
+	private static void collect(Node node, List<String> names, int limit) {
+		for (String name : node.names) {
+			if (names.size() >= limit) {
+				return;
+			}
+			names.add(name);
+		}
+		for (Node child : node.children) {
+			if (names.size() >= limit) {
+				return;
+			}
+			collect(child, names, limit);
+		}
+	}
+
+	/**
+	 * This class is used to represent a node of the trie with its children sorted by their character.
+	 */
+	private static final class Node {
+		private char[] labels = NO_LABELS;
+		private Node[] children = NO_CHILDREN;
+		private String[] names = NO_NAMES;
+
+		Node get(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			return index >= 0 ? children[index] : null;
+		}
+
+		Node getOrAdd(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			if (index >= 0) {
+				return children[index];
+			}
+			int insert = -index - 1;
+			char[] newLabels = new char[labels.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, insert);
+			System.arraycopy(children, 0, newChildren, 0, insert);
+			System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+			System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+			Node child = new Node();
+			newLabels[insert] = c;
+			newChildren[insert] = child;
+			labels = newLabels;
+			children = newChildren;
+			return child;
+		}
+
+		void addName(String name) {
+			names = Arrays.copyOf(names, names.length + 1);
+			names[names.length - 1] = name;
+		}
+	}
+}
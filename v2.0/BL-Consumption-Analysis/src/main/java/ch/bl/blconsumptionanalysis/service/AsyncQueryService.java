@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryCost;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class is used to schedule queries asynchronously on two lanes with their own bounded pools of workers.
+ * <p>
+ * The cost of each query is estimated from the size of the data before it is submitted, see
+ * {@link IQueryService#estimateCost(List)}. Cheap queries, like cached results or scans of small data, run on the
+ * interactive lane and all others on the batch lane, so heavy work never occupies the workers of cheap queries.
+ * If all workers of a lane are busy and its queue is full, further queries of the lane are rejected right away with a
+ * {@link RejectedExecutionException}.
+ * <p>
+ * Each query returns a {@link CompletableFuture}. If it is not done within its timeout it completes with a
+ * {@link TimeoutException}, and cancelling it or running into the timeout interrupts the worker. The scan checks the
+ * interrupt after every chunk and stops with a {@link java.util.concurrent.CancellationException}, so a runaway query
+ * frees its worker instead of blocking the following ones.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Service
+public class AsyncQueryService {
+	private final IQueryService queryService;
+	private final QueryLane interactive;
+	private final QueryLane batch;
+	private final long interactiveCost;
+	private final Duration defaultTimeout;
+
+	/**
+	 * This constructor is used to inject the QueryService and to create the lanes.
+	 *
+	 * @param queryService             The QueryService executing the queries.
+	 * @param interactiveThreads       The workers of the interactive lane, 0 for the number of processors.
+	 * @param interactiveQueueCapacity The queries waiting for a worker of the interactive lane.
+	 * @param batchThreads             The workers of the batch lane, 0 for a quarter of the processors.
+	 * @param batchQueueCapacity       The queries waiting for a worker of the batch lane.
+	 * @param interactiveCost          The highest cost of a query on the interactive lane.
+	 * @param timeout                  The default timeout in milliseconds, 0 for none.
+	 */
+	@Autowired
+	public AsyncQueryService(IQueryService queryService,
+							 @Value("${query.interactive.threads:0}") int interactiveThreads,
+							 @Value("${query.interactive.queue-capacity:100}") int interactiveQueueCapacity,
+							 @Value("${query.batch.threads:0}") int batchThreads,
+							 @Value("${query.batch.queue-capacity:10}") int batchQueueCapacity,
+							 @Value("${query.interactive.max-cost:1000000}") long interactiveCost,
+							 @Value("${query.timeout:0}") long timeout) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		this.queryService = queryService;
+		this.interactive = new QueryLane("interactive", interactiveThreads > 0 ? interactiveThreads : processors,
+				interactiveQueueCapacity);
+		this.batch = new QueryLane("batch", batchThreads > 0 ? batchThreads : Math.max(1, processors / 4),
+				batchQueueCapacity);
+		this.interactiveCost = interactiveCost;
+		this.defaultTimeout = Duration.ofMillis(timeout);
+	}
+
+	/**
+	 * This method is used to stop the workers and to interrupt the running queries.
+	 */
+	@PreDestroy
+	public void close() {
+		interactive.close();
+		batch.close();
+	}
+
+	/**
+	 * This method is used to execute a query with the default timeout.
+	 *
+	 * @param query The query.
+	 * @return The future result of the query.
+	 */
+	public CompletableFuture<QueryResult> execute(Query query) {
+		return execute(query, defaultTimeout);
+	}
+
+	/**
+	 * This method is used to execute a query.
+	 *
+	 * @param query   The query.
+	 * @param timeout The timeout, zero or null for none.
+	 * @return The future result of the query.
+	 */
+	public CompletableFuture<QueryResult> execute(Query query, Duration timeout) {
+		return lane(List.of(query)).submit(() -> queryService.execute(query), timeout);
+	}
+
+	/**
+	 * This method is used to execute several queries together, see {@link IQueryService#executeAll(List)}.
+	 *
+	 * @param queries The queries.
+	 * @param timeout The timeout of all queries, zero or null for none.
+	 * @return The future results in the order of the queries.
+	 */
+	public CompletableFuture<List<QueryResult>> executeAll(List<Query> queries, Duration timeout) {
+		return lane(queries).submit(() -> queryService.executeAll(queries), timeout);
+	}
+
+	/**
+	 * This method is used to choose the lane of queries by their estimated cost.
+	 *
+	 * @param queries The queries that are executed together.
+	 * @return The interactive lane if the cost is at most the configured limit, otherwise the batch lane.
+	 */
+	public QueryLane lane(List<Query> queries) {
+		QueryCost cost = queryService.estimateCost(queries);
+		return cost.getUnits() <= interactiveCost ? interactive : batch;
+	}
+
+	/**
+	 * This method is used to return the lanes.
+	 *
+	 * @return The interactive and the batch lane.
+	 */
+	public List<QueryLane> getLanes() {
+		return List.of(interactive, batch);
+	}
+
+	/**
+	 * This method is used to return the default timeout.
+	 *
+	 * @return The timeout, zero for none.
+	 */
+	public Duration getDefaultTimeout() {
+		return defaultTimeout;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.CommuneMatch;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+import ch.bl.blconsumptionanalysis.search.CommuneTrie;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is used to look up communes in the {@link CommuneTrie} of the names of the EnergyRepository.
+ * The trie is built again when a new version of the data adds communes. Without local data, in sharded mode, names
+ * are passed on unchanged.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Service
+public class CommuneService implements ICommuneService {
+	private static final int SUGGESTIONS = 5;
+	private final EnergyRepository energyRepository;
+	private volatile Index index = new Index(CommuneDictionary.empty());
+
+	/**
+	 * This constructor is used to inject the EnergyRepository.
+	 *
+	 * @param energyRepository The EnergyRepository.
+	 */
+	public CommuneService(EnergyRepository energyRepository) {
+		this.energyRepository = energyRepository;
+	}
+
+	@Override
+	public List<String> complete(String prefix, int limit) {
+		return trie().complete(prefix, limit);
+	}
+
+	@Override
+	public List<CommuneMatch> search(String name, int maxDistance, int limit) {
+		return trie().search(name, maxDistance, limit);
+	}
+
+	@Override
+	public Optional<String> resolve(String input) {
+		CommuneTrie trie = trie();
+		List<String> exact = trie.find(input);
+		if (!exact.isEmpty()) {
+			return Optional.of(exact.contains(input.trim()) ? input.trim() : exact.get(0));
+		}
+		List<String> completions = trie.complete(input, 2);
+		if (completions.size() == 1) {
+			return Optional.of(completions.get(0));
+		}
+		List<CommuneMatch> matches = trie.search(input, maxDistance(input), 2);
+		if (matches.size() == 1 || matches.size() > 1 && matches.get(0).getDistance() < matches.get(1).getDistance()) {
+			return Optional.of(matches.get(0).getName());
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public Query resolve(Query query) {
+		if (trie().size() == 0) {
+			return query;
+		}
+		QueryFilter filter = query.getFilter();
+		if (!filter.getCommunes().isEmpty()) {
+			Set<String> communes = filter.getCommunes().stream()
+					.map(this::resolveOrFail)
+					.collect(Collectors.toUnmodifiableSet());
+			filter = new QueryFilter(filter.getFromYear(), filter.getToYear(), communes);
+		}
+		String commune1 = query.getCommune1() == null ? null : resolveOrFail(query.getCommune1());
+		String commune2 = query.getCommune2() == null ? null : resolveOrFail(query.getCommune2());
+		return new Query(query.getFunction(), query.getOptions(), filter, commune1, commune2, query.getLimit(),
+				query.isExplain(), query.getForecast(), query.getAnomalies());
+	}
+
+	private List<String> suggest(String input) {
+		Set<String> suggestions = new LinkedHashSet<>();
+		trie().search(input, maxDistance(input) + 1, SUGGESTIONS).forEach(match -> suggestions.add(match.getName()));
+		suggestions.addAll(trie().complete(input, SUGGESTIONS));
+		return new ArrayList<>(suggestions).subList(0, Math.min(SUGGESTIONS, suggestions.size()));
+	}
+
+	private String resolveOrFail(String input) {
+		return resolve(input).orElseThrow(() -> {
+			List<String> suggestions = suggest(input);
+			return new IllegalArgumentException("Unknown commune " + input + (suggestions.isEmpty() ? ""
+					: ", did you mean " + String.join(", ", suggestions) + "?"));
+		});
+	}
+
+	private static int maxDistance(String input) {
+		int length = CommuneTrie.normalize(input).length();
+		return length <= 4 ? 1 : 2;
+	}
+
+	private CommuneTrie trie() {
+		CommuneDictionary dictionary = energyRepository.snapshot().getStorage().dictionary();
+		Index current = index;
+		if (current.dictionary != dictionary) {
+			current = new Index(dictionary);
+			index = current;
+		}
+		return current.trie;
+	}
+
+	/**
+	 * This class is used to hold the trie together with the dictionary it was built from.
+	 */
+	private static final class Index {
+		private final CommuneDictionary dictionary;
+		private final CommuneTrie trie;
+
+		Index(CommuneDictionary dictionary) {
+			this.dictionary = dictionary;
+			this.trie = new CommuneTrie(IntStream.range(0, dictionary.size())
+					.mapToObj(dictionary::name)
+					.collect(Collectors.toList()));
+		}
+	}
+}
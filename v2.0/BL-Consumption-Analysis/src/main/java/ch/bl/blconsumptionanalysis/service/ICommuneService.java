@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.CommuneMatch;
+import ch.bl.blconsumptionanalysis.model.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This interface is used to look up communes by their names, ignoring case and diacritics and tolerating typos.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public interface ICommuneService {
+	/**
+	 * This method is used to find the communes starting with a prefix.
+	 *
+	 * @param prefix The prefix.
+	 * @param limit  The maximum number of communes.
+	 * @return The names of the communes.
+	 */
+	List<String> complete(String prefix, int limit);
+
+	/**
+	 * This method is used to find the communes whose names are within an edit distance of a name.
+	 *
+	 * @param name        The name.
+	 * @param maxDistance The maximum edit distance.
+	 * @param limit       The maximum number of communes.
+	 * @return The matches, the closest first.
+	 */
+	List<CommuneMatch> search(String name, int maxDistance, int limit);
+
+	/**
+	 * This method is used to find the commune meant by an input: the commune with the same name, the only commune
+	 * starting with it or the only closest commune within a small edit distance.
+	 *
+	 * @param input The name as entered.
+	 * @return The name of the commune, or empty if there is none or the input is ambiguous.
+	 */
+	Optional<String> resolve(String input);
+
+	/**
+	 * This method is used to replace the communes of a query by the communes they resolve to.
+	 *
+	 * @param query The query.
+	 * @return The query with the names of the communes.
+	 * @throws IllegalArgumentException If a commune cannot be resolved, with suggestions in the message.
+	 */
+	Query resolve(Query query);
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.AppendResult;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryCost;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryFootprint;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This interface is used to execute the queries of the functions.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public interface IQueryService {
+	/**
+	 * This method is used to execute a query.
+	 *
+	 * @param query The query.
+	 * @return The result of the query.
+	 */
+	QueryResult execute(Query query);
+
+	/**
+	 * This method is used to execute several queries together.
+	 *
+	 * @param queries The queries.
+	 * @return The results in the order of the queries.
+	 */
+	List<QueryResult> executeAll(List<Query> queries);
+
+	/**
+	 * This method is used to iterate over the entries included by a filter without loading them all.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The iterator of the entries.
+	 */
+	Iterator<Entry> entries(QueryFilter filter);
+
+	/**
+	 * This method is used to estimate the cost of executing queries together.
+	 *
+	 * @param queries The queries.
+	 * @return The estimated cost.
+	 */
+	QueryCost estimateCost(List<Query> queries);
+
+	/**
+	 * This method is used to estimate the memory of the loaded data and the structures derived from it.
+	 *
+	 * @return The memory footprint.
+	 */
+	MemoryFootprint footprint();
+
+	/**
+	 * This method is used to append entries, for example the data of a new year, as a new version.
+	 *
+	 * @param entries The entries to append.
+	 * @return The version containing the entries and the detected anomalies.
+	 */
+	AppendResult append(List<Entry> entries);
+}
@@ -44,19 +44,24 @@ public class InputService implements IInputService {
 	}
 
 	/**
-	 * This method is used to read the user input.
+	 * This method is used to read the user input. The whole line is read, so names with spaces can be entered, and
+	 * empty lines are skipped.
 	 *
 	 * @param message The message to be displayed to the user.
-	 * @return The user input as a String.
+	 * @return The user input as a String, without leading and trailing whitespace.
 	 */
 	@Override
 	public String readString(String message) {
 		System.out.print(message);
-		return scanner.next();
+		String line = scanner.nextLine();
+		while (line.isBlank()) {
+			line = scanner.nextLine();
+		}
+		return line.trim();
 	}
 
 	/**
-	 * This method is used to read the user input.
+	 * This method is used to read the user input. Input that is not a number is skipped and the user is asked again.
 	 *
 	 * @param message The message to be displayed to the user.
 	 * @return The user input as an int.
@@ -64,6 +69,10 @@ public class InputService implements IInputService {
 	@Override
 	public int readInt(String message) {
 		System.out.print(message);
+		while (!scanner.hasNextInt()) {
+			scanner.next();
+			System.out.print("Invalid input! " + message);
+		}
 		return scanner.nextInt();
 	}
 }
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.monitoring.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to execute queries of one priority on its own bounded pool of workers, see
+ * {@link AsyncQueryService}. The latency of a query is measured from its submission to its completion, including the
+ * time it waited for a worker.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class QueryLane {
+	private final String name;
+	private final ThreadPoolExecutor executor;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder cancelled = new LongAdder();
+
+	/**
+	 * This constructor is used to create the workers of the lane.
+	 *
+	 * @param name          The name of the lane.
+	 * @param threads       The number of workers.
+	 * @param queueCapacity The number of queries waiting for a worker.
+	 */
+	QueryLane(String name, int threads, int queueCapacity) {
+		AtomicInteger counter = new AtomicInteger();
+		this.name = name;
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), runnable -> {
+			Thread thread = new Thread(runnable, "query-" + name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * This method is used to execute a task on a worker of the lane.
+	 *
+	 * @param task    The task.
+	 * @param timeout The timeout, zero or null for none.
+	 * @param <T>     The type of the result.
+	 * @return The future result, completed with a {@link RejectedExecutionException} if the queue is full.
+	 */
+	<T> CompletableFuture<T> submit(Supplier<T> task, Duration timeout) {
+		long start = System.nanoTime();
+		CompletableFuture<T> result = new CompletableFuture<>();
+		submitted.increment();
+		Future<?> running;
+		try {
+			running = executor.submit(() -> {
+				if (result.isDone()) {
+					// Cancelled or timed out while waiting for a worker.
+					return;
+				}
+				try {
+					result.complete(task.get());
+				} catch (RuntimeException | Error e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			result.completeExceptionally(new RejectedExecutionException("Too many queries in the " + name
+					+ " lane, " + getQueueDepth() + " are waiting", e));
+			return result;
+		}
+		if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+			result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		}
+		result.whenComplete((value, error) -> {
+			latency.record(System.nanoTime() - start);
+			if (result.isCancelled()) {
+				cancelled.increment();
+			} else if (error instanceof TimeoutException) {
+				timedOut.increment();
+			} else {
+				return;
+			}
+			running.cancel(true);
+			executor.remove((Runnable) running);
+		});
+		return result;
+	}
+
+	/**
+	 * This method is used to stop the workers and to interrupt the running queries.
+	 */
+	void close() {
+		executor.shutdownNow();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getWorkers() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * This method is used to return the number of workers executing a query.
+	 *
+	 * @return The number of active workers.
+	 */
+	public int getActive() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * This method is used to return the number of queries waiting for a worker.
+	 *
+	 * @return The queue depth.
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * This method is used to return the number of queries that can wait for a worker, once the queue is full further
+	 * queries are rejected.
+	 *
+	 * @return The capacity of the queue.
+	 */
+	public int getQueueCapacity() {
+		return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	public long getCancelled() {
+		return cancelled.sum();
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.AnomalyModel;
+import ch.bl.blconsumptionanalysis.model.ForecastModel;
+import ch.bl.blconsumptionanalysis.model.Functions;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class is used to create queries from textual parameters, as they are passed to the API or the command line.
+ * <p>
+ * Parameters: {@code function} (name or menu number), {@code sort} and {@code order} (as in the menu),
+ * {@code from} and {@code to} (years), {@code communes} (comma separated), {@code commune1}, {@code commune2} and
+ * {@code limit}. Forecasts take {@code horizon} (years ahead, default 5), {@code model} ({@code linear} or
+ * {@code holt}) and for {@code holt} the smoothing factors {@code alpha} and {@code beta}. Anomaly detections take
+ * {@code model} ({@code mad} or {@code zscore}), {@code window} (previous years), {@code threshold} and {@code since}
+ * (first reported year), the anomalies are limited by {@code limit}.
+ * With {@code explain=true} the result contains the execution plan of the query.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class QueryParser {
+
+	private QueryParser() {
+	}
+
+	/**
+	 * This method is used to create a query from its parameters.
+	 *
+	 * @param parameters The parameters by name.
+	 * @return The query.
+	 * @throws IllegalArgumentException If a parameter is missing or invalid.
+	 */
+	public static Query parse(Map<String, String> parameters) {
+		Functions function = parseFunction(required(parameters, "function"));
+		Options options = new Options(parseInt(parameters, "sort", 1), parseInt(parameters, "order", 1));
+		QueryFilter filter = parseFilter(parameters);
+		String commune1 = null;
+		String commune2 = null;
+		if (function == Functions.COMPARISON_OF_TWO_COMMUNES) {
+			commune1 = required(parameters, "commune1");
+			commune2 = required(parameters, "commune2");
+		}
+		int limit = parseInt(parameters, "limit", 10);
+		if (limit < 0) {
+			throw new IllegalArgumentException("Parameter limit must not be negative");
+		}
+		ForecastModel forecast = function == Functions.FORECAST_PER_COMMUNE ? parseForecast(parameters) : null;
+		AnomalyModel anomalies = function == Functions.ANOMALIES_PER_COMMUNE ? parseAnomalies(parameters) : null;
+		return new Query(function, options, filter, commune1, commune2, limit, parseBoolean(parameters, "explain"),
+				forecast, anomalies);
+	}
+
+	/**
+	 * This method is used to create the model of a forecast from the parameters {@code horizon}, {@code model},
+	 * {@code alpha} and {@code beta}.
+	 *
+	 * @param parameters The parameters by name.
+	 * @return The model of the forecast.
+	 * @throws IllegalArgumentException If a parameter is invalid.
+	 */
+	public static ForecastModel parseForecast(Map<String, String> parameters) {
+		int horizon = parseInt(parameters, "horizon", 5);
+		if (horizon < 1 || horizon > ForecastModel.MAX_HORIZON) {
+			throw new IllegalArgumentException("Parameter horizon must be between 1 and " + ForecastModel.MAX_HORIZON);
+		}
+		String model = parameters.getOrDefault("model", "linear").trim().toLowerCase(Locale.ROOT);
+		switch (model) {
+			case "":
+			case "linear":
+				return new ForecastModel(ForecastModel.Method.LINEAR, horizon);
+			case "holt":
+			case "smoothing":
+				return new ForecastModel(ForecastModel.Method.HOLT, horizon,
+						parseFactor(parameters, "alpha", ForecastModel.DEFAULT_ALPHA),
+						parseFactor(parameters, "beta", ForecastModel.DEFAULT_BETA));
+			default:
+				throw new IllegalArgumentException("Unknown model " + model);
+		}
+	}
+
+	/**
+	 * This method is used to split URL encoded parameters like {@code function=1&sort=2}.
+	 * Repeated parameters are joined with commas.
+	 *
+	 * @param rawQuery The encoded parameters, or null.
+	 * @return The parameters by name.
+	 */
+	public static Map<String, String> parseParameters(String rawQuery) {
+		Map<String, String> parameters = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return parameters;
+		}
+		for (String pair : rawQuery.split("&")) {
+			String[] keyValue = pair.split("=", 2);
+			String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
+			String value = keyValue.length > 1 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "";
+			parameters.merge(key, value, (a, b) -> a + "," + b);
+		}
+		return parameters;
+	}
+
+	/**
+	 * This method is used to create a filter from the parameters {@code from}, {@code to} and {@code communes}.
+	 *
+	 * @param parameters The parameters by name.
+	 * @return The filter, including everything if none of the parameters is set.
+	 * @throws IllegalArgumentException If a year is not a number.
+	 */
+	public static QueryFilter parseFilter(Map<String, String> parameters) {
+		Set<String> communes = Arrays.stream(parameters.getOrDefault("communes", "").split(","))
+				.map(String::trim)
+				.filter(commune -> !commune.isEmpty())
+				.collect(Collectors.toUnmodifiableSet());
+		return new QueryFilter(parseInt(parameters, "from", Integer.MIN_VALUE),
+				parseInt(parameters, "to", Integer.MAX_VALUE), communes);
+	}
+
+	/**
+	 * This method is used to parse a function by its name or its number in the menu.
+	 *
+	 * @param value The name or the number.
+	 * @return The function.
+	 * @throws IllegalArgumentException If no function matches.
+	 */
+	public static Functions parseFunction(String value) {
+		String trimmed = value.trim();
+		if (trimmed.chars().allMatch(Character::isDigit) && !trimmed.isEmpty()) {
+			int number = Integer.parseInt(trimmed);
+			if (number < 1 || number > Functions.values().length) {
+				throw new IllegalArgumentException("Unknown function " + value);
+			}
+			return Functions.values()[number - 1];
+		}
+		try {
+			return Functions.valueOf(trimmed.toUpperCase(Locale.ROOT).replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown function " + value, e);
+		}
+	}
+
+	private static String required(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null || value.isBlank()) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		return value;
+	}
+
+	private static boolean parseBoolean(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null) {
+			return false;
+		}
+		switch (value.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "true":
+			case "yes":
+			case "1":
+				return true;
+			case "false":
+			case "no":
+			case "0":
+				return false;
+			default:
+				throw new IllegalArgumentException("Parameter " + name + " is not a boolean: " + value);
+		}
+	}
+
+	/**
+	 * This method is used to create the model of an anomaly detection from the parameters {@code model},
+	 * {@code window}, {@code threshold} and {@code since}.
+	 *
+	 * @param parameters The parameters by name.
+	 * @return The model of the anomaly detection.
+	 * @throws IllegalArgumentException If a parameter is invalid.
+	 */
+	public static AnomalyModel parseAnomalies(Map<String, String> parameters) {
+		AnomalyModel.Method method;
+		String model = parameters.getOrDefault("model", "mad").trim().toLowerCase(Locale.ROOT);
+		switch (model) {
+			case "":
+			case "mad":
+			case "median":
+				method = AnomalyModel.Method.MAD;
+				break;
+			case "zscore":
+			case "mean":
+				method = AnomalyModel.Method.ZSCORE;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown model " + model);
+		}
+		int window = parseInt(parameters, "window", AnomalyModel.DEFAULT_WINDOW);
+		if (window < AnomalyModel.MIN_WINDOW || window > AnomalyModel.MAX_WINDOW) {
+			throw new IllegalArgumentException("Parameter window must be between " + AnomalyModel.MIN_WINDOW
+					+ " and " + AnomalyModel.MAX_WINDOW);
+		}
+		double threshold = parseDouble(parameters, "threshold", method.getDefaultThreshold());
+		if (!(threshold > 0)) {
+			throw new IllegalArgumentException("Parameter threshold must be greater than 0");
+		}
+		return new AnomalyModel(method, window, threshold, parseInt(parameters, "since", Integer.MIN_VALUE));
+	}
+
+	private static double parseFactor(Map<String, String> parameters, String name, double defaultValue) {
+		double factor = parseDouble(parameters, name, defaultValue);
+		if (!(factor > 0 && factor <= 1)) {
+			throw new IllegalArgumentException("Parameter " + name + " must be greater than 0 and at most 1");
+		}
+		return factor;
+	}
+
+	private static double parseDouble(Map<String, String> parameters, String name, double defaultValue) {
+		String value = parameters.get(name);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value, e);
+		}
+	}
+
+	/**
+	 * This method is used to parse a number parameter.
+	 *
+	 * @param parameters   The parameters by name.
+	 * @param name         The name of the parameter.
+	 * @param defaultValue The value if the parameter is not given.
+	 * @return The number.
+	 * @throws IllegalArgumentException If the parameter is not a number.
+	 */
+	public static int parseInt(Map<String, String> parameters, String name, int defaultValue) {
+		String value = parameters.get(name);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value, e);
+		}
+	}
+}
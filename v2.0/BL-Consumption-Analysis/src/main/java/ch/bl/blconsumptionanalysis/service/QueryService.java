@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.service;
+
+import ch.bl.blconsumptionanalysis.model.AnomalyRow;
+import ch.bl.blconsumptionanalysis.model.AppendResult;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryCost;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryFootprint;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class is used to execute the queries of the functions on the EnergyRepository.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Service
+public class QueryService implements IQueryService {
+	private final EnergyRepository energyRepository;
+
+	/**
+	 * This constructor is used to inject the EnergyRepository.
+	 *
+	 * @param energyRepository The EnergyRepository.
+	 */
+	public QueryService(EnergyRepository energyRepository) {
+		this.energyRepository = energyRepository;
+	}
+
+	/**
+	 * This method is used to execute a query.
+	 *
+	 * @param query The query.
+	 * @return The result of the query.
+	 */
+	@Override
+	public QueryResult execute(Query query) {
+		return energyRepository.execute(query);
+	}
+
+	/**
+	 * This method is used to execute several queries together, sharing a single pass over the data.
+	 *
+	 * @param queries The queries.
+	 * @return The results in the order of the queries.
+	 */
+	@Override
+	public List<QueryResult> executeAll(List<Query> queries) {
+		return energyRepository.executeBatch(queries);
+	}
+
+	/**
+	 * This method is used to iterate over the entries included by a filter without loading them all.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The iterator of the entries.
+	 */
+	@Override
+	public Iterator<Entry> entries(QueryFilter filter) {
+		return energyRepository.entries(filter);
+	}
+
+	/**
+	 * This method is used to estimate the cost of executing queries together.
+	 *
+	 * @param queries The queries.
+	 * @return The estimated cost.
+	 */
+	@Override
+	public QueryCost estimateCost(List<Query> queries) {
+		return energyRepository.estimateCost(queries);
+	}
+
+	/**
+	 * This method is used to estimate the memory of the loaded data and the structures derived from it.
+	 *
+	 * @return The memory footprint.
+	 */
+	@Override
+	public MemoryFootprint footprint() {
+		return energyRepository.footprint();
+	}
+
+	/**
+	 * This method is used to append entries and to log the anomalies detected in the appended years.
+	 * The logger is looked up only when there is an anomaly, so that FastQuery can use this service without slf4j on
+	 * the class path.
+	 *
+	 * @param entries The entries to append.
+	 * @return The version containing the entries and the detected anomalies.
+	 */
+	@Override
+	public AppendResult append(List<Entry> entries) {
+		AppendResult result = energyRepository.append(entries);
+		for (AnomalyRow anomaly : result.getAnomalies()) {
+			LoggerFactory.getLogger(QueryService.class).warn(String.format(Locale.ROOT,
+					"Anomaly in %s %d: %.2f MWh, expected %.2f MWh (%+.1f%%, score %.1f)", anomaly.getCommune(),
+					anomaly.getYear(), anomaly.getMwh(), anomaly.getExpected(), anomaly.getChange(),
+					anomaly.getScore()));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to send requests to one shard worker over a persistent connection.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class ShardClient implements AutoCloseable {
+	private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+	private final InetSocketAddress address;
+	private Socket socket;
+	private DataInputStream in;
+	private DataOutputStream out;
+
+	/**
+	 * This constructor is used to set the address of the worker. The connection is opened on first use.
+	 *
+	 * @param address The address of the worker.
+	 */
+	public ShardClient(InetSocketAddress address) {
+		this.address = address;
+	}
+
+	/**
+	 * This method is used to send a request and to read the rows of the response.
+	 * If a connection that was opened by an earlier call fails, for example because the worker was restarted, the
+	 * connection is reopened and the whole request is sent and read once more. This is safe because all requests only
+	 * read. A response is only returned once it is complete, so a connection that breaks while it is read never
+	 * leaves partial rows. Errors reported by the worker are not retried.
+	 *
+	 * @param request The writer of the opcode and the parameters.
+	 * @param row     The reader of one row of the response.
+	 * @param <T>     The type of the rows.
+	 * @return The rows of the response.
+	 * @throws UncheckedIOException If the connection fails.
+	 * @throws IllegalStateException If the worker reported an error.
+	 */
+	public synchronized <T> List<T> call(RequestWriter request, RowReader<T> row) {
+		boolean reused = socket != null;
+		try {
+			try {
+				send(request);
+				return receive(row);
+			} catch (IOException e) {
+				if (!reused) {
+					throw e;
+				}
+				close();
+				send(request);
+				return receive(row);
+			}
+		} catch (IOException e) {
+			close();
+			throw new UncheckedIOException("Shard worker " + address + " failed", e);
+		}
+	}
+
+	private void send(RequestWriter request) throws IOException {
+		if (socket == null) {
+			socket = new Socket();
+			socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+		request.write(out);
+		out.flush();
+	}
+
+	private <T> List<T> receive(RowReader<T> row) throws IOException {
+		ShardProtocol.readStatus(in);
+		int rows = in.readInt();
+		List<T> result = new ArrayList<>(rows);
+		for (int i = 0; i < rows; ++i) {
+			result.add(row.read(in));
+		}
+		return result;
+	}
+
+	/**
+	 * This method is used to check whether the worker accepts connections.
+	 *
+	 * @return True if a connection could be opened.
+	 */
+	public boolean isReachable() {
+		try (Socket probe = new Socket()) {
+			probe.connect(address, CONNECT_TIMEOUT_MILLIS);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// The connection is dropped anyway.
+			}
+			socket = null;
+		}
+	}
+
+	/**
+	 * This interface is used to write a request.
+	 */
+	@FunctionalInterface
+	public interface RequestWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * This interface is used to read one row of a response.
+	 *
+	 * @param <T> The type of the row.
+	 */
+	@FunctionalInterface
+	public interface RowReader<T> {
+		T read(DataInputStream in) throws IOException;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class is used to fan out queries to the shard workers and to merge their partial aggregates.
+ * <p>
+ * The workers are either listed in {@code shard.workers} (host:port, comma separated) or started as local processes
+ * when {@code shard.local-workers} is set. Without workers the coordinator is disabled and the repository uses its
+ * own data.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Component
+public class ShardCoordinator implements AutoCloseable {
+	private static final long STARTUP_TIMEOUT_MILLIS = 30000;
+	private final List<ShardClient> clients = new ArrayList<>();
+	private final List<Process> processes = new ArrayList<>();
+	private final ExecutorService executor;
+
+	/**
+	 * This constructor is used to connect to the configured workers or to start local ones.
+	 *
+	 * @param workers      The addresses of running workers, comma separated.
+	 * @param localWorkers The number of local worker processes to start.
+	 * @param localPort    The port of the first local worker, the others use the following ports.
+	 * @param backend      The storage backend of the local workers.
+	 * @param dataFile     The data file of the local workers, or an empty string for the JSON file of the class path.
+	 */
+	public ShardCoordinator(@Value("${shard.workers:}") String workers,
+							@Value("${shard.local-workers:0}") int localWorkers,
+							@Value("${shard.local-port:7400}") int localPort,
+							@Value("${storage.backend:heap}") String backend,
+							@Value("${data.file:}") String dataFile) {
+		if (localWorkers > 0) {
+			for (int shard = 0; shard < localWorkers; ++shard) {
+				processes.add(startLocalWorker(shard, localWorkers, localPort + shard, backend, dataFile));
+				clients.add(new ShardClient(new InetSocketAddress("localhost", localPort + shard)));
+			}
+			awaitLocalWorkers();
+		} else {
+			Arrays.stream(workers.split(","))
+					.map(String::trim)
+					.filter(address -> !address.isEmpty())
+					.map(address -> new InetSocketAddress(address.substring(0, address.lastIndexOf(':')),
+							Integer.parseInt(address.substring(address.lastIndexOf(':') + 1))))
+					.forEach(address -> clients.add(new ShardClient(address)));
+		}
+		this.executor = clients.isEmpty() ? null : Executors.newFixedThreadPool(clients.size(), runnable -> {
+			Thread thread = new Thread(runnable, "shard-coordinator");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * This method is used to return a disabled coordinator, for repositories that only use their own data.
+	 *
+	 * @return The disabled coordinator.
+	 */
+	public static ShardCoordinator local() {
+		return new ShardCoordinator("", 0, 0, "heap", "");
+	}
+
+	/**
+	 * This method is used to check whether queries are answered by shard workers.
+	 *
+	 * @return True if workers are configured.
+	 */
+	public boolean isEnabled() {
+		return !clients.isEmpty();
+	}
+
+	/**
+	 * This method is used to return the number of shard workers.
+	 *
+	 * @return The number of workers, 0 if the queries are answered locally.
+	 */
+	public int getWorkers() {
+		return clients.size();
+	}
+
+	/**
+	 * This method is used to collect the average consumption per commune. As the data is partitioned by commune,
+	 * the averages of the workers are complete and only have to be combined.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The average consumption per commune.
+	 */
+	public List<Entry> getAverageConsumptionPerCommune(QueryFilter filter) {
+		return fanOut(client -> client.call(out -> {
+			out.writeByte(ShardProtocol.AVERAGE_PER_COMMUNE);
+			ShardProtocol.writeFilter(out, filter);
+		}, ShardCoordinator::readCommune)).stream().flatMap(List::stream).collect(Collectors.toList());
+	}
+
+	/**
+	 * This method is used to merge the sums and counts per year of all workers into the average per year.
+	 *
+	 * @param filter The filter of the years and communes.
+	 * @return The average consumption per year.
+	 */
+	public List<Entry> getAverageConsumptionPerYear(QueryFilter filter) {
+		TreeMap<Integer, double[]> totals = new TreeMap<>();
+		fanOut(client -> client.call(out -> {
+			out.writeByte(ShardProtocol.TOTALS_PER_YEAR);
+			ShardProtocol.writeFilter(out, filter);
+		}, in -> Map.entry(in.readInt(), new double[]{in.readDouble(), in.readLong()})))
+				.forEach(partial -> partial.forEach(row -> totals.merge(row.getKey(), row.getValue(),
+						(a, b) -> new double[]{a[0] + b[0], a[1] + b[1]})));
+		return totals.entrySet().stream()
+				.map(entry -> new Entry(entry.getKey(), null, entry.getValue()[0] / entry.getValue()[1]))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * This method is used to merge the top candidates of all workers into the overall highest consumers.
+	 *
+	 * @param limit  The maximum number of communes.
+	 * @param filter The filter of the years and communes.
+	 * @return The highest consumers in descending order.
+	 */
+	public List<Entry> getHighestConsumers(int limit, QueryFilter filter) {
+		return fanOut(client -> client.call(out -> {
+			out.writeByte(ShardProtocol.HIGHEST_CONSUMERS);
+			out.writeInt(limit);
+			ShardProtocol.writeFilter(out, filter);
+		}, ShardCoordinator::readCommune)).stream()
+				.flatMap(List::stream)
+				.sorted(Comparator.comparingDouble(Entry::getMwh).reversed())
+				.limit(limit)
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * This method is used to merge the comparison of two communes, which may be stored on different workers.
+	 *
+	 * @param commune1 The first commune.
+	 * @param commune2 The second commune.
+	 * @param filter   The filter of the years.
+	 * @return The consumption of both communes per year.
+	 */
+	public Map<Integer, Pair> getComparisonOfTwoCommunes(String commune1, String commune2, QueryFilter filter) {
+		TreeMap<Integer, Pair> result = new TreeMap<>();
+		fanOut(client -> client.call(out -> {
+			out.writeByte(ShardProtocol.COMPARISON);
+			out.writeUTF(commune1);
+			out.writeUTF(commune2);
+			ShardProtocol.writeFilter(out, filter);
+		}, in -> Map.entry(in.readInt(), new Pair(in.readDouble(), in.readDouble()))))
+				.forEach(partial -> partial.forEach(row -> result.merge(row.getKey(), row.getValue(),
+						(a, b) -> new Pair(a.getFirst() + b.getFirst(), a.getSecond() + b.getSecond()))));
+		return result;
+	}
+
+	private static Entry readCommune(DataInputStream in) throws IOException {
+		int bfsNumber = in.readInt();
+		return new Entry(0, bfsNumber, in.readUTF(), in.readDouble());
+	}
+
+	private <R> List<R> fanOut(Function<ShardClient, R> request) {
+		List<CompletableFuture<R>> futures = clients.stream()
+				.map(client -> CompletableFuture.supplyAsync(() -> request.apply(client), executor))
+				.collect(Collectors.toList());
+		return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+	}
+
+	private Process startLocalWorker(int shard, int shards, int port, String backend, String dataFile) {
+		String classPath = System.getProperty("java.class.path");
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(classPath);
+		if (ShardWorker.class.getClassLoader() != ClassLoader.getSystemClassLoader()) {
+			// Inside the executable jar the application classes are only visible through the Spring Boot launcher.
+			command.add("-Dloader.main=" + ShardWorker.class.getName());
+			command.add("org.springframework.boot.loader.PropertiesLauncher");
+		} else {
+			command.add(ShardWorker.class.getName());
+		}
+		command.addAll(List.of("--shard=" + shard, "--shards=" + shards, "--port=" + port, "--backend=" + backend));
+		if (!dataFile.isBlank()) {
+			command.add("--data-file=" + Path.of(dataFile.trim()).toAbsolutePath());
+		}
+		try {
+			return new ProcessBuilder(command)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.redirectError(ProcessBuilder.Redirect.INHERIT)
+					.start();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not start shard worker " + shard, e);
+		}
+	}
+
+	private void awaitLocalWorkers() {
+		long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+		for (int shard = 0; shard < clients.size(); ++shard) {
+			while (!clients.get(shard).isReachable()) {
+				if (!processes.get(shard).isAlive() || System.currentTimeMillis() > deadline) {
+					close();
+					throw new IllegalStateException("Shard worker " + shard + " did not start");
+				}
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					close();
+					throw new IllegalStateException("Interrupted while starting the shard workers", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method is used to close the connections and to stop the local workers.
+	 */
+	@PreDestroy
+	@Override
+	public void close() {
+		clients.forEach(ShardClient::close);
+		processes.forEach(Process::destroy);
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class is used to define the binary protocol between the shard coordinator and its workers.
+ * <p>
+ * A request is an opcode followed by its parameters and the filter of the query. A response starts with a status byte; on success it is followed
+ * by the number of rows and the rows, on failure by an error message.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class ShardProtocol {
+	/**
+	 * Request: no parameters. Rows: BFS number (int), commune (UTF), average (double).
+	 */
+	public static final byte AVERAGE_PER_COMMUNE = 1;
+	/**
+	 * Request: no parameters. Rows: year (int), sum (double), count (long).
+	 */
+	public static final byte TOTALS_PER_YEAR = 2;
+	/**
+	 * Request: limit (int). Rows: BFS number (int), commune (UTF), total (double).
+	 */
+	public static final byte HIGHEST_CONSUMERS = 3;
+	/**
+	 * Request: first commune (UTF), second commune (UTF). Rows: year (int), first (double), second (double).
+	 */
+	public static final byte COMPARISON = 4;
+	public static final byte STATUS_OK = 0;
+	public static final byte STATUS_ERROR = 1;
+
+	private ShardProtocol() {
+	}
+
+	/**
+	 * This method is used to return the shard owning a commune.
+	 *
+	 * @param commune The commune name.
+	 * @param shards  The number of shards.
+	 * @return The shard index.
+	 */
+	public static int shardOf(String commune, int shards) {
+		return Math.floorMod(commune.hashCode(), shards);
+	}
+
+	/**
+	 * This method is used to write the filter of a request.
+	 *
+	 * @param out    The output stream of the connection.
+	 * @param filter The filter.
+	 * @throws IOException If the connection fails.
+	 */
+	public static void writeFilter(DataOutputStream out, QueryFilter filter) throws IOException {
+		out.writeInt(filter.getFromYear());
+		out.writeInt(filter.getToYear());
+		out.writeInt(filter.getCommunes().size());
+		for (String commune : filter.getCommunes()) {
+			out.writeUTF(commune);
+		}
+	}
+
+	/**
+	 * This method is used to read the filter of a request.
+	 *
+	 * @param in The input stream of the connection.
+	 * @return The filter.
+	 * @throws IOException If the connection fails.
+	 */
+	public static QueryFilter readFilter(DataInputStream in) throws IOException {
+		int fromYear = in.readInt();
+		int toYear = in.readInt();
+		int size = in.readInt();
+		Set<String> communes = new HashSet<>();
+		for (int i = 0; i < size; ++i) {
+			communes.add(in.readUTF());
+		}
+		return new QueryFilter(fromYear, toYear, Set.copyOf(communes));
+	}
+
+	/**
+	 * This method is used to read the status of a response and to fail if the worker reported an error.
+	 * The connection can still be used after an error.
+	 *
+	 * @param in The input stream of the connection.
+	 * @throws IOException           If the connection fails.
+	 * @throws IllegalStateException If the worker reported an error.
+	 */
+	public static void readStatus(DataInputStream in) throws IOException {
+		if (in.readByte() != STATUS_OK) {
+			throw new IllegalStateException("Shard worker failed: " + in.readUTF());
+		}
+	}
+
+	/**
+	 * This method is used to write an error response.
+	 *
+	 * @param out     The output stream of the connection.
+	 * @param message The error message.
+	 * @throws IOException If the connection fails.
+	 */
+	public static void writeError(DataOutputStream out, String message) throws IOException {
+		out.writeByte(STATUS_ERROR);
+		out.writeUTF(message == null ? "unknown error" : message);
+		out.flush();
+	}
+}
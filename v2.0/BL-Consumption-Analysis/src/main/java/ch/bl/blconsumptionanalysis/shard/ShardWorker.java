@@ -0,0 +1,264 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.GroupTotals;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is used to serve the partial aggregates of one shard of the data to a {@link ShardCoordinator}.
+ * A worker runs in its own JVM and only loads the communes of its shard, the entries of all other communes are
+ * dropped while the data is parsed.
+ * <p>
+ * Each response is built completely before it is sent, so a failing query is answered with an error instead of a
+ * partial response. If a request cannot be understood, the connection is closed.
+ * <p>
+ * Usage: {@code ShardWorker --shard=0 --shards=3 --port=7400 [--backend=heap] [--data-file=data.csv.gz]}
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class ShardWorker implements AutoCloseable {
+	private final EnergyRepository energyRepository;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private volatile ServerSocket serverSocket;
+
+	/**
+	 * This constructor is used to load the shard of the data.
+	 *
+	 * @param service The service reading the entries.
+	 * @param shard   The index of this shard.
+	 * @param shards  The number of shards.
+	 * @param backend The storage backend.
+	 */
+	public ShardWorker(EnergyJSONReaderDAO service, int shard, int shards, StorageBackend backend) {
+		this.energyRepository = new EnergyRepository(
+				service.partition(commune -> ShardProtocol.shardOf(commune, shards) == shard), backend,
+				ShardCoordinator.local());
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> arguments = new HashMap<>();
+		for (String arg : args) {
+			String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+			arguments.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+		}
+		int shard = Integer.parseInt(arguments.getOrDefault("shard", "0"));
+		int shards = Integer.parseInt(arguments.getOrDefault("shards", "1"));
+		int port = Integer.parseInt(arguments.getOrDefault("port", "7400"));
+		StorageBackend backend = StorageBackend.valueOf(arguments.getOrDefault("backend", "heap")
+				.toUpperCase().replace('-', '_'));
+
+		new ShardWorker(new EnergyJSONReaderDAO(arguments.getOrDefault("data-file", "")), shard, shards, backend)
+				.serve(port);
+	}
+
+	/**
+	 * This method is used to accept connections until the process is stopped or the worker is closed.
+	 *
+	 * @param port The port to listen on.
+	 * @throws IOException If the port cannot be opened.
+	 */
+	public void serve(int port) throws IOException {
+		try (ServerSocket server = new ServerSocket(port)) {
+			serverSocket = server;
+			while (!Thread.currentThread().isInterrupted()) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					if (server.isClosed()) {
+						return;
+					}
+					throw e;
+				}
+				connections.add(socket);
+				Thread thread = new Thread(() -> handle(socket), "shard-connection-" + socket.getPort());
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * This method is used to return the entries held by this worker.
+	 *
+	 * @return The entries.
+	 */
+	Iterator<Entry> entries() {
+		return energyRepository.entries(QueryFilter.all());
+	}
+
+	/**
+	 * This method is used to stop accepting connections and to close all open connections.
+	 */
+	@Override
+	public void close() {
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+			for (Socket socket : connections) {
+				socket.close();
+			}
+		} catch (IOException e) {
+			// The sockets are dropped anyway.
+		}
+	}
+
+	private void handle(Socket socket) {
+		try (socket;
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			while (true) {
+				byte opcode;
+				try {
+					opcode = in.readByte();
+				} catch (EOFException e) {
+					return;
+				}
+				Response response = read(opcode, in);
+				if (response == null) {
+					// The length of an unknown request is unknown, so the rest of the stream cannot be read.
+					ShardProtocol.writeError(out, "Unknown opcode " + opcode);
+					return;
+				}
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				try {
+					response.write(new DataOutputStream(buffer));
+				} catch (RuntimeException e) {
+					buffer.reset();
+					ShardProtocol.writeError(new DataOutputStream(buffer), e.getMessage());
+				}
+				buffer.writeTo(out);
+				out.flush();
+			}
+		} catch (IOException | RuntimeException e) {
+			// The coordinator closed the connection or sent a request that cannot be read, it reconnects when needed.
+		} finally {
+			connections.remove(socket);
+		}
+	}
+
+	/**
+	 * This method is used to read the parameters of a request completely before it is answered.
+	 *
+	 * @return The response, or null if the opcode is unknown.
+	 */
+	private Response read(byte opcode, DataInputStream in) throws IOException {
+		switch (opcode) {
+			case ShardProtocol.AVERAGE_PER_COMMUNE: {
+				QueryFilter filter = ShardProtocol.readFilter(in);
+				return out -> writeCommunes(out,
+						energyRepository.getAverageConsumptionPerCommune(new Options(1, 1), filter));
+			}
+			case ShardProtocol.TOTALS_PER_YEAR: {
+				QueryFilter filter = ShardProtocol.readFilter(in);
+				return out -> writeTotalsPerYear(out, energyRepository.getTotalsPerYear(filter));
+			}
+			case ShardProtocol.HIGHEST_CONSUMERS: {
+				int limit = in.readInt();
+				QueryFilter filter = ShardProtocol.readFilter(in);
+				return out -> writeCommunes(out, energyRepository.getHighestConsumers(limit, filter));
+			}
+			case ShardProtocol.COMPARISON: {
+				String commune1 = in.readUTF();
+				String commune2 = in.readUTF();
+				QueryFilter filter = ShardProtocol.readFilter(in);
+				return out -> writeComparison(out,
+						energyRepository.getComparisonOfTwoCommunes(commune1, commune2, filter));
+			}
+			default:
+				return null;
+		}
+	}
+
+	private void writeCommunes(DataOutputStream out, List<Entry> result) throws IOException {
+		out.writeByte(ShardProtocol.STATUS_OK);
+		out.writeInt(result.size());
+		for (Entry entry : result) {
+			out.writeInt(entry.getBfsNumber());
+			out.writeUTF(entry.getCommune());
+			out.writeDouble(entry.getMwh());
+		}
+	}
+
+	private void writeTotalsPerYear(DataOutputStream out, GroupTotals totals) throws IOException {
+		int rows = 0;
+		for (int group = 0; group < totals.groups(); ++group) {
+			rows += totals.count(group) > 0 ? 1 : 0;
+		}
+		out.writeByte(ShardProtocol.STATUS_OK);
+		out.writeInt(rows);
+		for (int group = 0; group < totals.groups(); ++group) {
+			if (totals.count(group) > 0) {
+				out.writeInt(totals.key(group));
+				out.writeDouble(totals.sum(group));
+				out.writeLong(totals.count(group));
+			}
+		}
+	}
+
+	private void writeComparison(DataOutputStream out, Map<Integer, Pair> result) throws IOException {
+		out.writeByte(ShardProtocol.STATUS_OK);
+		out.writeInt(result.size());
+		for (Map.Entry<Integer, Pair> entry : result.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeDouble(entry.getValue().getFirst());
+			out.writeDouble(entry.getValue().getSecond());
+		}
+	}
+
+	/**
+	 * This interface is used to compute a response and to write it.
+	 */
+	@FunctionalInterface
+	private interface Response {
+		void write(DataOutputStream out) throws IOException;
+	}
+}
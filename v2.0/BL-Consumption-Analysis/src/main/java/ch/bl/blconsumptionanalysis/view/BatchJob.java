@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.view;
+
+import ch.bl.blconsumptionanalysis.format.ResultFormat;
+import ch.bl.blconsumptionanalysis.format.ResultRenderer;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
+import ch.bl.blconsumptionanalysis.monitoring.MemoryFootprint;
+import ch.bl.blconsumptionanalysis.service.ICommuneService;
+import ch.bl.blconsumptionanalysis.service.IQueryService;
+import ch.bl.blconsumptionanalysis.service.QueryParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is used to run queries from the command line without the menu.
+ * <p>
+ * Options:
+ * <ul>
+ *     <li>{@code --query=function=1&sort=2}: a query with the parameters of {@link QueryParser}, can be repeated.</li>
+ *     <li>{@code --query-file=reports.txt}: a file with one query per line, empty lines and lines starting with
+ *     {@code #} are ignored.</li>
+ *     <li>{@code --format=csv|ndjson|json|table|binary}: the output format, CSV by default. The text outputs of
+ *     several queries are separated by an empty line, binary outputs follow each other directly and with JSON all
+ *     results are returned in one object.</li>
+ *     <li>{@code --output=report.csv}: the output file, standard output by default.</li>
+ *     <li>{@code --explain}: return the execution plan of every query, like {@code explain=true} does for a single
+ *     query. With JSON the plan is part of each result, with all other formats it is written to standard error.</li>
+ *     <li>{@code --footprint} or {@code --footprint=1000000,5000000}: write the memory footprint of the data after the
+ *     queries to standard error, projected to the given numbers of rows.</li>
+ * </ul>
+ * All queries are executed together on the same version of the data. The exit code is 0 on success, 2 for invalid
+ * queries and 1 if the output could not be written.
+ * <p>
+ * The job does not depend on Spring, it is run by the {@link BatchRunner} in the application and by {@link FastQuery}
+ * without it.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public class BatchJob {
+	private final IQueryService queryService;
+	private final ICommuneService communeService;
+
+	/**
+	 * This constructor is used to set the QueryService and the CommuneService.
+	 *
+	 * @param queryService   The QueryService.
+	 * @param communeService The CommuneService resolving the communes of the queries.
+	 */
+	public BatchJob(IQueryService queryService, ICommuneService communeService) {
+		this.queryService = queryService;
+		this.communeService = communeService;
+	}
+
+	/**
+	 * This method is used to return whether the command line arguments request the batch mode.
+	 *
+	 * @param args The command line arguments.
+	 * @return Whether a query or a query file is given.
+	 */
+	public static boolean isRequested(String[] args) {
+		return Arrays.stream(args).anyMatch(arg -> arg.startsWith("--query=") || arg.startsWith("--query-file="));
+	}
+
+	/**
+	 * This method is used to split the command line arguments of the form {@code --name=value} by name.
+	 * Arguments that are not options are ignored.
+	 *
+	 * @param args The command line arguments.
+	 * @return The values of each option in the order of the arguments.
+	 */
+	public static Map<String, List<String>> parseArguments(String[] args) {
+		Map<String, List<String>> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			if (arg.startsWith("--")) {
+				String[] keyValue = arg.substring(2).split("=", 2);
+				String value = keyValue.length > 1 ? keyValue[1] : "";
+				options.computeIfAbsent(keyValue[0], key -> new ArrayList<>()).add(value);
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * This method is used to execute the queries and to write the results.
+	 *
+	 * @param options The command line options by name.
+	 * @return The exit code.
+	 */
+	public int run(Map<String, List<String>> options) {
+		List<Query> queries;
+		ResultFormat format;
+		long[] projectedRows;
+		try {
+			queries = queries(options);
+			format = ResultFormat.parse(option(options, "format"), ResultFormat.CSV);
+			projectedRows = MemoryFootprint.parseRows(option(options, "footprint"));
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid query: " + e.getMessage());
+			return 2;
+		} catch (IOException e) {
+			System.err.println("Could not read the query file: " + e.getMessage());
+			return 2;
+		}
+		String output = option(options, "output");
+		try (OutputStream out = output == null ? new NonClosingOutputStream(System.out)
+				: new BufferedOutputStream(Files.newOutputStream(Path.of(output)))) {
+			List<QueryResult> results = queryService.executeAll(queries);
+			write(results, format, out);
+			if (format != ResultFormat.JSON) {
+				results.stream()
+						.filter(result -> result.getPlan() != null)
+						.forEach(result -> System.err.print(ResultRenderer.toText(result)));
+			}
+			if (options.containsKey("footprint")) {
+				System.err.print(queryService.footprint().toText(projectedRows));
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write the results: " + e.getMessage());
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * This method is used to return the value of an option, the last one if it is given several times.
+	 *
+	 * @param options The command line options by name.
+	 * @param name    The name of the option.
+	 * @return The value, or null if the option is not given.
+	 */
+	public static String option(Map<String, List<String>> options, String name) {
+		List<String> values = options.get(name);
+		return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+	}
+
+	private List<Query> queries(Map<String, List<String>> options) throws IOException {
+		List<Query> queries = new ArrayList<>();
+		if (options.containsKey("query")) {
+			for (String query : options.get("query")) {
+				queries.add(QueryParser.parse(QueryParser.parseParameters(query)));
+			}
+		}
+		if (options.containsKey("query-file")) {
+			for (String file : options.get("query-file")) {
+				for (String line : Files.readAllLines(Path.of(file), StandardCharsets.UTF_8)) {
+					String query = line.trim();
+					if (!query.isEmpty() && !query.startsWith("#")) {
+						queries.add(QueryParser.parse(QueryParser.parseParameters(query)));
+					}
+				}
+			}
+		}
+		if (queries.isEmpty()) {
+			throw new IllegalArgumentException("No queries given");
+		}
+		queries.replaceAll(communeService::resolve);
+		if (options.containsKey("explain")) {
+			queries.replaceAll(Query::explained);
+		}
+		return queries;
+	}
+
+	private void write(List<QueryResult> results, ResultFormat format, OutputStream out) throws IOException {
+		if (format == ResultFormat.JSON) {
+			JsonArray array = new JsonArray();
+			results.forEach(result -> array.add(ResultRenderer.toJson(result)));
+			JsonObject response = new JsonObject();
+			response.add("results", array);
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			new Gson().toJson(response, writer);
+			writer.write('\n');
+			writer.flush();
+			return;
+		}
+		for (int i = 0; i < results.size(); ++i) {
+			if (i > 0 && format != ResultFormat.BINARY) {
+				out.write('\n');
+			}
+			ResultRenderer.render(results.get(i), format, out, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * This class is used to flush the standard output instead of closing it.
+	 */
+	private static final class NonClosingOutputStream extends BufferedOutputStream {
+		NonClosingOutputStream(OutputStream out) {
+			super(out, 64 * 1024);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
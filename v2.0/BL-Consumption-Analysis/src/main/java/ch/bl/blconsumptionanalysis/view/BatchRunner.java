@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.view;
+
+import ch.bl.blconsumptionanalysis.service.ICommuneService;
+import ch.bl.blconsumptionanalysis.service.IQueryService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is used to run the {@link BatchJob} in the application once it is started, see there for the options.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+@Component
+@ConditionalOnProperty(name = "batch.enabled", havingValue = "true")
+public class BatchRunner implements ApplicationRunner, ExitCodeGenerator {
+	private final IQueryService queryService;
+	private final ICommuneService communeService;
+	private int exitCode;
+
+	/**
+	 * This constructor is used to inject the QueryService and the CommuneService.
+	 *
+	 * @param queryService   The QueryService.
+	 * @param communeService The CommuneService.
+	 */
+	public BatchRunner(IQueryService queryService, ICommuneService communeService) {
+		this.queryService = queryService;
+		this.communeService = communeService;
+	}
+
+	/**
+	 * This method is used to execute the queries and to write the results.
+	 *
+	 * @param args The command line arguments.
+	 */
+	@Override
+	public void run(ApplicationArguments args) {
+		exitCode = new BatchJob(queryService, communeService).run(BatchJob.parseArguments(args.getSourceArgs()));
+	}
+
+	/**
+	 * This method is used to return the exit code of the batch run.
+	 *
+	 * @return The exit code.
+	 */
+	@Override
+	public int getExitCode() {
+		return exitCode;
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package ch.bl.blconsumptionanalysis.view;
+
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.dao.HierarchyReaderDAO;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import ch.bl.blconsumptionanalysis.service.CommuneService;
+import ch.bl.blconsumptionanalysis.service.QueryService;
+import ch.bl.blconsumptionanalysis.shard.ShardCoordinator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * This class is used to answer batch queries without starting Spring.
+ * <p>
+ * The DAO, the repository and the QueryService are created directly, the queries are run by the same
+ * {@link BatchJob} as in the application. The storage is configured with {@code storage.backend},
+ * {@code storage.directory}, {@code storage.checkpoint-interval}, {@code data.file} and {@code hierarchy.file} from
+ * the command line or the {@code application.properties}. With a storage directory that already holds a segment log the segments are mapped
+ * instead of reading the JSON file, which makes this the fastest way to answer a query. Shard workers are not used.
+ * <p>
+ * Usage: {@code java -jar BL-Consumption-Analysis.jar --fast --query=function=3 [--storage.directory=data]}, or
+ * without the launcher of the jar from the extracted classes, which only need Gson on the class path:
+ * {@code java -cp BOOT-INF/classes:BOOT-INF/lib/gson.jar ch.bl.blconsumptionanalysis.view.FastQuery --query=...}
+ * <p>
+ * The target of answering a query within 0.1 s of starting the JVM is only approached from the extracted classes
+ * with an AppCDS archive, see the README. On a single-core machine with the data in a segment log a query takes
+ * about 0.6 s through the launcher of the jar, which alone needs about 0.3 s, 0.27 s from the extracted classes and
+ * 0.14 s to 0.17 s with the archive, of which starting the JVM takes 0.05 s to 0.06 s.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+public final class FastQuery {
+
+	private FastQuery() {
+	}
+
+	/**
+	 * This method is used to return whether the command line arguments request the fast mode.
+	 *
+	 * @param args The command line arguments.
+	 * @return Whether {@code --fast} and a query are given.
+	 */
+	public static boolean isRequested(String[] args) {
+		return BatchJob.isRequested(args) && List.of(args).contains("--fast");
+	}
+
+	public static void main(String[] args) {
+		Map<String, List<String>> options = BatchJob.parseArguments(args);
+		Properties properties = new Properties();
+		try (InputStream in = FastQuery.class.getClassLoader().getResourceAsStream("application.properties")) {
+			if (in != null) {
+				properties.load(in);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		StorageBackend backend = StorageBackend.valueOf(setting(options, properties, "storage.backend", "heap")
+				.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+		String directory = setting(options, properties, "storage.directory", "");
+		int checkpointInterval = Integer.parseInt(setting(options, properties, "storage.checkpoint-interval", "8")
+				.trim());
+		String dataFile = setting(options, properties, "data.file", "");
+		String hierarchyFile = setting(options, properties, "hierarchy.file", "");
+
+		EnergyRepository energyRepository = new EnergyRepository(new EnergyJSONReaderDAO(dataFile),
+				new HierarchyReaderDAO(hierarchyFile), backend, directory, checkpointInterval, ShardCoordinator.local(),
+				false);
+		int exitCode;
+		try {
+			exitCode = new BatchJob(new QueryService(energyRepository), new CommuneService(energyRepository)).run(options);
+		} finally {
+			energyRepository.close();
+		}
+		System.exit(exitCode);
+	}
+
+	private static String setting(Map<String, List<String>> options, Properties properties, String name,
+								  String defaultValue) {
+		String value = BatchJob.option(options, name);
+		return value != null ? value : properties.getProperty(name, defaultValue);
+	}
+}
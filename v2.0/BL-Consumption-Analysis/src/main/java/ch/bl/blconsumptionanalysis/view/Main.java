@@ -25,136 +25,251 @@
 
 package ch.bl.blconsumptionanalysis.view;
 
-import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.format.ResultFormat;
+import ch.bl.blconsumptionanalysis.format.ResultRenderer;
+import ch.bl.blconsumptionanalysis.model.AnomalyModel;
+import ch.bl.blconsumptionanalysis.model.ForecastModel;
 import ch.bl.blconsumptionanalysis.model.Functions;
 import ch.bl.blconsumptionanalysis.model.Options;
-import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.Query;
+import ch.bl.blconsumptionanalysis.model.QueryResult;
 import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.service.ICommuneService;
 import ch.bl.blconsumptionanalysis.service.IInputService;
-import jakarta.annotation.PostConstruct;
+import ch.bl.blconsumptionanalysis.service.IQueryService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 
 /**
  * This class is used to display the main menu and to call the appropriate methods based on the user input.
+ * The menu starts once the application is ready and can be disabled with {@code console.enabled=false}.
+ * <p>
+ * The menu runs in a loop until the user exits or the input ends. The executed queries are kept in a history, so the
+ * last query or an earlier one can be repeated without entering its parameters again. If the data has not changed in
+ * the meantime, the kept result is shown again without executing the query.
  *
  * @author Joel Schaltenbrand, Leon Hochwimmer
  * @version 2.0
  */
 @Component
-public class Main {
+@ConditionalOnProperty(name = "console.enabled", havingValue = "true", matchIfMissing = true)
+public class Main implements CommandLineRunner {
+	private static final int HISTORY_SIZE = 20;
+	private static final Charset CONSOLE_CHARSET = consoleCharset();
 	private final EnergyRepository energyRepository;
+	private final IQueryService queryService;
 	private final IInputService inputService;
-	private Functions function;
-	private List<Entry> list;
+	private final ICommuneService communeService;
+	private final Deque<QueryResult> history = new ArrayDeque<>();
 
 	/**
-	 * This constructor is used to inject the EnergyRepository and the InputService.
+	 * This constructor is used to inject the EnergyRepository, the QueryService, the InputService and the
+	 * CommuneService.
 	 *
 	 * @param energyRepository The EnergyRepository.
+	 * @param queryService     The QueryService.
 	 * @param inputService     The InputService.
+	 * @param communeService   The CommuneService.
 	 */
-	public Main(EnergyRepository energyRepository, IInputService inputService) {
+	public Main(EnergyRepository energyRepository, IQueryService queryService, IInputService inputService,
+				ICommuneService communeService) {
 		this.energyRepository = energyRepository;
+		this.queryService = queryService;
 		this.inputService = inputService;
+		this.communeService = communeService;
 	}
 
 	/**
-	 * This method is used to display the main menu and to call the appropriate methods based on the user input.
+	 * This method is used to start the main menu after all other components, like the API, are started.
+	 *
+	 * @param args The command line arguments.
+	 */
+	@Override
+	public void run(String... args) {
+		run();
+	}
+
+	/**
+	 * This method is used to display the main menu and to call the appropriate methods based on the user input,
+	 * until the user exits or the input ends.
 	 */
-	@PostConstruct
 	public void run() {
 		cleanUp();
-		startScreen();
+		System.out.println("Welcome to the BL Consumption Analysis!\n\n");
+		try {
+			while (true) {
+				printMenu();
+				String choice = inputService.readString("Your choice: ").trim().toLowerCase(Locale.ROOT);
+				if ("0".equals(choice)) {
+					System.exit(0);
+				} else if ("h".equals(choice)) {
+					printHistory();
+				} else if (choice.startsWith("r")) {
+					repeat(choice.substring(1));
+				} else {
+					Query query = readQuery(choice);
+					if (query != null) {
+						try {
+							show(queryService.execute(query));
+						} catch (UnsupportedOperationException e) {
+							System.out.println(e.getMessage());
+						}
+					}
+				}
+			}
+		} catch (NoSuchElementException e) {
+			// the input has ended, for example when it was piped into the application
+		}
 	}
 
-	private void startScreen() {
-		System.out.println("Welcome to the BL Consumption Analysis!\n\n");
+	private void printMenu() {
 		System.out.println("Please choose one of the following options:");
 		for (int i = 0; i < Functions.values().length; ++i) {
 			System.out.printf("%d. %s%n", i + 1, Functions.values()[i].getDescription());
 		}
-		int choice = inputService.readInt("Your choice: ");
-		cleanUp();
-		if (choice == 0) {
-			System.exit(0);
-		} else if (choice < 0 || choice > Functions.values().length) {
+		if (!history.isEmpty()) {
+			System.out.println("r. Repeat the last query (r<n> repeats entry n of the history)");
+			System.out.println("h. Show the history");
+		}
+		System.out.println("0. Exit");
+	}
+
+	private Query readQuery(String choice) {
+		int number;
+		try {
+			number = Integer.parseInt(choice);
+		} catch (NumberFormatException e) {
+			number = -1;
+		}
+		if (number < 1 || number > Functions.values().length) {
+			cleanUp();
 			System.out.println("Invalid input!");
-			pause();
+			return null;
 		}
-		function = Functions.values()[choice - 1];
+		Functions function = Functions.values()[number - 1];
 		switch (function) {
 			case AVERAGE_CONSUMPTION_PER_YEAR:
-				list = energyRepository.getAverageConsumptionPerYear(getOptions("Year"));
-				printListAverage();
-				break;
+				return Query.of(function, getOptions("Year", "average consumption"));
 			case AVERAGE_CONSUMPTION_PER_COMMUNE:
-				list = energyRepository.getAverageConsumptionPerCommune(getOptions("Commune"));
-				printListAverage();
-				break;
+				return Query.of(function, getOptions("Commune", "average consumption"));
 			case HIGHEST_CONSUMERS:
-				list = energyRepository.getHighestConsumers();
-				printListHighestConsumers();
-				break;
+				cleanUp();
+				return Query.of(function, new Options(2, 1));
 			case COMPARISON_OF_TWO_COMMUNES:
 				String commune1 = inputService.readString("First commune: ");
 				String commune2 = inputService.readString("Second commune: ");
 				cleanUp();
-				Map<Integer, Pair> list2 = energyRepository.getComparisonOfTwoCommunes(commune1, commune2);
-				printListComparisonOfTwoCommunes(list2, commune1, commune2);
-				break;
+				try {
+					return communeService.resolve(Query.comparison(commune1, commune2));
+				} catch (IllegalArgumentException e) {
+					System.out.println(e.getMessage());
+					return null;
+				}
+			case ROLLUP_BY_DISTRICT:
+				return Query.of(function, getOptions("Name", "total consumption"));
+			case FORECAST_PER_COMMUNE:
+				int horizon = inputService.readInt("Years ahead (1 - " + ForecastModel.MAX_HORIZON + "): ");
+				int method = inputService.readInt("Model (1 = linear trend, 2 = exponential smoothing): ");
+				Options options = getOptions("Commune", "forecast of the last year");
+				if (horizon < 1 || horizon > ForecastModel.MAX_HORIZON || method < 1 || method > 2) {
+					System.out.println("Invalid input!");
+					return null;
+				}
+				return Query.forecast(options, new ForecastModel(ForecastModel.Method.values()[method - 1], horizon));
+			case ANOMALIES_PER_COMMUNE:
+				int statistics = inputService.readInt(
+						"Model (1 = median and deviation, 2 = mean and standard deviation): ");
+				cleanUp();
+				if (statistics < 1 || statistics > 2) {
+					System.out.println("Invalid input!");
+					return null;
+				}
+				return Query.anomalies(10, new AnomalyModel(AnomalyModel.Method.values()[statistics - 1],
+						AnomalyModel.DEFAULT_WINDOW));
 			default:
 				System.out.println("Invalid input!");
-				break;
+				return null;
 		}
 	}
 
-	private Options getOptions(String sortBy) {
-		int sort = inputService.readInt(String.format("Sort by (1 = %s, 2 = average consumption): ", sortBy));
-		int order = inputService.readInt("Order (1 = ↓, 2 = ↑): ");
+	private void repeat(String entry) {
 		cleanUp();
-		return new Options(sort, order);
+		int number;
+		try {
+			number = entry.isBlank() ? 1 : Integer.parseInt(entry.trim());
+		} catch (NumberFormatException e) {
+			number = -1;
+		}
+		if (number < 1 || number > history.size()) {
+			System.out.println("Invalid input!");
+			return;
+		}
+		QueryResult previous = history.stream().skip(number - 1).findFirst().orElseThrow();
+		if (previous.getVersion() == energyRepository.getVersion()) {
+			show(previous);
+		} else {
+			show(queryService.execute(previous.getQuery()));
+		}
 	}
 
-	private void printListAverage() {
-		String mode = (function == Functions.AVERAGE_CONSUMPTION_PER_YEAR) ? "Year" : "Commune";
-		System.out.printf("%-30s %12s%n", mode, "Average consumption");
-		System.out.println("-----------------------------------------------------------");
-
-		list.forEach(entry -> {
-			String label = ("Commune".equals(mode)) ? entry.getCommune() : Integer.toString(entry.getYear());
-			Double averageConsumption = entry.getMwh();
-			System.out.printf("%-30s %12.2f MWh%n", label, averageConsumption);
-		});
-
-		pause();
+	private void show(QueryResult result) {
+		history.remove(result);
+		history.addFirst(result);
+		while (history.size() > HISTORY_SIZE) {
+			history.removeLast();
+		}
+		try {
+			ResultRenderer.render(result, ResultFormat.TABLE, System.out, CONSOLE_CHARSET);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		System.out.println();
 	}
 
-	private void printListComparisonOfTwoCommunes(Map<Integer, Pair> list, String commune1, String commune2) {
-		System.out.printf("%-10s %-30s %-30s%n", "Year", String.format("%s (total MWh)", commune1), String.format("%s (total MWh)", commune2));
-		System.out.println("--------------------------------------------------------------");
-		list.forEach((key, consumptionPair) -> {
-			int year = key;
-			System.out.printf("%-10d %-30.2f %-30.2f%n", year, consumptionPair.getFirst(), consumptionPair.getSecond());
-		});
+	private void printHistory() {
+		cleanUp();
+		System.out.println("History (newest first):");
+		int number = 1;
+		for (QueryResult result : history) {
+			System.out.printf("r%-3d %s%n", number++, describe(result.getQuery()));
+		}
+		System.out.println();
+	}
 
-		pause();
+	private String describe(Query query) {
+		switch (query.getFunction()) {
+			case COMPARISON_OF_TWO_COMMUNES:
+				return String.format("%s (%s / %s)", query.getFunction().getDescription(), query.getCommune1(),
+						query.getCommune2());
+			case HIGHEST_CONSUMERS:
+				return query.getFunction().getDescription();
+			case FORECAST_PER_COMMUNE:
+				ForecastModel forecast = query.getForecast();
+				return String.format("%s (%d years, %s)", query.getFunction().getDescription(), forecast.getHorizon(),
+						forecast.getMethod().name().toLowerCase(Locale.ROOT));
+			case ANOMALIES_PER_COMMUNE:
+				return String.format("%s (%s)", query.getFunction().getDescription(),
+						query.getAnomalies().getMethod().name().toLowerCase(Locale.ROOT));
+			default:
+				return String.format("%s (sort %d, order %d)", query.getFunction().getDescription(),
+						query.getOptions().getSort(), query.getOptions().getOrder());
+		}
 	}
 
-	private void printListHighestConsumers() {
-		System.out.printf("%-5s %-20s %-12s%n", "Nr", "Commune", "Total consumption");
-		System.out.println("--------------------------------------------");
-		list.stream()
-				.limit(10)
-				.forEach(entry -> {
-					String label = entry.getCommune();
-					Double totalConsumption = entry.getMwh();
-					System.out.printf("%-5d %-20s %12.2f MWh%n", list.indexOf(entry) + 1, label, totalConsumption);
-				});
-
-		pause();
+	private Options getOptions(String sortBy, String value) {
+		int sort = inputService.readInt(String.format("Sort by (1 = %s, 2 = %s): ", sortBy, value));
+		int order = inputService.readInt("Order (1 = ↓, 2 = ↑): ");
+		cleanUp();
+		return new Options(sort, order);
 	}
 
 	private void cleanUp() {
@@ -163,12 +278,12 @@ public class Main {
 		}
 	}
 
-	private void pause() {
+	private static Charset consoleCharset() {
+		String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
 		try {
-			Thread.sleep(10000);
-			run();
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+			return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+		} catch (IllegalArgumentException e) {
+			return Charset.defaultCharset();
 		}
 	}
 }
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.analysis;
+
+import ch.bl.blconsumptionanalysis.model.AnomalyModel;
+import ch.bl.blconsumptionanalysis.model.AnomalyRow;
+import ch.bl.blconsumptionanalysis.repository.YearSeries;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class is used to test the scores and the ranking of the {@link AnomalyDetector}. The expected scores were
+ * computed by hand from the windows of the series.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class AnomalyDetectorTest {
+	private static final double DELTA = 1e-9;
+	private static final AnomalyModel MAD = new AnomalyModel(AnomalyModel.Method.MAD, 5);
+	private static final AnomalyModel ZSCORE = new AnomalyModel(AnomalyModel.Method.ZSCORE, 5);
+
+	@Test
+	void madScoresAgainstTheMedianOfTheWindow() {
+		List<AnomalyRow> anomalies = AnomalyDetector.detect(series(new double[]{100, 110, 90, 105, 95, 300}),
+				dictionary("Aesch"), MAD, 10);
+
+		assertEquals(1, anomalies.size());
+		assertRow(anomalies.get(0), "Aesch", 2015, 300, 100, 200, 200 / (1.4826 * 5));
+	}
+
+	@Test
+	void zscoreScoresAgainstTheMeanOfTheWindow() {
+		List<AnomalyRow> anomalies = AnomalyDetector.detect(series(new double[]{100, 110, 90, 105, 95, 300}),
+				dictionary("Aesch"), ZSCORE, 10);
+
+		assertEquals(1, anomalies.size());
+		assertRow(anomalies.get(0), "Aesch", 2015, 300, 100, 200, 200 / Math.sqrt(250 / 4.0));
+	}
+
+	@Test
+	void madIsNotMaskedByAnEarlierAnomalyInTheWindow() {
+		YearSeries series = series(new double[]{100, 102, 98, 500, 101, 99, 130});
+
+		assertEquals(List.of("Aesch 2013", "Aesch 2016"),
+				labels(AnomalyDetector.detect(series, dictionary("Aesch"), MAD, 10)));
+		assertEquals(List.of("Aesch 2013"), labels(AnomalyDetector.detect(series, dictionary("Aesch"), ZSCORE, 10)));
+		assertEquals(29 / (1.4826 * 2), AnomalyDetector.detect(series, dictionary("Aesch"), MAD, 10).get(1).getScore(),
+				DELTA);
+	}
+
+	@Test
+	void fallsBackToTheMeanDeviationAndTheRelativeFloor() {
+		List<AnomalyRow> anomalies = AnomalyDetector.detect(series(new double[]{200, 200, 200, 260, 300},
+				new double[]{200, 200, 200, 200, 210}), dictionary("Muttenz", "Liestal"), MAD, 10);
+
+		assertEquals(List.of("Muttenz 2013", "Muttenz 2014", "Liestal 2014"), labels(anomalies));
+		assertEquals(60 / 2.0, anomalies.get(0).getScore(), DELTA);
+		assertEquals(100 / (1.2533 * 15), anomalies.get(1).getScore(), DELTA);
+		assertEquals(10 / 2.0, anomalies.get(2).getScore(), DELTA);
+	}
+
+	@Test
+	void ranksEqualScoresByCommuneAndYear() {
+		double[] values = {100, 100, 100, 150, 100, 100, 100, 150};
+		List<AnomalyRow> anomalies = AnomalyDetector.detect(series(values, values), dictionary("Zwingen", "Aesch"),
+				new AnomalyModel(AnomalyModel.Method.MAD, 3), 10);
+
+		assertEquals(List.of("Aesch 2013", "Aesch 2017", "Zwingen 2013", "Zwingen 2017"), labels(anomalies));
+	}
+
+	@Test
+	void appliesTheLimitThresholdAndFirstYear() {
+		YearSeries series = series(new double[]{200, 200, 200, 260, 300}, new double[]{200, 200, 200, 200, 210});
+		CommuneDictionary dictionary = dictionary("Muttenz", "Liestal");
+
+		assertEquals(List.of("Muttenz 2013"), labels(AnomalyDetector.detect(series, dictionary, MAD, 1)));
+		assertEquals(List.of("Muttenz 2013", "Muttenz 2014"), labels(AnomalyDetector.detect(series, dictionary,
+				new AnomalyModel(AnomalyModel.Method.MAD, 5, 5.2, Integer.MIN_VALUE), 10)));
+		assertEquals(List.of("Muttenz 2014", "Liestal 2014"), labels(AnomalyDetector.detect(series, dictionary,
+				new AnomalyModel(AnomalyModel.Method.MAD, 5, 3.5, 2014), 10)));
+	}
+
+	@Test
+	void skipsMissingYearsAndNeedsThreePreviousYears() {
+		YearSeries series = new YearSeries(1, 2010, 2016);
+		series.add(0, 2010, 1000);
+		series.add(0, 2012, 100);
+		series.add(0, 2013, 100);
+		series.add(0, 2015, 100);
+		series.add(0, 2016, 1000);
+
+		assertEquals(List.of("Aesch 2016"), labels(AnomalyDetector.detect(series, dictionary("Aesch"),
+				new AnomalyModel(AnomalyModel.Method.MAD, 3), 10)));		assertEquals(List.of(), AnomalyDetector.detect(series(new double[]{100, 100, 1000}), dictionary("Aesch"),
+				MAD, 10));
+	}
+
+	private static void assertRow(AnomalyRow row, String commune, int year, double mwh, double expected,
+								  double change, double score) {
+		assertEquals(commune, row.getCommune());
+		assertEquals(year, row.getYear());
+		assertEquals(mwh, row.getMwh(), DELTA);
+		assertEquals(expected, row.getExpected(), DELTA);
+		assertEquals(change, row.getChange(), DELTA);
+		assertEquals(score, row.getScore(), DELTA);
+	}
+
+	private static YearSeries series(double[]... values) {
+		YearSeries series = new YearSeries(values.length, 2010, 2009 + values[0].length);
+		for (int id = 0; id < values.length; ++id) {
+			for (int i = 0; i < values[id].length; ++i) {
+				series.add(id, 2010 + i, values[id][i]);
+			}
+		}
+		return series;
+	}
+
+	private static CommuneDictionary dictionary(String... names) {
+		Map<String, Integer> communes = new LinkedHashMap<>();
+		for (String name : names) {
+			communes.put(name, 0);
+		}
+		return CommuneDictionary.empty().withAll(communes);
+	}
+
+	private static List<String> labels(List<AnomalyRow> rows) {
+		return rows.stream().map(row -> row.getCommune() + " " + row.getYear()).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.analysis;
+
+import ch.bl.blconsumptionanalysis.model.ForecastModel;
+import ch.bl.blconsumptionanalysis.model.ForecastRow;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.repository.YearSeries;
+import ch.bl.blconsumptionanalysis.repository.storage.CommuneDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class is used to test the projections and the 95% prediction intervals of the {@link TrendForecaster}.
+ * The expected values were computed independently of the implementation.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class TrendForecasterTest {
+	private static final double DELTA = 1e-6;
+	private static final Options BY_NAME = new Options(1, 1);
+
+	@Test
+	void linearTrendMatchesOrdinaryLeastSquares() {
+		YearSeries series = new YearSeries(1, 2010, 2014);
+		double[] values = {1000, 3000, 2000, 5000, 4000};
+		for (int i = 0; i < values.length; ++i) {
+			series.add(0, 2010 + i, values[i]);
+		}
+		List<ForecastRow> rows = TrendForecaster.forecast(series, dictionary("Aesch"),
+				new ForecastModel(ForecastModel.Method.LINEAR, 2), BY_NAME);
+
+		assertRow(rows.get(0), "Aesch", 2015, 5400.0, 348.73159691548335, 10451.268403084516);
+		assertRow(rows.get(1), "Aesch", 2016, 6200.0, 367.29765546020644, 12032.702344539794);
+	}
+
+	@Test
+	void linearTrendAccountsForGapsBetweenYears() {
+		YearSeries series = new YearSeries(1, 2010, 2016);
+		for (int year : new int[]{2010, 2012, 2013, 2016}) {
+			series.add(0, year, 100 + 10 * (year - 2010));
+		}
+		List<ForecastRow> rows = TrendForecaster.forecast(series, dictionary("Aesch"),
+				new ForecastModel(ForecastModel.Method.LINEAR, 3), BY_NAME);
+
+		assertRow(rows.get(0), "Aesch", 2017, 170, 170, 170);
+		assertRow(rows.get(2), "Aesch", 2019, 190, 190, 190);
+	}
+
+	@Test
+	void holtMatchesTheSmoothingRecurrence() {
+		YearSeries series = new YearSeries(1, 2010, 2013);
+		double[] values = {10, 12, 15, 15};
+		for (int i = 0; i < values.length; ++i) {
+			series.add(0, 2010 + i, values[i]);
+		}
+		List<ForecastRow> rows = TrendForecaster.forecast(series, dictionary("Aesch"),
+				new ForecastModel(ForecastModel.Method.HOLT, 2, 0.5, 0.3), BY_NAME);
+
+		// sigma = sqrt((1 + 1.65^2) / 2), t = 4.303, the variance factor for two years is 1 + (0.5 + 0.5 * 0.3)^2
+		assertRow(rows.get(0), "Aesch", 2014, 17.7275, 11.857018801558937, 23.59798119844106);
+		assertRow(rows.get(1), "Aesch", 2015, 19.63, 12.628359001953317, 26.63164099804668);
+	}
+
+	@Test
+	void holtFollowsALinearSeriesWithGapsExactly() {
+		YearSeries series = new YearSeries(1, 2010, 2014);
+		for (int year : new int[]{2010, 2011, 2013, 2014}) {
+			series.add(0, year, 100 + 10 * (year - 2010));
+		}
+		List<ForecastRow> rows = TrendForecaster.forecast(series, dictionary("Aesch"),
+				new ForecastModel(ForecastModel.Method.HOLT, 2), BY_NAME);
+
+		assertRow(rows.get(0), "Aesch", 2015, 150, 150, 150);
+		assertRow(rows.get(1), "Aesch", 2016, 160, 160, 160);
+	}
+
+	@Test
+	void leavesOutShortSeriesAndClampsAtZero() {
+		YearSeries series = new YearSeries(2, 2010, 2012);
+		series.add(0, 2010, 300);
+		series.add(0, 2011, 200);
+		series.add(0, 2012, 100);
+		series.add(1, 2011, 50);
+		series.add(1, 2012, 60);
+		List<ForecastRow> rows = TrendForecaster.forecast(series, dictionary("Aesch", "Anwil"),
+				new ForecastModel(ForecastModel.Method.LINEAR, 2), BY_NAME);
+
+		assertEquals(2, rows.size());
+		assertRow(rows.get(0), "Aesch", 2013, 0, 0, 0);
+		assertRow(rows.get(1), "Aesch", 2014, 0, 0, 0);
+	}
+
+	@Test
+	void sortsTheCommunesAndKeepsTheirYearsTogether() {
+		YearSeries series = new YearSeries(3, 2010, 2012);
+		double[][] values = {{10, 20, 30}, {300, 300, 300}, {100, 120, 140}};
+		for (int id = 0; id < values.length; ++id) {
+			for (int i = 0; i < values[id].length; ++i) {
+				series.add(id, 2010 + i, values[id][i]);
+			}
+		}
+		CommuneDictionary dictionary = dictionary("Muttenz", "Aesch", "Liestal");
+		ForecastModel model = new ForecastModel(ForecastModel.Method.LINEAR, 2);
+
+		assertEquals(List.of("Aesch 2013", "Aesch 2014", "Liestal 2013", "Liestal 2014", "Muttenz 2013",
+				"Muttenz 2014"), labels(TrendForecaster.forecast(series, dictionary, model, BY_NAME)));
+		assertEquals(List.of("Aesch", "Liestal", "Muttenz"),
+				communes(TrendForecaster.forecast(series, dictionary, model, new Options(2, 1))));
+		assertEquals(List.of("Muttenz", "Liestal", "Aesch"),
+				communes(TrendForecaster.forecast(series, dictionary, model, new Options(2, 2))));
+	}
+
+	private static void assertRow(ForecastRow row, String commune, int year, double mwh, double lower, double upper) {
+		assertEquals(commune, row.getCommune());
+		assertEquals(year, row.getYear());
+		assertEquals(mwh, row.getMwh(), DELTA);
+		assertEquals(lower, row.getLower(), DELTA);
+		assertEquals(upper, row.getUpper(), DELTA);
+	}
+
+	private static CommuneDictionary dictionary(String... names) {
+		Map<String, Integer> communes = new LinkedHashMap<>();
+		for (String name : names) {
+			communes.put(name, 0);
+		}
+		return CommuneDictionary.empty().withAll(communes);
+	}
+
+	private static List<String> labels(List<ForecastRow> rows) {
+		return rows.stream().map(row -> row.getCommune() + " " + row.getYear()).collect(Collectors.toList());
+	}
+
+	private static List<String> communes(List<ForecastRow> rows) {
+		return rows.stream().map(ForecastRow::getCommune).distinct().collect(Collectors.toList());
+	}
+}
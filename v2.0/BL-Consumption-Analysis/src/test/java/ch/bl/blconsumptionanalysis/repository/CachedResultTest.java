@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Options;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class is used to test the sorted views of the {@link CachedResult}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class CachedResultTest {
+	private final CachedResult result = new CachedResult(List.of(
+			new Entry(0, "Liestal", 300.0),
+			new Entry(0, "Aesch", 100.0),
+			new Entry(0, "Muttenz", 300.0),
+			new Entry(0, "Binningen", 200.0),
+			new Entry(0, "Allschwil", 300.0)), Comparator.comparing(Entry::getCommune));
+
+	@Test
+	void sortsByLabel() {
+		assertEquals(List.of("Aesch", "Allschwil", "Binningen", "Liestal", "Muttenz"),
+				communes(result.view(new Options(1, 1))));
+		assertEquals(List.of("Muttenz", "Liestal", "Binningen", "Allschwil", "Aesch"),
+				communes(result.view(new Options(1, 2))));
+	}
+
+	@Test
+	void descendingValuesKeepTiesInTheirOriginalOrder() {
+		assertEquals(List.of("Liestal", "Muttenz", "Allschwil", "Binningen", "Aesch"),
+				communes(result.view(new Options(2, 1))));
+	}
+
+	@Test
+	void ascendingValuesAreTheReversedDescendingView() {
+		assertEquals(List.of("Aesch", "Binningen", "Allschwil", "Muttenz", "Liestal"),
+				communes(result.view(new Options(2, 2))));
+	}
+
+	@Test
+	void highestMatchesTheDescendingView() {
+		assertEquals(List.of("Liestal", "Muttenz"), communes(result.highest(2)));
+		assertEquals(communes(result.view(new Options(2, 1))), communes(result.highest(10)));
+	}
+
+	@Test
+	void viewsRejectIndicesOutOfRange() {
+		List<Entry> view = result.view(new Options(2, 1));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.get(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.get(view.size()));
+	}
+
+	private static List<String> communes(List<Entry> entries) {
+		return entries.stream().map(Entry::getCommune).collect(Collectors.toList());
+	}
+}
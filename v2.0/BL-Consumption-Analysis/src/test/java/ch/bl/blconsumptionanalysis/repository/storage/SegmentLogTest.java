@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.repository.storage;
+
+import ch.bl.blconsumptionanalysis.model.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class is used to test that the {@link SegmentLog} recovers its complete state after a crash.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class SegmentLogTest {
+	private static final List<Entry> FIRST = List.of(
+			new Entry(2020, 2761, "Aesch", 58000.0),
+			new Entry(2020, 2829, "Liestal", 120000.5),
+			new Entry(2021, 2761, "Aesch", 59000.0));
+	private static final List<Entry> SECOND = List.of(
+			new Entry(2022, 2770, "Muttenz", 250000.0),
+			new Entry(2022, 2829, "Liestal", 121000.0));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void reopensTheAppendedEntriesWithTheirBfsNumbers() {
+		try (SegmentLog log = SegmentLog.open(directory, 8)) {
+			assertTrue(log.isEmpty());
+			log.append(log.append(log.storage(), FIRST), SECOND);
+		}
+		try (SegmentLog log = SegmentLog.open(directory, 8)) {
+			assertEquals(rows(concat(FIRST, SECOND)), rows(log.storage()));
+			CommuneDictionary dictionary = log.storage().dictionary();
+			assertEquals(2770, dictionary.bfsNumber(dictionary.id("Muttenz")));
+		}
+	}
+
+	@Test
+	void discardsATruncatedSegmentAfterTheCheckpoint() throws IOException {
+		SegmentLog log = SegmentLog.open(directory, 8);
+		EntryStorage storage = log.append(log.storage(), FIRST);
+		log.checkpoint();
+		log.append(storage, SECOND);
+		truncate(directory.resolve("segment-00000002.seg"), 3);
+
+		try (SegmentLog recovered = SegmentLog.open(directory, 8)) {
+			assertEquals(rows(FIRST), rows(recovered.storage()));
+			assertFalse(Files.exists(directory.resolve("segment-00000002.seg")));
+			recovered.append(recovered.storage(), SECOND);
+		}
+		try (SegmentLog reopened = SegmentLog.open(directory, 8)) {
+			assertEquals(rows(concat(FIRST, SECOND)), rows(reopened.storage()));
+		}
+	}
+
+	@Test
+	void discardsACorruptedSegmentAfterTheCheckpoint() throws IOException {
+		SegmentLog log = SegmentLog.open(directory, 8);
+		EntryStorage storage = log.append(log.storage(), FIRST);
+		log.checkpoint();
+		log.append(storage, SECOND);
+		Path segment = directory.resolve("segment-00000002.seg");
+		byte[] bytes = Files.readAllBytes(segment);
+		bytes[bytes.length / 2] ^= 0x55;
+		Files.write(segment, bytes);
+
+		try (SegmentLog recovered = SegmentLog.open(directory, 8)) {
+			assertEquals(rows(FIRST), rows(recovered.storage()));
+		}
+	}
+
+	@Test
+	void discardsTheSegmentsOfATornDictionaryRecord() throws IOException {
+		SegmentLog log = SegmentLog.open(directory, 8);
+		EntryStorage storage = log.append(log.storage(), FIRST);
+		log.checkpoint();
+		log.append(storage, SECOND);
+		truncate(directory.resolve("dictionary.log"), 2);
+
+		try (SegmentLog recovered = SegmentLog.open(directory, 8)) {
+			CommuneDictionary dictionary = recovered.storage().dictionary();
+			assertEquals(2, dictionary.size());
+			assertEquals(-1, dictionary.id("Muttenz"));
+			assertEquals(rows(FIRST), rows(recovered.storage()));
+		}
+	}
+
+	@Test
+	void recoversUncheckpointedSegmentsAndRemovesTemporaryFiles() throws IOException {
+		SegmentLog log = SegmentLog.open(directory, 8);
+		log.append(log.append(log.storage(), FIRST), SECOND);
+		Files.write(directory.resolve("segment-00000003.seg.tmp"), new byte[]{1, 2, 3});
+
+		try (SegmentLog recovered = SegmentLog.open(directory, 8)) {
+			assertEquals(rows(concat(FIRST, SECOND)), rows(recovered.storage()));
+			assertFalse(Files.exists(directory.resolve("segment-00000003.seg.tmp")));
+		}
+	}
+
+	private static void truncate(Path file, int bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - bytes);
+		}
+	}
+
+	private static List<Entry> concat(List<Entry> first, List<Entry> second) {
+		List<Entry> entries = new ArrayList<>(first);
+		entries.addAll(second);
+		return entries;
+	}
+
+	private static List<String> rows(EntryStorage storage) {
+		return rows(IntStream.range(0, storage.size()).mapToObj(storage::get).collect(Collectors.toList()));
+	}
+
+	private static List<String> rows(List<Entry> entries) {
+		return entries.stream()
+				.map(entry -> entry.getYear() + " " + entry.getBfsNumber() + " " + entry.getCommune() + " "
+						+ entry.getMwh())
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.search;
+
+import ch.bl.blconsumptionanalysis.model.CommuneMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class is used to test the exact, prefix and fuzzy lookups of the {@link CommuneTrie}.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class CommuneTrieTest {
+	private static final List<String> NAMES = List.of("Aesch", "Allschwil", "Anwil", "Arboldswil", "Arisdorf",
+			"Arlesheim", "Biel-Benken", "Binningen", "Birsfelden", "Böckten", "Bottmingen", "Buus", "Läufelfingen",
+			"Lausen", "Liestal", "Muttenz", "Münchenstein", "Oberwil", "Ormalingen", "Pratteln", "Reinach", "Zunzgen",
+			"Zwingen");
+	private final CommuneTrie trie = new CommuneTrie(NAMES);
+
+	@Test
+	void normalizesCaseDiacriticsAndSeparators() {
+		assertEquals("bockten", CommuneTrie.normalize(" BÖCKTEN "));
+		assertEquals("biel benken", CommuneTrie.normalize("Biel -  Benken"));
+		assertEquals("strasse", CommuneTrie.normalize("Straße"));
+	}
+
+	@Test
+	void findsNormalizedNames() {
+		assertEquals(NAMES.size(), trie.size());
+		assertEquals(List.of("Böckten"), trie.find("bockten"));
+		assertEquals(List.of("Biel-Benken"), trie.find("BIEL BENKEN"));
+		assertEquals(List.of(), trie.find("Bie"));
+		assertEquals(List.of(), trie.find("Basel"));
+	}
+
+	@Test
+	void completesPrefixesInTheOrderOfTheNormalizedNames() {
+		assertEquals(List.of("Biel-Benken", "Binningen", "Birsfelden", "Böckten", "Bottmingen", "Buus"),
+				trie.complete("b", 10));
+		assertEquals(List.of("Läufelfingen", "Lausen"), trie.complete("LAU", 10));
+		assertEquals(List.of("Arboldswil", "Arisdorf"), trie.complete("ar", 2));
+		assertEquals(List.of(), trie.complete("x", 10));
+		assertEquals(NAMES.size(), trie.complete("", Integer.MAX_VALUE).size());
+	}
+
+	@Test
+	void searchesTyposWithinTheDistance() {
+		assertEquals(List.of(new CommuneMatch("Binningen", 1)), trie.search("Binnigen", 1, 5));
+		assertEquals(List.of(new CommuneMatch("Aesch", 1)), trie.search("Aecsh", 1, 5));
+		assertEquals(List.of(new CommuneMatch("Muttenz", 0)), trie.search("muttenz", 2, 5));
+		assertEquals(List.of(), trie.search("Basel", 1, 5));
+	}
+
+	@Test
+	void ranksTheClosestMatchesFirstAndTiesByName() {
+		List<CommuneMatch> matches = trie.search("Zwunzgen", 2, 5);
+		assertEquals(List.of(new CommuneMatch("Zunzgen", 1), new CommuneMatch("Zwingen", 2)), matches);
+		assertEquals(1, trie.search("Zwunzgen", 2, 1).size());
+	}
+
+	@Test
+	void searchMatchesTheEditDistanceOfEveryName() {
+		for (String query : List.of("Alschwil", "Arlsheim", "Libestal", "Pratelnn", "Oberwiel", "Reinahc", "Anwl",
+				"Buss", "Lausne", "Münchensten")) {
+			for (int maxDistance = 0; maxDistance <= 3; ++maxDistance) {
+				int max = maxDistance;
+				List<CommuneMatch> expected = NAMES.stream()
+						.map(name -> new CommuneMatch(name, distance(CommuneTrie.normalize(query),
+								CommuneTrie.normalize(name))))
+						.filter(match -> match.getDistance() <= max)
+						.sorted(Comparator.comparingInt(CommuneMatch::getDistance).thenComparing(CommuneMatch::getName))
+						.collect(Collectors.toList());
+				assertEquals(expected, trie.search(query, maxDistance, Integer.MAX_VALUE), query + " " + max);
+			}
+		}
+		assertTrue(trie.search("Alschwil", 1, 5).contains(new CommuneMatch("Allschwil", 1)));
+	}
+
+	/**
+	 * This method is used to compute the edit distance with transpositions of neighbouring characters directly.
+	 */
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); ++i) {
+			for (int j = 0; j <= b.length(); ++j) {
+				if (i == 0 || j == 0) {
+					d[i][j] = i + j;
+					continue;
+				}
+				d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1,
+						d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+}
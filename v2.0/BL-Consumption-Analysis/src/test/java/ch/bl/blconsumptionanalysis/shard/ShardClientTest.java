@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class is used to test that a {@link ShardClient} reconnects when its worker was restarted or closed the
+ * connection after a request it could not read.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class ShardClientTest {
+	private static final EnergyJSONReaderDAO SERVICE = new EnergyJSONReaderDAO("");
+
+	@Test
+	void reconnectsToARestartedWorker() throws IOException {
+		int port = freePort();
+		ShardWorker first = start(port);
+		try (ShardClient client = new ShardClient(new InetSocketAddress("localhost", port))) {
+			List<String> before = client.call(ShardClientTest::highestConsumers, ShardClientTest::readCommune);
+			assertEquals(3, before.size());
+
+			first.close();
+			ShardWorker second = start(port);
+			try {
+				assertEquals(before, client.call(ShardClientTest::highestConsumers, ShardClientTest::readCommune));
+			} finally {
+				second.close();
+			}
+		}
+	}
+
+	@Test
+	void reconnectsAfterAnUnknownRequest() throws IOException {
+		int port = freePort();
+		ShardWorker worker = start(port);
+		try (ShardClient client = new ShardClient(new InetSocketAddress("localhost", port))) {
+			assertThrows(IllegalStateException.class, () -> client.call(out -> out.writeByte(99), in -> in.readInt()));
+			assertEquals(3, client.call(ShardClientTest::highestConsumers, ShardClientTest::readCommune).size());
+		} finally {
+			worker.close();
+		}
+	}
+
+	private static void highestConsumers(DataOutputStream out) throws IOException {
+		out.writeByte(ShardProtocol.HIGHEST_CONSUMERS);
+		out.writeInt(3);
+		ShardProtocol.writeFilter(out, QueryFilter.all());
+	}
+
+	private static String readCommune(DataInputStream in) throws IOException {
+		return in.readInt() + " " + in.readUTF() + " " + in.readDouble();
+	}
+
+	private static ShardWorker start(int port) {
+		ShardWorker worker = new ShardWorker(SERVICE, 0, 1, StorageBackend.HEAP);
+		Thread thread = new Thread(() -> {
+			try {
+				worker.serve(port);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, "shard-worker-" + port);
+		thread.setDaemon(true);
+		thread.start();
+		awaitPort(port);
+		return worker;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void awaitPort(int port) {
+		for (int attempt = 0; ; ++attempt) {
+			try {
+				new Socket("localhost", port).close();
+				return;
+			} catch (IOException e) {
+				if (attempt == 100) {
+					throw new UncheckedIOException("Shard worker on port " + port + " did not start", e);
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(interrupted);
+				}
+			}
+		}
+	}
+}
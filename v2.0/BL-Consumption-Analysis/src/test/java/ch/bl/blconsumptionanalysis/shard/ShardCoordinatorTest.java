@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.model.Options;
+import ch.bl.blconsumptionanalysis.model.Pair;
+import ch.bl.blconsumptionanalysis.model.QueryFilter;
+import ch.bl.blconsumptionanalysis.repository.EnergyRepository;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class is used to test that the results merged by the {@link ShardCoordinator} from two workers match the
+ * results of a single repository holding all the data, both for workers in this JVM and for worker processes started
+ * by the coordinator.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class ShardCoordinatorTest {
+	private static final int SHARDS = 2;
+	private static final double TOLERANCE = 1e-9;
+	private static final List<QueryFilter> FILTERS = List.of(
+			QueryFilter.all(),
+			new QueryFilter(2015, 2020, Set.of()),
+			new QueryFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, Set.of("Aesch", "Liestal", "Muttenz", "Pratteln")));
+	private static final List<Options> OPTIONS = List.of(new Options(1, 1), new Options(1, 2), new Options(2, 1),
+			new Options(2, 2));
+
+	private static ShardCoordinator coordinator;
+	private static EnergyRepository sharded;
+	private static EnergyRepository local;
+
+	@BeforeAll
+	static void startWorkers() throws IOException {
+		List<String> workers = new ArrayList<>();
+		for (int shard = 0; shard < SHARDS; ++shard) {
+			ShardWorker worker = new ShardWorker(new EnergyJSONReaderDAO(""), shard, SHARDS, StorageBackend.HEAP);
+			int port = freePort();
+			Thread thread = new Thread(() -> {
+				try {
+					worker.serve(port);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, "shard-worker-" + shard);
+			thread.setDaemon(true);
+			thread.start();
+			awaitPort(port);
+			workers.add("localhost:" + port);
+		}
+		coordinator = new ShardCoordinator(String.join(",", workers), 0, 0, "heap", "");
+		sharded = new EnergyRepository(new EnergyJSONReaderDAO(""), StorageBackend.HEAP, coordinator);
+		local = new EnergyRepository(new EnergyJSONReaderDAO(""), StorageBackend.HEAP, ShardCoordinator.local());
+	}
+
+	@AfterAll
+	static void closeCoordinator() {
+		coordinator.close();
+	}
+
+	@Test
+	void mergesTheAveragesPerCommune() {
+		for (QueryFilter filter : FILTERS) {
+			for (Options options : OPTIONS) {
+				assertSameEntries(local.getAverageConsumptionPerCommune(options, filter),
+						sharded.getAverageConsumptionPerCommune(options, filter));
+			}
+		}
+	}
+
+	@Test
+	void mergesTheAveragesPerYear() {
+		for (QueryFilter filter : FILTERS) {
+			for (Options options : OPTIONS) {
+				assertSameEntries(local.getAverageConsumptionPerYear(options, filter),
+						sharded.getAverageConsumptionPerYear(options, filter));
+			}
+		}
+	}
+
+	@Test
+	void mergesTheHighestConsumers() {
+		for (QueryFilter filter : FILTERS) {
+			for (int limit : new int[]{1, 3, 10, Integer.MAX_VALUE}) {
+				assertSameEntries(local.getHighestConsumers(limit, filter), sharded.getHighestConsumers(limit, filter));
+			}
+		}
+	}
+
+	@Test
+	void mergesComparisonsOfCommunesOnDifferentWorkers() {
+		assertEquals(SHARDS, Stream.of("Aesch", "Liestal", "Muttenz")
+				.map(commune -> ShardProtocol.shardOf(commune, SHARDS)).distinct().count());
+		for (String[] communes : new String[][]{{"Aesch", "Muttenz"}, {"Aesch", "Liestal"}, {"Liestal", "Liestal"}}) {
+			for (QueryFilter filter : FILTERS.subList(0, 2)) {
+				Map<Integer, Pair> expected = local.getComparisonOfTwoCommunes(communes[0], communes[1], filter);
+				Map<Integer, Pair> actual = sharded.getComparisonOfTwoCommunes(communes[0], communes[1], filter);
+				assertEquals(expected.keySet(), actual.keySet());
+				expected.forEach((year, pair) -> {
+					assertEquals(pair.getFirst(), actual.get(year).getFirst(), TOLERANCE * pair.getFirst());
+					assertEquals(pair.getSecond(), actual.get(year).getSecond(), TOLERANCE * pair.getSecond());
+				});
+			}
+		}
+	}
+
+	@Test
+	void mergesTheResultsOfLocalWorkerProcesses() throws IOException {
+		try (ShardCoordinator processes = new ShardCoordinator("", SHARDS, freePorts(SHARDS), "heap", "")) {
+			assertEquals(SHARDS, processes.getWorkers());
+			EnergyRepository repository = new EnergyRepository(new EnergyJSONReaderDAO(""), StorageBackend.HEAP,
+					processes);
+			for (QueryFilter filter : FILTERS) {
+				assertSameEntries(local.getAverageConsumptionPerCommune(new Options(1, 1), filter),
+						repository.getAverageConsumptionPerCommune(new Options(1, 1), filter));
+				assertSameEntries(local.getHighestConsumers(10, filter), repository.getHighestConsumers(10, filter));
+			}
+		}
+	}
+
+	private static void assertSameEntries(List<Entry> expected, List<Entry> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			Entry e = expected.get(i);
+			Entry a = actual.get(i);
+			assertEquals(e.getYear(), a.getYear(), "year of row " + i);
+			assertEquals(e.getCommune(), a.getCommune(), "commune of row " + i);
+			assertEquals(e.getBfsNumber(), a.getBfsNumber(), "BFS number of row " + i);
+			assertEquals(e.getMwh(), a.getMwh(), TOLERANCE * Math.abs(e.getMwh()), "value of row " + i);
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static int freePorts(int count) throws IOException {
+		while (true) {
+			int port = freePort();
+			try {
+				for (int next = 1; next < count; ++next) {
+					new ServerSocket(port + next).close();
+				}
+				return port;
+			} catch (IOException e) {
+				// One of the following ports is taken, try another range.
+			}
+		}
+	}
+
+	private static void awaitPort(int port) {
+		for (int attempt = 0; ; ++attempt) {
+			try {
+				new Socket("localhost", port).close();
+				return;
+			} catch (IOException e) {
+				if (attempt == 100) {
+					throw new UncheckedIOException("Shard worker on port " + port + " did not start", e);
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(interrupted);
+				}
+			}
+		}
+	}
+}
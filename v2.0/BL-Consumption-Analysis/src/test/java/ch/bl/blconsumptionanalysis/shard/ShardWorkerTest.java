@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 Joel Schaltenbrand & Leon Hochwimmer for BBZBL-IT.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package ch.bl.blconsumptionanalysis.shard;
+
+import ch.bl.blconsumptionanalysis.dao.EnergyJSONReaderDAO;
+import ch.bl.blconsumptionanalysis.model.Entry;
+import ch.bl.blconsumptionanalysis.repository.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * This class is used to test that each {@link ShardWorker} holds exactly the entries of the communes of its shard,
+ * for the JSON file of the class path and for a data file.
+ *
+ * @author Joel Schaltenbrand, Leon Hochwimmer
+ * @version 2.0
+ */
+class ShardWorkerTest {
+	private static final int SHARDS = 3;
+
+	@Test
+	void holdsOnlyTheCommunesOfItsShard() {
+		assertShares(new EnergyJSONReaderDAO(""));
+	}
+
+	@Test
+	void holdsOnlyTheCommunesOfItsShardOfADataFile(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("data.csv");
+		Files.writeString(file, "jahr,bfs_nummer,gemeinde,wert\n"
+				+ "2020,2761,Aesch,10.0\n2020,2762,Allschwil,20.0\n2020,2829,Liestal,30.0\n"
+				+ "2020,2770,Muttenz,40.0\n2021,2761,Aesch,11.0\n2021,2831,Pratteln,50.0\n");
+		assertShares(new EnergyJSONReaderDAO(file.toString()));
+	}
+
+	private static void assertShares(EnergyJSONReaderDAO service) {
+		List<String> expected = service.getList(Entry.class).stream().map(ShardWorkerTest::key)
+				.sorted().collect(Collectors.toList());
+		List<String> actual = new ArrayList<>();
+		for (int shard = 0; shard < SHARDS; ++shard) {
+			List<Entry> held = new ArrayList<>();
+			Iterator<Entry> entries = new ShardWorker(service, shard, SHARDS, StorageBackend.HEAP).entries();
+			entries.forEachRemaining(held::add);
+			assertFalse(held.isEmpty(), "shard " + shard);
+			for (Entry entry : held) {
+				assertEquals(shard, ShardProtocol.shardOf(entry.getCommune(), SHARDS), entry.getCommune());
+				actual.add(key(entry));
+			}
+		}
+		actual.sort(null);
+		assertEquals(expected, actual);
+	}
+
+	private static String key(Entry entry) {
+		return entry.getYear() + " " + entry.getBfsNumber() + " " + entry.getCommune() + " " + entry.getMwh();
+	}
+}